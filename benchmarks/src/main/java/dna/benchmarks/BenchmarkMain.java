@@ -0,0 +1,53 @@
+package dna.benchmarks;
+
+import java.util.ArrayList;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import dna.datastructures.DataStructureMatrix;
+
+/**
+ * Runs {@link DataStructureBenchmark} for all combinations of data structures
+ * and element types in the {@link DataStructureMatrix}, which DatastructureTester
+ * checks as well, at sizes from 10^3 to 10^7, and writes the results as JSON to
+ * results.json.
+ *
+ * All JMH command line options are accepted and take precedence, e.g.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar -p size=1000,100000 -p combination=DHashSet:DirectedEdge -rff out.csv -rf csv
+ * </pre>
+ */
+public class BenchmarkMain {
+	private static final String[] sizes = { "1000", "10000", "100000", "1000000", "10000000" };
+
+	public static String[] combinations() {
+		ArrayList<String> result = new ArrayList<>();
+		for (Class<?>[] pair : DataStructureMatrix.listElementPairs()) {
+			result.add(pair[0].getSimpleName() + ":" + pair[1].getSimpleName());
+		}
+		return result.toArray(new String[result.size()]);
+	}
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+
+		if (cmd.getIncludes().isEmpty())
+			options.include(DataStructureBenchmark.class.getName());
+		if (!cmd.getParameter("combination").hasValue())
+			options.param("combination", combinations());
+		if (!cmd.getParameter("size").hasValue())
+			options.param("size", sizes);
+		if (!cmd.getResultFormat().hasValue())
+			options.resultFormat(ResultFormatType.JSON);
+		if (!cmd.getResult().hasValue())
+			options.result("results.json");
+
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,164 @@
+package dna.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dna.datastructures.DArrayList;
+import dna.datastructures.DataStructure;
+import dna.datastructures.GraphDataStructure;
+import dna.datastructures.IEdgeListDatastructureReadable;
+import dna.datastructures.INodeListDatastructureReadable;
+import dna.datastructures.IReadable;
+import dna.graph.IElement;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.Node;
+
+/**
+ * Throughput of the basic operations of one data structure storing one type
+ * of element. A combination is given as "DataStructure:ElementType", using
+ * the simple class names, e.g. "DHashSet:UndirectedEdge". The list is filled
+ * with size distinct elements before each trial, all benchmarks leave it at
+ * that size.
+ *
+ * Run all combinations through {@link BenchmarkMain}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx8g" })
+public class DataStructureBenchmark {
+	@Param({ "DArrayList:DirectedNode" })
+	public String combination;
+
+	@Param({ "1000" })
+	public int size;
+
+	private DataStructure list;
+
+	/**
+	 * The first size elements are stored in the list, the remaining ones are
+	 * used to check for and add elements that are not stored
+	 */
+	private IElement[] elements;
+	private int missing;
+	private int cursor;
+
+	@Setup
+	public void setUp() throws ReflectiveOperationException {
+		String[] parts = this.combination.split(":");
+		Class<?> listType = Class.forName("dna.datastructures." + parts[0]);
+		Class<? extends IElement> elementType = elementType(parts[1]);
+
+		GraphDataStructure gds;
+		if (Node.class.isAssignableFrom(elementType)) {
+			gds = graphDataStructure(elementType.getSimpleName());
+		} else {
+			gds = graphDataStructure(elementType.getSimpleName().replace("Edge", "Node"));
+			gds.setEdgeType(elementType.asSubclass(Edge.class));
+		}
+		gds.setLazyNodeLists(true);
+
+		int total = this.size + 1024;
+		this.elements = new IElement[total];
+		if (Node.class.isAssignableFrom(elementType)) {
+			for (int i = 0; i < total; i++) {
+				this.elements[i] = gds.newNodeInstance(i);
+			}
+		} else {
+			Node src = gds.newNodeInstance(0);
+			for (int i = 0; i < total; i++) {
+				Node dst = gds.newNodeInstance(i + 1);
+				this.elements[i] = gds.newEdgeInstance(src, dst);
+				src = dst;
+			}
+		}
+
+		this.list = (DataStructure) listType.getConstructor(Class.class).newInstance(elementType);
+		this.list.init(elementType, this.size);
+		// the elements are distinct, so skip the search for duplicates
+		for (int i = 0; i < this.size; i++) {
+			this.list.addNew(this.elements[i]);
+		}
+		this.missing = this.size;
+		this.cursor = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Class<? extends IElement> elementType(String name) throws ClassNotFoundException {
+		String pkg = name.endsWith("Node") ? "dna.graph.nodes." : "dna.graph.edges.";
+		return (Class<? extends IElement>) Class.forName(pkg + name);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static GraphDataStructure graphDataStructure(String nodeType) throws ClassNotFoundException {
+		return new GraphDataStructure(DArrayList.class, DArrayList.class, DArrayList.class,
+				(Class<? extends Node>) Class.forName("dna.graph.nodes." + nodeType));
+	}
+
+	private IElement nextStored() {
+		if (++this.cursor >= this.size)
+			this.cursor = 0;
+		return this.elements[this.cursor];
+	}
+
+	private IElement nextMissing() {
+		if (++this.missing >= this.elements.length)
+			this.missing = this.size;
+		return this.elements[this.missing];
+	}
+
+	@Benchmark
+	public boolean addRemove() {
+		IElement e = this.nextMissing();
+		this.list.add(e);
+		return this.list.remove(e);
+	}
+
+	@Benchmark
+	public boolean containsHit() {
+		return this.list.contains(this.nextStored());
+	}
+
+	@Benchmark
+	public boolean containsMiss() {
+		return this.list.contains(this.nextMissing());
+	}
+
+	@Benchmark
+	public IElement get() {
+		IElement e = this.nextStored();
+		if (e instanceof Node)
+			return ((INodeListDatastructureReadable) this.list).get(((Node) e).getIndex());
+		return ((IEdgeListDatastructureReadable) this.list).get((Edge) e);
+	}
+
+	@Benchmark
+	public IElement getRandom() {
+		return ((IReadable) this.list).getRandom();
+	}
+
+	/**
+	 * One iteration over all elements, the score has to be multiplied with
+	 * the size to get the throughput per element
+	 */
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		for (Object e : this.list) {
+			bh.consume(e);
+		}
+	}
+}
@@ -0,0 +1,478 @@
+package dna.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * Set of node indices stored as a compressed bitmap, in the style of Roaring
+ * bitmaps. It holds the neighbors of a {@link dna.graph.nodes.DirectedNode}
+ * if {@link GraphDataStructure#setBitmapNeighbors(boolean)} is enabled: only
+ * their indices are stored here, the nodes themselves are found through the
+ * edges of that node.
+ *
+ * Indices are split into their upper and lower 16 bits. All indices sharing
+ * the upper bits are kept in one container, and containers are sorted by
+ * these upper bits. A container stores the lower bits either as a sorted
+ * array of chars or, once it holds more than arrayLimit indices, as a bitmap
+ * of 2^16 bits, and is converted back to an array once it shrinks to half
+ * that size. So an index takes 2 bytes, and a dense range of up to 2^16
+ * indices at most 8KB.
+ *
+ * Besides membership tests, sets stored like this can be combined cheaply:
+ * {@link #and(BitmapIndexSet)}, {@link #or(BitmapIndexSet)} and
+ * {@link #andCardinality(BitmapIndexSet)} process the two sets container by
+ * container. Two bitmap containers are combined word by word, a bitmap and
+ * an array container by probing the bitmap for each element of the array,
+ * and two array containers by merging them.
+ */
+public class BitmapIndexSet {
+	public static int arrayLimit = 4096;
+
+	private int[] highs;
+	private Container[] containers;
+	private int containerCount;
+	private int count;
+
+	/**
+	 * All indices sharing the same upper 16 bits
+	 */
+	private static class Container {
+		private char[] keys;
+		private long[] bits;
+		private int cardinality;
+
+		public Container(int capacity) {
+			this.keys = new char[Math.max(capacity, 4)];
+		}
+
+		private Container(long[] bits, int cardinality) {
+			this.bits = bits;
+			this.cardinality = cardinality;
+		}
+
+		public boolean contains(int low) {
+			if (this.bits == null)
+				return Arrays.binarySearch(this.keys, 0, this.cardinality, (char) low) >= 0;
+			return (this.bits[low >>> 6] & (1L << low)) != 0;
+		}
+
+		public boolean add(int low) {
+			if (this.bits != null) {
+				long bit = 1L << low;
+				if ((this.bits[low >>> 6] & bit) != 0)
+					return false;
+				this.bits[low >>> 6] |= bit;
+				this.cardinality++;
+				return true;
+			}
+			int pos = Arrays.binarySearch(this.keys, 0, this.cardinality, (char) low);
+			if (pos >= 0)
+				return false;
+			pos = -pos - 1;
+			if (this.cardinality == this.keys.length)
+				this.keys = Arrays.copyOf(this.keys, this.keys.length * 2);
+			System.arraycopy(this.keys, pos, this.keys, pos + 1, this.cardinality - pos);
+			this.keys[pos] = (char) low;
+			this.cardinality++;
+			if (this.cardinality > arrayLimit)
+				this.toBitmap();
+			return true;
+		}
+
+		/**
+		 * Append an index that is higher than all stored ones to an array
+		 * container, used to build the results of bulk operations
+		 */
+		public void append(int low) {
+			if (this.cardinality == this.keys.length)
+				this.keys = Arrays.copyOf(this.keys, this.keys.length * 2);
+			this.keys[this.cardinality++] = (char) low;
+		}
+
+		public boolean remove(int low) {
+			if (this.bits != null) {
+				long bit = 1L << low;
+				if ((this.bits[low >>> 6] & bit) == 0)
+					return false;
+				this.bits[low >>> 6] &= ~bit;
+				this.cardinality--;
+				if (this.cardinality <= arrayLimit / 2)
+					this.toArray();
+				return true;
+			}
+			int pos = Arrays.binarySearch(this.keys, 0, this.cardinality, (char) low);
+			if (pos < 0)
+				return false;
+			System.arraycopy(this.keys, pos + 1, this.keys, pos, this.cardinality - pos - 1);
+			this.cardinality--;
+			return true;
+		}
+
+		/**
+		 * Use the representation that fits the cardinality of a newly built
+		 * container
+		 */
+		public Container optimize() {
+			if (this.bits == null && this.cardinality > arrayLimit)
+				this.toBitmap();
+			else if (this.bits != null && this.cardinality <= arrayLimit)
+				this.toArray();
+			return this;
+		}
+
+		private void toBitmap() {
+			this.bits = new long[1 << 10];
+			for (int i = 0; i < this.cardinality; i++) {
+				this.bits[this.keys[i] >>> 6] |= 1L << this.keys[i];
+			}
+			this.keys = null;
+		}
+
+		private void toArray() {
+			this.keys = new char[Math.max(this.cardinality, 4)];
+			int k = 0;
+			for (int i = 0; i < this.bits.length; i++) {
+				long word = this.bits[i];
+				while (word != 0) {
+					this.keys[k++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			this.bits = null;
+		}
+
+		/**
+		 * Write the stored indices with the given upper bits in ascending
+		 * order into dest, starting at offset
+		 */
+		public void toIndices(int high, int[] dest, int offset) {
+			int upper = high << 16;
+			if (this.bits == null) {
+				for (int i = 0; i < this.cardinality; i++) {
+					dest[offset++] = upper | this.keys[i];
+				}
+				return;
+			}
+			for (int i = 0; i < this.bits.length; i++) {
+				long word = this.bits[i];
+				while (word != 0) {
+					dest[offset++] = upper | ((i << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+
+		public int max() {
+			if (this.bits == null)
+				return this.keys[this.cardinality - 1];
+			int i = this.bits.length - 1;
+			while (this.bits[i] == 0) {
+				i--;
+			}
+			return (i << 6) + 63 - Long.numberOfLeadingZeros(this.bits[i]);
+		}
+
+		public static Container and(Container a, Container b) {
+			if (a.bits != null && b.bits != null) {
+				long[] bits = new long[a.bits.length];
+				int cardinality = 0;
+				for (int i = 0; i < bits.length; i++) {
+					bits[i] = a.bits[i] & b.bits[i];
+					cardinality += Long.bitCount(bits[i]);
+				}
+				return new Container(bits, cardinality).optimize();
+			}
+			if (a.bits != null || b.bits != null) {
+				Container array = a.bits == null ? a : b;
+				Container bitmap = array == a ? b : a;
+				Container res = new Container(array.cardinality);
+				for (int i = 0; i < array.cardinality; i++) {
+					if (bitmap.contains(array.keys[i]))
+						res.append(array.keys[i]);
+				}
+				return res;
+			}
+			Container res = new Container(Math.min(a.cardinality, b.cardinality));
+			int i = 0;
+			int j = 0;
+			while (i < a.cardinality && j < b.cardinality) {
+				if (a.keys[i] < b.keys[j]) {
+					i++;
+				} else if (a.keys[i] > b.keys[j]) {
+					j++;
+				} else {
+					res.append(a.keys[i]);
+					i++;
+					j++;
+				}
+			}
+			return res;
+		}
+
+		public static Container or(Container a, Container b) {
+			if (a.bits != null || b.bits != null) {
+				Container bitmap = a.bits != null ? a : b;
+				Container other = bitmap == a ? b : a;
+				long[] bits = bitmap.bits.clone();
+				int cardinality = bitmap.cardinality;
+				if (other.bits != null) {
+					cardinality = 0;
+					for (int i = 0; i < bits.length; i++) {
+						bits[i] |= other.bits[i];
+						cardinality += Long.bitCount(bits[i]);
+					}
+				} else {
+					for (int i = 0; i < other.cardinality; i++) {
+						long bit = 1L << other.keys[i];
+						if ((bits[other.keys[i] >>> 6] & bit) == 0) {
+							bits[other.keys[i] >>> 6] |= bit;
+							cardinality++;
+						}
+					}
+				}
+				return new Container(bits, cardinality);
+			}
+			Container res = new Container(a.cardinality + b.cardinality);
+			int i = 0;
+			int j = 0;
+			while (i < a.cardinality || j < b.cardinality) {
+				int lowA = i < a.cardinality ? a.keys[i] : Integer.MAX_VALUE;
+				int lowB = j < b.cardinality ? b.keys[j] : Integer.MAX_VALUE;
+				if (lowA <= lowB) {
+					res.append(lowA);
+					i++;
+					if (lowA == lowB)
+						j++;
+				} else {
+					res.append(lowB);
+					j++;
+				}
+			}
+			return res.optimize();
+		}
+
+		public static int andCardinality(Container a, Container b) {
+			int res = 0;
+			if (a.bits != null && b.bits != null) {
+				for (int i = 0; i < a.bits.length; i++) {
+					res += Long.bitCount(a.bits[i] & b.bits[i]);
+				}
+				return res;
+			}
+			if (a.bits != null || b.bits != null) {
+				Container array = a.bits == null ? a : b;
+				Container bitmap = array == a ? b : a;
+				for (int i = 0; i < array.cardinality; i++) {
+					if (bitmap.contains(array.keys[i]))
+						res++;
+				}
+				return res;
+			}
+			int i = 0;
+			int j = 0;
+			while (i < a.cardinality && j < b.cardinality) {
+				if (a.keys[i] < b.keys[j]) {
+					i++;
+				} else if (a.keys[i] > b.keys[j]) {
+					j++;
+				} else {
+					res++;
+					i++;
+					j++;
+				}
+			}
+			return res;
+		}
+	}
+
+	public BitmapIndexSet() {
+		this.highs = new int[4];
+		this.containers = new Container[4];
+	}
+
+	private int find(int high) {
+		return Arrays.binarySearch(this.highs, 0, this.containerCount, high);
+	}
+
+	/**
+	 * Add an index to this set
+	 *
+	 * @param index
+	 * @return true, if the index was not stored yet
+	 */
+	public boolean add(int index) {
+		int high = index >>> 16;
+		int pos = this.find(high);
+		if (pos < 0) {
+			pos = -pos - 1;
+			this.insertContainer(pos, high, new Container(4));
+		}
+		if (!this.containers[pos].add(index & 0xFFFF)) {
+			return false;
+		}
+		this.count++;
+		return true;
+	}
+
+	private void insertContainer(int pos, int high, Container c) {
+		if (this.containerCount == this.highs.length) {
+			this.highs = Arrays.copyOf(this.highs, this.highs.length * 2);
+			this.containers = Arrays.copyOf(this.containers, this.containers.length * 2);
+		}
+		System.arraycopy(this.highs, pos, this.highs, pos + 1, this.containerCount - pos);
+		System.arraycopy(this.containers, pos, this.containers, pos + 1, this.containerCount - pos);
+		this.highs[pos] = high;
+		this.containers[pos] = c;
+		this.containerCount++;
+	}
+
+	/**
+	 * Append a container with upper bits higher than all existing ones, used
+	 * to build the results of bulk operations
+	 */
+	private void appendContainer(int high, Container c) {
+		if (c.cardinality == 0) {
+			return;
+		}
+		this.insertContainer(this.containerCount, high, c);
+		this.count += c.cardinality;
+	}
+
+	/**
+	 * Check whether the given index is stored here
+	 *
+	 * @param index
+	 * @return
+	 */
+	public boolean contains(int index) {
+		int pos = this.find(index >>> 16);
+		return pos >= 0 && this.containers[pos].contains(index & 0xFFFF);
+	}
+
+	/**
+	 * Remove an index from this set
+	 *
+	 * @param index
+	 * @return true, if the index was stored here
+	 */
+	public boolean remove(int index) {
+		int pos = this.find(index >>> 16);
+		if (pos < 0) {
+			return false;
+		}
+		Container c = this.containers[pos];
+		if (!c.remove(index & 0xFFFF)) {
+			return false;
+		}
+		this.count--;
+
+		if (c.cardinality == 0) {
+			System.arraycopy(this.highs, pos + 1, this.highs, pos, this.containerCount - pos - 1);
+			System.arraycopy(this.containers, pos + 1, this.containers, pos, this.containerCount - pos - 1);
+			this.containerCount--;
+			this.containers[this.containerCount] = null;
+		}
+		return true;
+	}
+
+	public int size() {
+		return this.count;
+	}
+
+	/**
+	 * Retrieve the highest stored index
+	 *
+	 * @return the index, or -1 if this set is empty
+	 */
+	public int getMax() {
+		if (this.containerCount == 0) {
+			return -1;
+		}
+		return (this.highs[this.containerCount - 1] << 16) | this.containers[this.containerCount - 1].max();
+	}
+
+	/**
+	 * Retrieve all stored indices in ascending order
+	 *
+	 * @return
+	 */
+	public int[] toArray() {
+		int[] res = new int[this.count];
+		int offset = 0;
+		for (int i = 0; i < this.containerCount; i++) {
+			this.containers[i].toIndices(this.highs[i], res, offset);
+			offset += this.containers[i].cardinality;
+		}
+		return res;
+	}
+
+	/**
+	 * Intersect this set with another one
+	 *
+	 * @param other
+	 * @return a new set with all indices that are stored in both sets
+	 */
+	public BitmapIndexSet and(BitmapIndexSet other) {
+		BitmapIndexSet res = new BitmapIndexSet();
+		int i = 0;
+		int j = 0;
+		while (i < this.containerCount && j < other.containerCount) {
+			if (this.highs[i] < other.highs[j]) {
+				i++;
+			} else if (this.highs[i] > other.highs[j]) {
+				j++;
+			} else {
+				res.appendContainer(this.highs[i], Container.and(this.containers[i], other.containers[j]));
+				i++;
+				j++;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Unite this set with another one
+	 *
+	 * @param other
+	 * @return a new set with all indices that are stored in any of both sets
+	 */
+	public BitmapIndexSet or(BitmapIndexSet other) {
+		BitmapIndexSet res = new BitmapIndexSet();
+		int i = 0;
+		int j = 0;
+		while (i < this.containerCount || j < other.containerCount) {
+			int highA = i < this.containerCount ? this.highs[i] : Integer.MAX_VALUE;
+			int highB = j < other.containerCount ? other.highs[j] : Integer.MAX_VALUE;
+			if (highA < highB) {
+				res.appendContainer(highA, Container.or(this.containers[i++], new Container(0)));
+			} else if (highA > highB) {
+				res.appendContainer(highB, Container.or(other.containers[j++], new Container(0)));
+			} else {
+				res.appendContainer(highA, Container.or(this.containers[i++], other.containers[j++]));
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Count the indices stored in both this and another set without building
+	 * their intersection
+	 *
+	 * @param other
+	 * @return
+	 */
+	public int andCardinality(BitmapIndexSet other) {
+		int res = 0;
+		int i = 0;
+		int j = 0;
+		while (i < this.containerCount && j < other.containerCount) {
+			if (this.highs[i] < other.highs[j]) {
+				i++;
+			} else if (this.highs[i] > other.highs[j]) {
+				j++;
+			} else {
+				res += Container.andCardinality(this.containers[i++], other.containers[j++]);
+			}
+		}
+		return res;
+	}
+}
@@ -0,0 +1,203 @@
+package dna.datastructures;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import dna.graph.IElement;
+import dna.graph.edges.Edge;
+
+/**
+ * Data structure to store edges that switches its representation depending on
+ * its size and on how it is used. It starts as a {@link DArrayList}, which is
+ * cheapest for the few edges of most nodes. It migrates to a {@link DHashSet}
+ * as soon as it holds more than growThreshold edges, or as soon as it holds at
+ * least ratioMinSize edges and has been asked more than containsRatio times
+ * as often whether it contains an edge as edges have been added. Once it
+ * holds less than shrinkThreshold edges, it migrates back to a list.
+ *
+ * The thresholds for new instances are taken from the static defaults below,
+ * they can be changed per instance through
+ * {@link #setThresholds(int, int, int, double)}. Keep shrinkThreshold below
+ * both other sizes, so a list does not migrate back and forth on every
+ * change.
+ */
+public class DAdaptive extends DataStructureReadable implements IEdgeListDatastructureReadable {
+	public static int defaultGrowThreshold = 32;
+	public static int defaultShrinkThreshold = 8;
+	public static int defaultRatioMinSize = 12;
+	public static double defaultContainsRatio = 8;
+
+	private int growThreshold = defaultGrowThreshold;
+	private int shrinkThreshold = defaultShrinkThreshold;
+	private int ratioMinSize = defaultRatioMinSize;
+	private double containsRatio = defaultContainsRatio;
+
+	private DataStructureReadable list;
+	private boolean hashed;
+	private int adds;
+	private int containsChecks;
+
+	public DAdaptive(Class<? extends IElement> dT) {
+		this.init(dT, defaultSize);
+	}
+
+	public void init(Class<? extends IElement> dT, int initialSize) {
+		this.dataType = dT;
+		this.hashed = initialSize > this.growThreshold;
+		this.list = this.hashed ? new DHashSet(dT) : new DArrayList(dT);
+		this.list.init(dT, initialSize);
+		this.adds = 0;
+		this.containsChecks = 0;
+	}
+
+	/**
+	 * Change the thresholds for migrating this list
+	 *
+	 * @param growThreshold
+	 *            size above which edges are hashed
+	 * @param shrinkThreshold
+	 *            size below which hashed edges are moved back into a list
+	 * @param ratioMinSize
+	 *            minimal size for migrating to a hash because of many checks
+	 *            for contained edges
+	 * @param containsRatio
+	 *            ratio of contains to add calls above which edges are hashed
+	 */
+	public void setThresholds(int growThreshold, int shrinkThreshold, int ratioMinSize, double containsRatio) {
+		this.growThreshold = growThreshold;
+		this.shrinkThreshold = shrinkThreshold;
+		this.ratioMinSize = ratioMinSize;
+		this.containsRatio = containsRatio;
+		this.migrateIfNeeded();
+	}
+
+	/**
+	 * Check whether the edges are currently stored in a hash
+	 *
+	 * @return
+	 */
+	public boolean isHashed() {
+		return this.hashed;
+	}
+
+	public boolean add(IElement element) {
+		if (element instanceof Edge)
+			return this.add((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	public boolean add(Edge element) {
+		super.canAdd(element);
+		this.adds++;
+		if (!this.list.add(element)) {
+			return false;
+		}
+		this.migrateIfNeeded();
+		return true;
+	}
+
+	@Override
+	public boolean contains(IElement element) {
+		if (element instanceof Edge)
+			return this.contains((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	@Override
+	public boolean contains(Edge element) {
+		this.containsChecks++;
+		boolean res = this.list.contains(element);
+		this.migrateIfHeavilyChecked();
+		return res;
+	}
+
+	@Override
+	public boolean contains(int src, int dst) {
+		this.containsChecks++;
+		boolean res = ((IEdgeListDatastructure) this.list).contains(src, dst);
+		this.migrateIfHeavilyChecked();
+		return res;
+	}
+
+	@Override
+	public boolean remove(IElement element) {
+		if (element instanceof Edge)
+			return this.remove((Edge) element);
+		else
+			throw new RuntimeException("Cannot remove a non-edge from an edge list");
+	}
+
+	@Override
+	public boolean remove(Edge element) {
+		if (!this.list.remove(element)) {
+			return false;
+		}
+		this.migrateIfNeeded();
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return this.list.size();
+	}
+
+	@Override
+	public long getFingerprint() {
+		return this.list.getFingerprint();
+	}
+
+	public Edge get(Edge e) {
+		return ((IEdgeListDatastructureReadable) this.list).get(e);
+	}
+
+	public Edge get(int src, int dst) {
+		return ((IEdgeListDatastructureReadable) this.list).get(src, dst);
+	}
+
+	@Override
+	public IElement getRandom() {
+		return this.list.getRandom();
+	}
+
+	@Override
+	public Collection<IElement> getElements() {
+		return this.list.getElements();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterator<IElement> iterator() {
+		return this.list.iterator();
+	}
+
+	private void migrateIfHeavilyChecked() {
+		if (!this.hashed && this.list.size() >= this.ratioMinSize
+				&& this.containsChecks > this.containsRatio * Math.max(this.adds, 1)) {
+			this.migrate(true);
+		}
+	}
+
+	private void migrateIfNeeded() {
+		if (!this.hashed && this.list.size() > this.growThreshold) {
+			this.migrate(true);
+		} else if (this.hashed && this.list.size() < this.shrinkThreshold) {
+			this.migrate(false);
+		}
+	}
+
+	/**
+	 * Move all edges into a new hash or list. The stored edges are distinct
+	 * already, so they are added without checking for duplicates
+	 */
+	private void migrate(boolean toHash) {
+		DataStructureReadable target = toHash ? new DHashSet(this.dataType) : new DArrayList(this.dataType);
+		target.init(this.dataType, toHash ? 2 * this.list.size() : this.growThreshold + 1);
+		for (IElement e : this.list.getElements()) {
+			target.addNew(e);
+		}
+		this.list = target;
+		this.hashed = toHash;
+		this.adds = 0;
+		this.containsChecks = 0;
+	}
+}
@@ -11,11 +11,17 @@ import dna.util.Rand;
 /**
  * Data structure to store IElements in an array
  * 
+ * Besides the array with a position for each node index, the indices of all
+ * stored nodes are kept in a dense array, so a random node can be picked in
+ * O(1) no matter how sparse the indices are
+ * 
  * @author Nico
  * 
  */
 public class DArray extends DataStructureReadable implements INodeListDatastructureReadable {
 	private IElement[] list;
+	private int[] occupied;
+	private int[] positions;
 	private int count;
 	private int maxNodeIndex;
 
@@ -26,7 +32,11 @@ public class DArray extends DataStructureReadable implements INodeListDatastruct
 	public void init(Class<? extends IElement> dT, int initialSize) {
 		this.dataType = dT;
 		this.list = new IElement[initialSize];
+		this.occupied = new int[initialSize];
+		this.positions = new int[initialSize];
+		this.count = 0;
 		this.maxNodeIndex = -1;
+		this.fingerprint = 0;
 	}
 
 	public boolean add(IElement element) {
@@ -44,18 +54,26 @@ public class DArray extends DataStructureReadable implements INodeListDatastruct
 
 		if (this.list.length == 0) {
 			this.list = new IElement[element.getIndex() + 1];
+			this.positions = new int[element.getIndex() + 1];
 		}
 
 		while (element.getIndex() >= this.list.length) {
 			IElement[] newList = new IElement[this.list.length * 2];
 			System.arraycopy(this.list, 0, newList, 0, this.list.length);
 			this.list = newList;
+			this.positions = Arrays.copyOf(this.positions, newList.length);
 		}
 		if (this.list[element.getIndex()] != null) {
 			return false;
 		}
 		this.list[element.getIndex()] = element;
+		if (this.count == this.occupied.length) {
+			this.occupied = Arrays.copyOf(this.occupied, this.occupied.length * 2 + 1);
+		}
+		this.occupied[this.count] = element.getIndex();
+		this.positions[element.getIndex()] = this.count;
 		this.count++;
+		this.fingerprint += getFingerprint(element);
 		if (element.getIndex() > this.maxNodeIndex) {
 			this.maxNodeIndex = element.getIndex();
 		}
@@ -92,8 +110,13 @@ public class DArray extends DataStructureReadable implements INodeListDatastruct
 			return false;
 		}
 		this.list[element.getIndex()] = null;
+		this.fingerprint -= getFingerprint(element);
 
 		this.count--;
+		int pos = this.positions[element.getIndex()];
+		int moved = this.occupied[this.count];
+		this.occupied[pos] = moved;
+		this.positions[moved] = pos;
 
 		if (element.getIndex() == this.maxNodeIndex) {
 			for (int i = this.maxNodeIndex; i >= 0; i--) {
@@ -118,6 +141,7 @@ public class DArray extends DataStructureReadable implements INodeListDatastruct
 		IElement[] nodesNew = new IElement[this.maxNodeIndex + 1];
 		System.arraycopy(this.list, 0, nodesNew, 0, this.maxNodeIndex + 1);
 		this.list = nodesNew;
+		this.positions = Arrays.copyOf(this.positions, this.maxNodeIndex + 1);
 
 		return true;
 	}
@@ -129,11 +153,10 @@ public class DArray extends DataStructureReadable implements INodeListDatastruct
 
 	@Override
 	public IElement getRandom() {
-		int index = Rand.rand.nextInt(this.list.length);
-		while (this.list[index] == null) {
-			index = Rand.rand.nextInt(this.list.length);
+		if (this.count == 0) {
+			return null;
 		}
-		return this.list[index];
+		return this.list[this.occupied[Rand.rand.nextInt(this.count)]];
 	}
 
 	@Override
@@ -28,6 +28,7 @@ public class DArrayList extends DataStructureReadable implements INodeListDatast
 		this.dataType = dT;
 		this.list = new ArrayList<>(initialSize);
 		this.maxNodeIndex = -1;
+		this.fingerprint = 0;
 	}
 
 	public boolean add(IElement element) {
@@ -44,12 +45,34 @@ public class DArrayList extends DataStructureReadable implements INodeListDatast
 			return false;
 		}
 		this.maxNodeIndex = Math.max(this.maxNodeIndex, element.getIndex());
+		this.fingerprint += getFingerprint(element);
 		return true;
 	}
 
 	public boolean add(Edge element) {
 		super.canAdd(element);
-		return !this.list.contains(element) && this.list.add(element);
+		if (this.list.contains(element) || !this.list.add(element)) {
+			return false;
+		}
+		this.fingerprint += getFingerprint(element);
+		return true;
+	}
+
+	/**
+	 * The caller guarantees that the element is not stored yet, so skip the
+	 * linear search for it
+	 */
+	@Override
+	public boolean addNew(IElement element) {
+		super.canAdd(element);
+		if (!this.list.add(element)) {
+			return false;
+		}
+		if (element instanceof Node) {
+			this.maxNodeIndex = Math.max(this.maxNodeIndex, ((Node) element).getIndex());
+		}
+		this.fingerprint += getFingerprint(element);
+		return true;
 	}
 
 	@Override
@@ -71,6 +94,11 @@ public class DArrayList extends DataStructureReadable implements INodeListDatast
 		return list.contains(element);
 	}
 
+	@Override
+	public boolean contains(int src, int dst) {
+		return this.get(src, dst) != null;
+	}
+
 	@Override
 	public boolean remove(IElement element) {
 		if (element instanceof Node)
@@ -86,6 +114,7 @@ public class DArrayList extends DataStructureReadable implements INodeListDatast
 		if (!this.list.remove(element)) {
 			return false;
 		}
+		this.fingerprint -= getFingerprint(element);
 		if (this.maxNodeIndex == element.getIndex()) {
 			int max = -1;
 			for (IElement n : this.getElements()) {
@@ -97,7 +126,11 @@ public class DArrayList extends DataStructureReadable implements INodeListDatast
 	}
 
 	public boolean remove(Edge e) {
-		return this.list.remove(e);
+		if (!this.list.remove(e)) {
+			return false;
+		}
+		this.fingerprint -= getFingerprint(e);
+		return true;
 	}
 
 	@Override
@@ -152,6 +185,19 @@ public class DArrayList extends DataStructureReadable implements INodeListDatast
 		return null;
 	}
 
+	/**
+	 * Search the edge between two nodes by their indices, without creating a
+	 * dummy edge to compare with
+	 */
+	public Edge get(int src, int dst) {
+		long key = Edge.getKey(this.dataType, src, dst);
+		for (IElement e : this.list) {
+			if (Edge.getKey((Edge) e) == key)
+				return (Edge) e;
+		}
+		return null;
+	}
+
 	@Override
 	public int getMaxNodeIndex() {
 		return this.maxNodeIndex;
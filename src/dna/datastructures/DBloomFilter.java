@@ -1,106 +1,246 @@
 package dna.datastructures;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 
-import com.google.common.hash.BloomFilter;
-import com.google.common.hash.Funnel;
-import com.google.common.hash.PrimitiveSink;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 
 import dna.graph.IElement;
 import dna.graph.edges.Edge;
 import dna.graph.nodes.Node;
 
+/**
+ * Probabilistic data structure that can only tell whether an element is
+ * (probably) stored or not. Checks for contained elements might return false
+ * positives, but never false negatives, with a much smaller memory footprint
+ * than any other data structure. Stored elements can neither be retrieved nor
+ * iterated, and they can not be removed (see {@link DCountingBloomFilter} for
+ * that).
+ *
+ * Nodes are hashed by their index, edges by the indices of the nodes they
+ * connect. An add() for an element that the filter (probably) contains already
+ * returns false, so this is usable as a memory-cheap guard against duplicate
+ * elements.
+ *
+ * Once the number of stored elements exceeds the size this filter has been
+ * initialized with, a new filter with twice the size and half the false
+ * positive probability is appended, so the overall false positive probability
+ * stays below the configured one.
+ */
 public class DBloomFilter extends DataStructure implements INodeListDatastructure, IEdgeListDatastructure {
-	private BloomFilter<IElement> list;
+	/**
+	 * False positive probability for all bloom filters that are created
+	 * without passing it explicitly, eg. through {@link GraphDataStructure}
+	 */
+	public static double defaultFalsePositiveProbability = 0.03;
+
+	private static final HashFunction hashFunction = Hashing.murmur3_128();
+
+	private ArrayList<Filter> list;
+	private double falsePositiveProbability;
+	private int capacity;
+	private int capacityOfLast;
+	private int count;
 	private int maxNodeIndex;
 
 	public DBloomFilter(Class<? extends IElement> dT) {
+		this(dT, defaultFalsePositiveProbability);
+	}
+
+	public DBloomFilter(Class<? extends IElement> dT, double falsePositiveProbability) {
+		this.falsePositiveProbability = falsePositiveProbability;
 		this.init(dT, defaultSize);
 	}
 
 	public void init(Class<? extends IElement> dT, int initialSize) {
 		this.dataType = dT;
-		this.list = BloomFilter.create(new IElementFunnel(), initialSize);
+		this.list = new ArrayList<>();
+		this.capacityOfLast = Math.max(initialSize, 1);
+		this.capacity = this.capacityOfLast;
+		this.list.add(new Filter(this.capacityOfLast, this.falsePositiveProbability / 2));
+		this.count = 0;
 		this.maxNodeIndex = -1;
 	}
 
+	public double getFalsePositiveProbability() {
+		return this.falsePositiveProbability;
+	}
+
 	@Override
-	public boolean contains(IElement element) {
-		return this.list.mightContain(element);
+	public boolean add(IElement element) {
+		if (element instanceof Node)
+			return this.add((Node) element);
+		if (element instanceof Edge)
+			return this.add((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
 	}
 
 	@Override
-	public boolean remove(IElement element) {
-		// TODO Auto-generated method stub
-		return false;
+	public boolean add(Node element) {
+		super.canAdd(element);
+		if (!this.put(element)) {
+			return false;
+		}
+		this.maxNodeIndex = Math.max(this.maxNodeIndex, element.getIndex());
+		return true;
 	}
 
 	@Override
-	public int size() {
-		// TODO Auto-generated method stub
-		return 0;
+	public boolean add(Edge element) {
+		super.canAdd(element);
+		return this.put(element);
+	}
+
+	private boolean put(IElement element) {
+		long hash = hash(element);
+		if (this.contains(hash)) {
+			return false;
+		}
+		if (this.count >= this.capacity) {
+			this.capacityOfLast *= 2;
+			this.capacity += this.capacityOfLast;
+			this.list.add(new Filter(this.capacityOfLast, this.falsePositiveProbability
+					/ (1 << (this.list.size() + 1))));
+		}
+		this.list.get(this.list.size() - 1).put(hash);
+		this.count++;
+		return true;
 	}
 
 	@Override
-	public Iterator iterator() {
-		// TODO Auto-generated method stub
-		return null;
+	public boolean contains(IElement element) {
+		return this.contains(hash(element));
 	}
 
 	@Override
-	public boolean add(Edge element) {
-		// TODO Auto-generated method stub
+	public boolean contains(int src, int dst) {
+		return this.contains(hash(Edge.getKey(this.dataType, src, dst)));
+	}
+
+	private boolean contains(long hash) {
+		for (Filter filter : this.list) {
+			if (filter.mightContain(hash)) {
+				return true;
+			}
+		}
 		return false;
 	}
 
 	@Override
 	public boolean contains(Edge element) {
-		// TODO Auto-generated method stub
-		return false;
+		return this.contains((IElement) element);
 	}
 
 	@Override
-	public boolean remove(Edge element) {
-		// TODO Auto-generated method stub
-		return false;
+	public boolean contains(Node element) {
+		return this.contains((IElement) element);
 	}
 
+	/**
+	 * Elements can't be removed from a bloom filter
+	 *
+	 * @return false
+	 */
 	@Override
-	public boolean add(Node element) {
-		// TODO Auto-generated method stub
+	public boolean remove(IElement element) {
 		return false;
 	}
 
 	@Override
-	public boolean contains(Node element) {
-		// TODO Auto-generated method stub
+	public boolean remove(Edge element) {
 		return false;
 	}
 
 	@Override
 	public boolean remove(Node element) {
-		// TODO Auto-generated method stub
 		return false;
 	}
 
+	/**
+	 * Retrieve the number of elements that have been added successfully. As
+	 * additions of false positives are rejected, this might be slightly lower
+	 * than the number of distinct elements passed to add()
+	 */
+	@Override
+	public int size() {
+		return this.count;
+	}
+
 	@Override
 	public int getMaxNodeIndex() {
-		// TODO Auto-generated method stub
-		return 0;
+		return this.maxNodeIndex;
 	}
 
+	/**
+	 * Elements of a bloom filter can't be iterated
+	 */
 	@Override
-	public boolean add(IElement element) {
-		// TODO Auto-generated method stub
-		return false;
+	public Iterator<IElement> iterator() {
+		throw new UnsupportedOperationException("Elements of a bloom filter can't be iterated");
+	}
+
+	/**
+	 * Hash the primitive key of an element: the index for nodes, the packed
+	 * indices of both connected nodes for edges
+	 */
+	static long hash(IElement element) {
+		if (element instanceof Node)
+			return hash(((Node) element).getIndex());
+		if (element instanceof Edge)
+			return hash(Edge.getKey((Edge) element));
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	static long hash(long key) {
+		return hashFunction.hashLong(key).asLong();
 	}
 
-	private class IElementFunnel implements Funnel<IElement> {
+	/**
+	 * Single bloom filter with a fixed number of bits. The positions of an
+	 * element are derived from its 64 bit hash by double hashing, as proposed
+	 * by Kirsch and Mitzenmacher: the i-th position is hash1 + i * hash2
+	 */
+	private static class Filter {
+		private long[] bits;
+		private int numBits;
+		private int numHashFunctions;
+
+		public Filter(int expected, double falsePositiveProbability) {
+			double ln2 = Math.log(2);
+			long m = (long) Math.ceil(-expected * Math.log(falsePositiveProbability) / (ln2 * ln2));
+			this.numBits = (int) Math.min(Math.max(m, 64), (long) Integer.MAX_VALUE);
+			this.numHashFunctions = Math.max(1, (int) Math.round((double) this.numBits / expected * ln2));
+			this.bits = new long[(this.numBits + 63) / 64];
+		}
 
-		@Override
-		public void funnel(IElement element, PrimitiveSink into) {
-			into.putString(element.getStringRepresentation());
+		public void put(long hash) {
+			int hash1 = (int) hash;
+			int hash2 = (int) (hash >>> 32);
+			for (int i = 1; i <= this.numHashFunctions; i++) {
+				int pos = this.position(hash1, hash2, i);
+				this.bits[pos >>> 6] |= 1L << pos;
+			}
 		}
 
+		public boolean mightContain(long hash) {
+			int hash1 = (int) hash;
+			int hash2 = (int) (hash >>> 32);
+			for (int i = 1; i <= this.numHashFunctions; i++) {
+				int pos = this.position(hash1, hash2, i);
+				if ((this.bits[pos >>> 6] & (1L << pos)) == 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private int position(int hash1, int hash2, int i) {
+			int combined = hash1 + i * hash2;
+			if (combined < 0) {
+				combined = ~combined;
+			}
+			return combined % this.numBits;
+		}
 	}
 }
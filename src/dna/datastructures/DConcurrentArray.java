@@ -0,0 +1,285 @@
+package dna.datastructures;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import dna.graph.IElement;
+import dna.graph.nodes.Node;
+
+/**
+ * Data structure to store nodes at the position of their index, like
+ * {@link DArray}, which can be mutated by several threads at once without
+ * locking.
+ *
+ * Instead of a single array that needs to be copied on growth, positions are
+ * split into segments of growing size: segment s holds 2^s positions, starting
+ * at position 2^s - 1. Segments are allocated on demand and installed into a
+ * fixed directory with compare-and-set, so they never move once they exist.
+ * Nodes are written into their slot with compare-and-set as well, so only one
+ * of several concurrent additions of the same node succeeds.
+ */
+public class DConcurrentArray extends DataStructureReadable implements INodeListDatastructureReadable, IConcurrent {
+	private static final int segments = 31;
+
+	private AtomicReferenceArray<AtomicReferenceArray<IElement>> directory;
+	private AtomicInteger count;
+	private AtomicLong fingerprints;
+	private AtomicInteger maxNodeIndex;
+
+	public DConcurrentArray(Class<? extends IElement> dT) {
+		this.init(dT, defaultSize);
+	}
+
+	/**
+	 * Segments are allocated on demand, so the initial size is not used here
+	 */
+	public void init(Class<? extends IElement> dT, int initialSize) {
+		this.dataType = dT;
+		this.directory = new AtomicReferenceArray<>(segments);
+		this.count = new AtomicInteger();
+		this.fingerprints = new AtomicLong();
+		this.maxNodeIndex = new AtomicInteger(-1);
+	}
+
+	public boolean add(IElement element) {
+		if (element instanceof Node)
+			return this.add((Node) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	public boolean add(Node element) {
+		super.canAdd(element);
+		int index = element.getIndex();
+		AtomicReferenceArray<IElement> segment = this.segment(index, true);
+		if (!segment.compareAndSet(offset(index), null, element)) {
+			return false;
+		}
+		this.count.incrementAndGet();
+		this.fingerprints.addAndGet(getFingerprint(element));
+		this.raiseMaxNodeIndex(index);
+		return true;
+	}
+
+	@Override
+	public boolean contains(IElement element) {
+		if (element instanceof Node)
+			return this.contains((Node) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	public boolean contains(Node element) {
+		return this.get(element.getIndex()) != null;
+	}
+
+	public boolean remove(IElement element) {
+		if (element instanceof Node)
+			return this.remove((Node) element);
+		else
+			throw new RuntimeException("Cannot remove a non-node from a node list");
+	}
+
+	/**
+	 * Removing the node with the highest index searches the next lower one.
+	 * Additions that happen during this search raise the highest index again
+	 * afterwards, so it is exact as soon as all concurrent changes completed
+	 */
+	public boolean remove(Node element) {
+		int index = element.getIndex();
+		AtomicReferenceArray<IElement> segment = this.segment(index, false);
+		if (segment == null) {
+			return false;
+		}
+		IElement stored = segment.get(offset(index));
+		if (stored == null || !segment.compareAndSet(offset(index), stored, null)) {
+			return false;
+		}
+		this.count.decrementAndGet();
+		this.fingerprints.addAndGet(-getFingerprint(element));
+
+		if (this.maxNodeIndex.get() == index) {
+			int lower = this.findLower(index - 1);
+			if (this.maxNodeIndex.compareAndSet(index, lower)) {
+				int added = this.findLower(index);
+				if (added > lower) {
+					this.raiseMaxNodeIndex(added);
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return this.count.get();
+	}
+
+	@Override
+	public long getFingerprint() {
+		return this.fingerprints.get();
+	}
+
+	@Override
+	public int getMaxNodeIndex() {
+		return this.maxNodeIndex.get();
+	}
+
+	@Override
+	public Node get(int index) {
+		if (index < 0) {
+			return null;
+		}
+		AtomicReferenceArray<IElement> segment = this.segment(index, false);
+		if (segment == null) {
+			return null;
+		}
+		return (Node) segment.get(offset(index));
+	}
+
+	/**
+	 * Random positions up to the highest node index are probed a few times,
+	 * as each of them holds a node for dense indices. For sparse indices, a
+	 * random node is searched by counting instead
+	 */
+	@Override
+	public IElement getRandom() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int tries = 0; tries < 16; tries++) {
+			int max = this.maxNodeIndex.get();
+			if (max < 0) {
+				return null;
+			}
+			Node n = this.get(random.nextInt(max + 1));
+			if (n != null) {
+				return n;
+			}
+		}
+
+		int size = this.count.get();
+		if (size == 0) {
+			return null;
+		}
+		int skip = random.nextInt(size);
+		IElement last = null;
+		for (IElement e : this.getElements()) {
+			last = e;
+			if (skip-- == 0) {
+				break;
+			}
+		}
+		return last;
+	}
+
+	@Override
+	public Collection<IElement> getElements() {
+		return new AbstractCollection<IElement>() {
+			@Override
+			public Iterator<IElement> iterator() {
+				return DConcurrentArray.this.iterator();
+			}
+
+			@Override
+			public int size() {
+				return DConcurrentArray.this.count.get();
+			}
+		};
+	}
+
+	@Override
+	public Iterator<IElement> iterator() {
+		return new Iterator<IElement>() {
+			private int index = -1;
+			private IElement next = this.advance();
+
+			private IElement advance() {
+				int max = DConcurrentArray.this.maxNodeIndex.get();
+				while (this.index < max) {
+					this.index++;
+					IElement e = DConcurrentArray.this.get(this.index);
+					if (e != null) {
+						return e;
+					}
+				}
+				return null;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return this.next != null;
+			}
+
+			@Override
+			public IElement next() {
+				if (this.next == null)
+					throw new NoSuchElementException();
+				IElement res = this.next;
+				this.next = this.advance();
+				return res;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	private void raiseMaxNodeIndex(int index) {
+		int current = this.maxNodeIndex.get();
+		while (current < index && !this.maxNodeIndex.compareAndSet(current, index)) {
+			current = this.maxNodeIndex.get();
+		}
+	}
+
+	/**
+	 * Search the highest index that holds a node, starting at index from
+	 *
+	 * @return the index found, or -1 if there is none
+	 */
+	private int findLower(int from) {
+		for (int i = from; i >= 0; i--) {
+			if (this.get(i) != null) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Retrieve the segment holding the given index
+	 *
+	 * @param index
+	 * @param create
+	 *            whether the segment should be allocated if it does not exist
+	 *            yet
+	 * @return the segment, or null if it does not exist and create is false
+	 */
+	private AtomicReferenceArray<IElement> segment(int index, boolean create) {
+		int s = segmentOf(index);
+		if (s >= segments) {
+			// Integer.MAX_VALUE would need a segment of 2^31 positions
+			if (create)
+				throw new RuntimeException("Can't store a node with index " + index + " here");
+			return null;
+		}
+		AtomicReferenceArray<IElement> segment = this.directory.get(s);
+		if (segment == null && create) {
+			this.directory.compareAndSet(s, null, new AtomicReferenceArray<IElement>(1 << s));
+			segment = this.directory.get(s);
+		}
+		return segment;
+	}
+
+	private static int segmentOf(int index) {
+		return 63 - Long.numberOfLeadingZeros(index + 1L);
+	}
+
+	private static int offset(int index) {
+		return index + 1 - (1 << segmentOf(index));
+	}
+}
@@ -0,0 +1,218 @@
+package dna.datastructures;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dna.graph.IElement;
+import dna.graph.edges.Edge;
+
+/**
+ * Data structure to store edges in a hash set that can be mutated by several
+ * threads at once. Edges are spread over a fixed number of stripes by the
+ * indices of the nodes they connect, each stripe is a {@link DLongHashMap}
+ * guarded by its own lock. Threads working on edges in different stripes never
+ * wait for each other.
+ *
+ * Iterating this set copies the edges of one stripe at a time, so the
+ * iteration is weakly consistent as described in {@link IConcurrent}.
+ */
+public class DConcurrentHashSet extends DataStructureReadable implements IEdgeListDatastructureReadable,
+		IConcurrent {
+	private static final int stripeBits = 5;
+	private static final int stripeCount = 1 << stripeBits;
+
+	private DLongHashMap[] stripes;
+	private AtomicInteger count;
+	private AtomicLong fingerprints;
+
+	public DConcurrentHashSet(Class<? extends IElement> dT) {
+		this.init(dT, defaultSize);
+	}
+
+	public void init(Class<? extends IElement> dT, int initialSize) {
+		this.dataType = dT;
+		this.stripes = new DLongHashMap[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			this.stripes[i] = new DLongHashMap(dT);
+			this.stripes[i].init(dT, Math.max(initialSize / stripeCount, 1));
+		}
+		this.count = new AtomicInteger();
+		this.fingerprints = new AtomicLong();
+	}
+
+	public boolean add(IElement element) {
+		if (element instanceof Edge)
+			return this.add((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	public boolean add(Edge element) {
+		super.canAdd(element);
+		DLongHashMap stripe = this.stripe(element);
+		synchronized (stripe) {
+			if (!stripe.add(element)) {
+				return false;
+			}
+		}
+		this.count.incrementAndGet();
+		this.fingerprints.addAndGet(getFingerprint(element));
+		return true;
+	}
+
+	@Override
+	public boolean contains(IElement element) {
+		if (element instanceof Edge)
+			return this.contains((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	@Override
+	public boolean contains(Edge element) {
+		DLongHashMap stripe = this.stripe(element);
+		synchronized (stripe) {
+			return stripe.contains(element);
+		}
+	}
+
+	@Override
+	public boolean contains(int src, int dst) {
+		DLongHashMap stripe = this.stripe(Edge.getKey(this.dataType, src, dst));
+		synchronized (stripe) {
+			return stripe.contains(src, dst);
+		}
+	}
+
+	@Override
+	public boolean remove(IElement element) {
+		if (element instanceof Edge)
+			return this.remove((Edge) element);
+		else
+			throw new RuntimeException("Cannot remove a non-edge from an edge list");
+	}
+
+	@Override
+	public boolean remove(Edge element) {
+		DLongHashMap stripe = this.stripe(element);
+		synchronized (stripe) {
+			if (!stripe.remove(element)) {
+				return false;
+			}
+		}
+		this.count.decrementAndGet();
+		this.fingerprints.addAndGet(-getFingerprint(element));
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return this.count.get();
+	}
+
+	@Override
+	public long getFingerprint() {
+		return this.fingerprints.get();
+	}
+
+	public Edge get(Edge e) {
+		DLongHashMap stripe = this.stripe(e);
+		synchronized (stripe) {
+			return stripe.get(e);
+		}
+	}
+
+	public Edge get(int src, int dst) {
+		DLongHashMap stripe = this.stripe(Edge.getKey(this.dataType, src, dst));
+		synchronized (stripe) {
+			return stripe.get(src, dst);
+		}
+	}
+
+	/**
+	 * Pick a random position among all edges and walk the stripes until the
+	 * stripe holding this position is found. If other threads removed edges in
+	 * the meantime, the walk starts over
+	 */
+	@Override
+	public IElement getRandom() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		while (true) {
+			int size = this.count.get();
+			if (size <= 0) {
+				return null;
+			}
+			int pos = random.nextInt(size);
+			for (DLongHashMap stripe : this.stripes) {
+				synchronized (stripe) {
+					if (pos < stripe.size()) {
+						return stripe.getRandom();
+					}
+					pos -= stripe.size();
+				}
+			}
+		}
+	}
+
+	@Override
+	public Collection<IElement> getElements() {
+		ArrayList<IElement> res = new ArrayList<>(this.count.get());
+		for (DLongHashMap stripe : this.stripes) {
+			synchronized (stripe) {
+				res.addAll(stripe.getElements());
+			}
+		}
+		return res;
+	}
+
+	@Override
+	public Iterator<IElement> iterator() {
+		return new Iterator<IElement>() {
+			private int stripe = 0;
+			private Iterator<IElement> current = this.copy(0);
+
+			private Iterator<IElement> copy(int i) {
+				DLongHashMap s = DConcurrentHashSet.this.stripes[i];
+				synchronized (s) {
+					return new ArrayList<>(s.getElements()).iterator();
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				while (!this.current.hasNext() && this.stripe < stripeCount - 1) {
+					this.stripe++;
+					this.current = this.copy(this.stripe);
+				}
+				return this.current.hasNext();
+			}
+
+			@Override
+			public IElement next() {
+				if (!this.hasNext())
+					throw new NoSuchElementException();
+				return this.current.next();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Select the stripe by the upper bits of the hashed key, as the lower ones
+	 * select the slot within the stripe
+	 */
+	private DLongHashMap stripe(Edge e) {
+		return this.stripe(Edge.getKey(e));
+	}
+
+	private DLongHashMap stripe(long key) {
+		return this.stripes[(int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - stripeBits))];
+	}
+}
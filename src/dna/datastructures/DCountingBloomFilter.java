@@ -0,0 +1,224 @@
+package dna.datastructures;
+
+import java.util.Iterator;
+
+import dna.graph.IElement;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.Node;
+
+/**
+ * Bloom filter that stores a small counter instead of a single bit per
+ * position, so elements can be removed again. Counters have 4 bits each and
+ * stick at their maximum once they overflowed.
+ *
+ * As with {@link DBloomFilter}, contains() might return false positives. Only
+ * remove elements that have been added before: removing a false positive
+ * decrements counters of other elements and might lead to false negatives.
+ *
+ * In contrast to {@link DBloomFilter}, this filter does not grow: it is sized
+ * for the number of elements given on initialization (see
+ * {@link #reinitializeWithSize(int)}). The highest node index is only tracked
+ * on additions, so after removals it is an upper bound.
+ */
+public class DCountingBloomFilter extends DataStructure implements INodeListDatastructure, IEdgeListDatastructure {
+	private static final int counterBits = 4;
+	private static final int countersPerLong = 64 / counterBits;
+	private static final long counterMask = (1L << counterBits) - 1;
+
+	private long[] counters;
+	private int numCounters;
+	private int numHashFunctions;
+	private double falsePositiveProbability;
+
+	private int count;
+	private int maxNodeIndex;
+
+	public DCountingBloomFilter(Class<? extends IElement> dT) {
+		this(dT, DBloomFilter.defaultFalsePositiveProbability);
+	}
+
+	public DCountingBloomFilter(Class<? extends IElement> dT, double falsePositiveProbability) {
+		this.falsePositiveProbability = falsePositiveProbability;
+		this.init(dT, defaultSize);
+	}
+
+	public void init(Class<? extends IElement> dT, int initialSize) {
+		this.dataType = dT;
+
+		int expected = Math.max(initialSize, 1);
+		double ln2 = Math.log(2);
+		long m = (long) Math.ceil(-expected * Math.log(this.falsePositiveProbability) / (ln2 * ln2));
+		this.numCounters = (int) Math.min(Math.max(m, countersPerLong), (long) Integer.MAX_VALUE);
+		this.numHashFunctions = Math.max(1, (int) Math.round((double) this.numCounters / expected * ln2));
+		this.counters = new long[(this.numCounters + countersPerLong - 1) / countersPerLong];
+
+		this.count = 0;
+		this.maxNodeIndex = -1;
+	}
+
+	public double getFalsePositiveProbability() {
+		return this.falsePositiveProbability;
+	}
+
+	@Override
+	public boolean add(IElement element) {
+		if (element instanceof Node)
+			return this.add((Node) element);
+		if (element instanceof Edge)
+			return this.add((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	@Override
+	public boolean add(Node element) {
+		super.canAdd(element);
+		if (!this.update(element, 1)) {
+			return false;
+		}
+		this.maxNodeIndex = Math.max(this.maxNodeIndex, element.getIndex());
+		return true;
+	}
+
+	@Override
+	public boolean add(Edge element) {
+		super.canAdd(element);
+		return this.update(element, 1);
+	}
+
+	@Override
+	public boolean contains(IElement element) {
+		return this.contains(DBloomFilter.hash(element));
+	}
+
+	@Override
+	public boolean contains(int src, int dst) {
+		return this.contains(DBloomFilter.hash(Edge.getKey(this.dataType, src, dst)));
+	}
+
+	private boolean contains(long hash) {
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+		for (int i = 1; i <= this.numHashFunctions; i++) {
+			if (this.getCounter(this.position(hash1, hash2, i)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean contains(Edge element) {
+		return this.contains((IElement) element);
+	}
+
+	@Override
+	public boolean contains(Node element) {
+		return this.contains((IElement) element);
+	}
+
+	@Override
+	public boolean remove(IElement element) {
+		if (element instanceof Node)
+			return this.remove((Node) element);
+		if (element instanceof Edge)
+			return this.remove((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	@Override
+	public boolean remove(Edge element) {
+		return this.update(element, -1);
+	}
+
+	@Override
+	public boolean remove(Node element) {
+		return this.update(element, -1);
+	}
+
+	/**
+	 * Increment (delta = 1) or decrement (delta = -1) all counters of an
+	 * element, if it is not yet contained (for incrementing) or contained (for
+	 * decrementing)
+	 */
+	private boolean update(IElement element, int delta) {
+		if (this.contains(element) == (delta > 0)) {
+			return false;
+		}
+		this.change(element, delta);
+		return true;
+	}
+
+	/**
+	 * Increment the counters of an element, even if it is (probably) contained
+	 * already. This allows to keep the filter in sync with another data
+	 * structure that stores this element, so it can be decremented safely when
+	 * the element is removed there
+	 */
+	void increment(IElement element) {
+		this.change(element, 1);
+	}
+
+	/**
+	 * Decrement the counters of an element that has been passed to add() or
+	 * increment() before
+	 */
+	void decrement(IElement element) {
+		this.change(element, -1);
+	}
+
+	private void change(IElement element, int delta) {
+		long hash = DBloomFilter.hash(element);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+		for (int i = 1; i <= this.numHashFunctions; i++) {
+			int pos = this.position(hash1, hash2, i);
+			long current = this.getCounter(pos);
+			if (current == counterMask) {
+				// saturated counters are never changed again
+				continue;
+			}
+			this.setCounter(pos, current + delta);
+		}
+		this.count += delta;
+	}
+
+	/**
+	 * Double hashing as proposed by Kirsch and Mitzenmacher: the i-th position
+	 * is derived as hash1 + i * hash2
+	 */
+	private int position(int hash1, int hash2, int i) {
+		int combined = hash1 + i * hash2;
+		if (combined < 0) {
+			combined = ~combined;
+		}
+		return combined % this.numCounters;
+	}
+
+	private long getCounter(int pos) {
+		return (this.counters[pos / countersPerLong] >>> ((pos % countersPerLong) * counterBits)) & counterMask;
+	}
+
+	private void setCounter(int pos, long value) {
+		int shift = (pos % countersPerLong) * counterBits;
+		long word = this.counters[pos / countersPerLong] & ~(counterMask << shift);
+		this.counters[pos / countersPerLong] = word | (value << shift);
+	}
+
+	@Override
+	public int size() {
+		return this.count;
+	}
+
+	@Override
+	public int getMaxNodeIndex() {
+		return this.maxNodeIndex;
+	}
+
+	/**
+	 * Elements of a bloom filter can't be iterated
+	 */
+	@Override
+	public Iterator<IElement> iterator() {
+		throw new UnsupportedOperationException("Elements of a bloom filter can't be iterated");
+	}
+}
@@ -0,0 +1,121 @@
+package dna.datastructures;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+
+import dna.graph.IElement;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.Node;
+
+/**
+ * Immutable data structure that never contains anything. A single instance is
+ * shared by all nodes that have not stored any edge yet, if their
+ * {@link GraphDataStructure} creates node lists lazily (see
+ * {@link GraphDataStructure#setLazyNodeLists(boolean)}). Nodes replace it by a
+ * real list before they add the first element.
+ */
+public class DEmpty extends DataStructureReadable implements INodeListDatastructureReadable,
+		IEdgeListDatastructureReadable {
+	public static final DEmpty instance = new DEmpty();
+
+	private DEmpty() {
+		this.dataType = IElement.class;
+	}
+
+	/**
+	 * The shared instance is never initialized with any size
+	 */
+	public void init(Class<? extends IElement> dT, int initialSize) {
+	}
+
+	@Override
+	public boolean add(IElement element) {
+		throw new UnsupportedOperationException("Can't add elements to an empty data structure");
+	}
+
+	@Override
+	public boolean add(Node element) {
+		return this.add((IElement) element);
+	}
+
+	@Override
+	public boolean add(Edge element) {
+		return this.add((IElement) element);
+	}
+
+	@Override
+	public boolean contains(IElement element) {
+		return false;
+	}
+
+	@Override
+	public boolean contains(Node element) {
+		return false;
+	}
+
+	@Override
+	public boolean contains(Edge element) {
+		return false;
+	}
+
+	@Override
+	public boolean contains(int src, int dst) {
+		return false;
+	}
+
+	@Override
+	public boolean remove(IElement element) {
+		return false;
+	}
+
+	@Override
+	public boolean remove(Node element) {
+		return false;
+	}
+
+	@Override
+	public boolean remove(Edge element) {
+		return false;
+	}
+
+	@Override
+	public int size() {
+		return 0;
+	}
+
+	@Override
+	public int getMaxNodeIndex() {
+		return -1;
+	}
+
+	@Override
+	public Node get(int index) {
+		return null;
+	}
+
+	@Override
+	public Edge get(Edge element) {
+		return null;
+	}
+
+	@Override
+	public Edge get(int src, int dst) {
+		return null;
+	}
+
+	@Override
+	public IElement getRandom() {
+		return null;
+	}
+
+	@Override
+	public Collection<IElement> getElements() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public Iterator<IElement> iterator() {
+		return Collections.<IElement> emptyList().iterator();
+	}
+}
@@ -0,0 +1,215 @@
+package dna.datastructures;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import dna.graph.IElement;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.Node;
+
+/**
+ * Decorator that puts a counting bloom filter in front of another data
+ * structure. Most checks whether an element is stored are made for elements
+ * that are not, and the filter answers them without asking the wrapped data
+ * structure. This helps most for lists like {@link DArrayList} or
+ * {@link DLinkedList} that need a linear search in contains() and before every
+ * add(): elements that the filter has not seen yet are appended without any
+ * search, while ordering and getRandom() of the list are kept.
+ *
+ * The filter is rebuilt from the wrapped elements with twice the size as soon
+ * as the number of elements exceeds its size, so its false positive rate stays
+ * close to {@link DBloomFilter#defaultFalsePositiveProbability}.
+ *
+ * Use {@link GraphDataStructure#setFiltered(GraphDataStructure.ListType, boolean)}
+ * to wrap all lists of a slot.
+ */
+public class DFiltered extends DataStructureReadable implements INodeListDatastructureReadable,
+		IEdgeListDatastructureReadable {
+	private IDataStructure list;
+	private DCountingBloomFilter filter;
+	private int capacity;
+
+	public DFiltered(Class<? extends IElement> dT, IDataStructure list) {
+		this.dataType = dT;
+		this.list = list;
+		this.capacity = Math.max(list.size(), defaultSize);
+		this.rebuildFilter();
+	}
+
+	public void init(Class<? extends IElement> dT, int initialSize) {
+		this.dataType = dT;
+		this.list.init(dT, initialSize);
+		this.capacity = Math.max(initialSize, defaultSize);
+		this.rebuildFilter();
+	}
+
+	/**
+	 * Retrieve the data structure that is decorated by this filter
+	 *
+	 * @return
+	 */
+	public IDataStructure getWrapped() {
+		return this.list;
+	}
+
+	@Override
+	public boolean add(IElement element) {
+		if (element instanceof Node)
+			return this.add((Node) element);
+		if (element instanceof Edge)
+			return this.add((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	@Override
+	public boolean add(Node element) {
+		return this.put(element);
+	}
+
+	@Override
+	public boolean add(Edge element) {
+		return this.put(element);
+	}
+
+	private boolean put(IElement element) {
+		super.canAdd(element);
+
+		boolean added;
+		if (!this.filter.contains(element) && this.list instanceof DataStructure) {
+			added = ((DataStructure) this.list).addNew(element);
+		} else {
+			added = this.list.add(element);
+		}
+		if (!added) {
+			return false;
+		}
+
+		if (this.list.size() > this.capacity) {
+			this.capacity *= 2;
+			this.rebuildFilter();
+		} else {
+			this.filter.increment(element);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean contains(IElement element) {
+		return this.filter.contains(element) && this.list.contains(element);
+	}
+
+	@Override
+	public boolean contains(Node element) {
+		return this.contains((IElement) element);
+	}
+
+	@Override
+	public boolean contains(Edge element) {
+		return this.contains((IElement) element);
+	}
+
+	@Override
+	public boolean contains(int src, int dst) {
+		return this.filter.contains(src, dst) && ((IEdgeListDatastructure) this.list).contains(src, dst);
+	}
+
+	@Override
+	public boolean remove(IElement element) {
+		if (!this.filter.contains(element) || !this.list.remove(element)) {
+			return false;
+		}
+		this.filter.decrement(element);
+		return true;
+	}
+
+	@Override
+	public boolean remove(Node element) {
+		return this.remove((IElement) element);
+	}
+
+	@Override
+	public boolean remove(Edge element) {
+		return this.remove((IElement) element);
+	}
+
+	@Override
+	public int size() {
+		return this.list.size();
+	}
+
+	@Override
+	public long getFingerprint() {
+		return this.list.getFingerprint();
+	}
+
+	@Override
+	public int getMaxNodeIndex() {
+		return ((INodeListDatastructure) this.list).getMaxNodeIndex();
+	}
+
+	/**
+	 * Nodes are retrieved by their index only, which can't be checked against
+	 * the filter, so this is passed to the wrapped list directly
+	 */
+	@Override
+	public Node get(int index) {
+		return ((INodeListDatastructureReadable) this.readable()).get(index);
+	}
+
+	@Override
+	public Edge get(Edge element) {
+		if (!this.filter.contains(element)) {
+			return null;
+		}
+		return ((IEdgeListDatastructureReadable) this.readable()).get(element);
+	}
+
+	@Override
+	public Edge get(int src, int dst) {
+		if (!this.filter.contains(src, dst)) {
+			return null;
+		}
+		return ((IEdgeListDatastructureReadable) this.readable()).get(src, dst);
+	}
+
+	@Override
+	public IElement getRandom() {
+		return this.readable().getRandom();
+	}
+
+	@Override
+	public Collection<IElement> getElements() {
+		return this.readable().getElements();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterator<IElement> iterator() {
+		return this.list.iterator();
+	}
+
+	@Override
+	public boolean canStore(Class<? extends IElement> o) {
+		return this.list.canStore(o);
+	}
+
+	private IReadable readable() {
+		if (!(this.list instanceof IReadable))
+			throw new RuntimeException("Wrapped data structure " + this.list.getClass().getName() + " is not readable");
+		return (IReadable) this.list;
+	}
+
+	/**
+	 * Create a new filter for the current capacity and feed all elements of the
+	 * wrapped data structure into it
+	 */
+	private void rebuildFilter() {
+		this.filter = new DCountingBloomFilter(this.dataType);
+		this.filter.reinitializeWithSize(this.capacity);
+		for (Object element : this.list) {
+			if (element == null)
+				continue;
+			this.filter.increment((IElement) element);
+		}
+	}
+}
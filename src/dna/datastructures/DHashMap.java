@@ -1,5 +1,6 @@
 package dna.datastructures;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -11,11 +12,16 @@ import dna.util.Rand;
 /**
  * Data structure to store IElements in a hashmap
  * 
+ * The hashmap only maps node indices to positions within a dense list of all
+ * nodes. Removing a node moves the last node of this list into the position
+ * that got free, so a random node can be picked in O(1)
+ * 
  * @author Nico
  * 
  */
 public class DHashMap extends DataStructureReadable implements INodeListDatastructureReadable {
-	private HashMap<Integer, IElement> list;
+	private HashMap<Integer, Integer> positions;
+	private ArrayList<IElement> list;
 	private int maxNodeIndex;
 
 	public DHashMap(Class<? extends IElement> dT) {
@@ -24,8 +30,10 @@ public class DHashMap extends DataStructureReadable implements INodeListDatastru
 
 	public void init(Class<? extends IElement> dT, int initialSize) {
 		this.dataType = dT;
-		this.list = new HashMap<>(initialSize);
+		this.positions = new HashMap<>(initialSize);
+		this.list = new ArrayList<>(initialSize);
 		this.maxNodeIndex = -1;
+		this.fingerprint = 0;
 	}
 
 	public boolean add(IElement element) {
@@ -37,8 +45,10 @@ public class DHashMap extends DataStructureReadable implements INodeListDatastru
 	public boolean add(Node element) {
 		super.canAdd(element);
 
-		if (!this.list.containsKey(element.getIndex())) {
-			this.list.put(element.getIndex(), element);
+		if (!this.positions.containsKey(element.getIndex())) {
+			this.positions.put(element.getIndex(), this.list.size());
+			this.list.add(element);
+			this.fingerprint += getFingerprint(element);
 			if (element.getIndex() > this.maxNodeIndex) {
 				this.maxNodeIndex = element.getIndex();
 			}
@@ -56,7 +66,8 @@ public class DHashMap extends DataStructureReadable implements INodeListDatastru
 
 	@Override
 	public boolean contains(Node element) {
-		return list.containsValue(element);
+		Node stored = this.get(element.getIndex());
+		return stored != null && stored.equals(element);
 	}
 
 	@Override
@@ -68,12 +79,20 @@ public class DHashMap extends DataStructureReadable implements INodeListDatastru
 
 	@Override
 	public boolean remove(Node element) {
-		if (this.list.remove(element.getIndex()) == null) {
+		Integer pos = this.positions.remove(element.getIndex());
+		if (pos == null) {
 			return false;
 		}
+		this.fingerprint -= getFingerprint(element);
+		IElement last = this.list.remove(this.list.size() - 1);
+		if (pos < this.list.size()) {
+			this.list.set(pos, last);
+			this.positions.put(((Node) last).getIndex(), pos);
+		}
+
 		if (element.getIndex() == this.maxNodeIndex) {
 			int max = this.maxNodeIndex - 1;
-			while (!this.list.containsKey(max) && max >= 0) {
+			while (!this.positions.containsKey(max) && max >= 0) {
 				max--;
 			}
 			this.maxNodeIndex = max;
@@ -87,35 +106,34 @@ public class DHashMap extends DataStructureReadable implements INodeListDatastru
 	}
 
 	public Node get(Node e) {
-		return (Node) this.list.get(e);
+		return this.get(e.getIndex());
 	}
 
 	@Override
 	public IElement getRandom() {
-		int index = Rand.rand.nextInt(this.list.size());
-		int counter = 0;
-		for (IElement node : this.list.values()) {
-			if (counter == index) {
-				return (Node) node;
-			}
-			counter++;
+		if (this.list.isEmpty()) {
+			return null;
 		}
-		return null;
+		return this.list.get(Rand.rand.nextInt(this.list.size()));
 	}
 
 	@Override
 	public Collection<IElement> getElements() {
-		return this.list.values();
+		return this.list;
 	}
 
 	@Override
 	public Iterator iterator() {
-		return this.list.values().iterator();
+		return this.list.iterator();
 	}
 
 	@Override
 	public Node get(int index) {
-		return (Node) this.list.get(index);
+		Integer pos = this.positions.get(index);
+		if (pos == null) {
+			return null;
+		}
+		return (Node) this.list.get(pos);
 	}
 
 	@Override
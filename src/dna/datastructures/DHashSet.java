@@ -1,21 +1,38 @@
 package dna.datastructures;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Iterator;
 
 import dna.graph.IElement;
+import dna.graph.edges.DirectedEdge;
 import dna.graph.edges.Edge;
+import dna.graph.edges.UndirectedEdge;
 import dna.util.Rand;
 
 /**
  * Data structure to store IElements in a hashset
  * 
+ * Elements are stored in a dense list, the hashset is an open addressing table
+ * of positions within this list (as in {@link DLongHashMap}), keyed by the
+ * hash codes of the elements. Removing an element moves the last element of
+ * this list into the position that got free, so get is a single lookup and a
+ * random element can be picked in O(1). The hash codes are kept next to the
+ * list, so edges can also be found by the indices of their nodes without
+ * creating a dummy edge
+ * 
  * @author Nico
  * 
  */
 public class DHashSet extends DataStructureReadable implements IEdgeListDatastructureReadable {
-	private HashSet<IElement> list;
+	private static final float loadFactor = 0.5f;
+
+	private int[] table;
+	private int mask;
+
+	private int[] hashes;
+	private ArrayList<IElement> list;
 
 	public DHashSet(Class<? extends IElement> dT) {
 		this.init(dT, defaultSize);
@@ -24,7 +41,12 @@ public class DHashSet extends DataStructureReadable implements IEdgeListDatastru
 	@Override
 	public void init(Class<? extends IElement> dT, int initialSize) {
 		this.dataType = dT;
-		this.list = new HashSet<>(initialSize);
+		int capacity = tableSizeFor(initialSize);
+		this.table = new int[capacity];
+		this.mask = capacity - 1;
+		this.hashes = new int[Math.max(initialSize, 1)];
+		this.list = new ArrayList<>(initialSize);
+		this.fingerprint = 0;
 	}
 
 	public boolean add(IElement element) {
@@ -35,7 +57,28 @@ public class DHashSet extends DataStructureReadable implements IEdgeListDatastru
 
 	public boolean add(Edge element) {
 		super.canAdd(element);
-		return element != null && this.list.add(element);
+		if (element == null) {
+			return false;
+		}
+		int hash = hash(element);
+		int slot = this.findSlot(element, hash);
+		if (slot >= 0) {
+			return false;
+		}
+
+		if (this.list.size() + 1 > this.table.length * loadFactor) {
+			this.rehash(this.table.length << 1);
+			slot = this.findSlot(element, hash);
+		}
+
+		if (this.list.size() == this.hashes.length) {
+			this.hashes = Arrays.copyOf(this.hashes, this.hashes.length + (this.hashes.length >> 1) + 1);
+		}
+		this.hashes[this.list.size()] = hash;
+		this.list.add(element);
+		this.table[~slot] = this.list.size();
+		this.fingerprint += getFingerprint(element);
+		return true;
 	}
 
 	@Override
@@ -47,7 +90,12 @@ public class DHashSet extends DataStructureReadable implements IEdgeListDatastru
 
 	@Override
 	public boolean contains(Edge element) {
-		return list.contains(element);
+		return element != null && this.findSlot(element, hash(element)) >= 0;
+	}
+
+	@Override
+	public boolean contains(int src, int dst) {
+		return this.findSlot(Edge.getKey(this.dataType, src, dst)) >= 0;
 	}
 
 	@Override
@@ -60,7 +108,25 @@ public class DHashSet extends DataStructureReadable implements IEdgeListDatastru
 
 	@Override
 	public boolean remove(Edge element) {
-		return this.list.remove(element);
+		int slot = this.findSlot(element, hash(element));
+		if (slot < 0) {
+			return false;
+		}
+		this.fingerprint -= getFingerprint(element);
+
+		int pos = this.table[slot] - 1;
+		this.deleteSlot(slot);
+
+		int last = this.list.size() - 1;
+		if (pos != last) {
+			IElement moved = this.list.get(last);
+			int movedSlot = this.findSlot(moved, this.hashes[last]);
+			this.list.set(pos, moved);
+			this.hashes[pos] = this.hashes[last];
+			this.table[movedSlot] = pos + 1;
+		}
+		this.list.remove(last);
+		return true;
 	}
 
 	@Override
@@ -69,26 +135,27 @@ public class DHashSet extends DataStructureReadable implements IEdgeListDatastru
 	}
 
 	public Edge get(Edge e) {
-		for (Object o : list) {
-			if (o.equals(e))
-				return (Edge) o;
+		int slot = this.findSlot(e, hash(e));
+		if (slot < 0) {
+			return null;
 		}
-		return null;
+		return (Edge) this.list.get(this.table[slot] - 1);
+	}
+
+	public Edge get(int src, int dst) {
+		int slot = this.findSlot(Edge.getKey(this.dataType, src, dst));
+		if (slot < 0) {
+			return null;
+		}
+		return (Edge) this.list.get(this.table[slot] - 1);
 	}
 
 	@Override
 	public IElement getRandom() {
-		int index = Rand.rand.nextInt(this.list.size());
-		int counter = 0;
-		Iterator<IElement> iter = this.list.iterator();
-		while (iter.hasNext()) {
-			if (counter == index) {
-				return iter.next();
-			}
-			iter.next();
-			counter++;
+		if (this.list.isEmpty()) {
+			return null;
 		}
-		return null;
+		return this.list.get(Rand.rand.nextInt(this.list.size()));
 	}
 
 	@Override
@@ -100,4 +167,109 @@ public class DHashSet extends DataStructureReadable implements IEdgeListDatastru
 	public Iterator<IElement> iterator() {
 		return this.list.iterator();
 	}
+
+	/**
+	 * Find the slot within the hash table for an element
+	 *
+	 * @return the slot if the element is stored here, otherwise the bitwise
+	 *         complement of the free slot where it would be stored
+	 */
+	private int findSlot(IElement element, int hash) {
+		int slot = spread(hash) & this.mask;
+		while (true) {
+			int pos = this.table[slot];
+			if (pos == 0) {
+				return ~slot;
+			}
+			if (this.hashes[pos - 1] == hash && element.equals(this.list.get(pos - 1))) {
+				return slot;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+	}
+
+	/**
+	 * Find the slot for the edge with the given key, which has the hash code
+	 * that {@link Edge#getHashCode(long)} computes for this key
+	 */
+	private int findSlot(long key) {
+		int hash = Edge.getHashCode(key);
+		int slot = spread(hash) & this.mask;
+		while (true) {
+			int pos = this.table[slot];
+			if (pos == 0) {
+				return ~slot;
+			}
+			if (this.hashes[pos - 1] == hash && Edge.getKey((Edge) this.list.get(pos - 1)) == key) {
+				return slot;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+	}
+
+	/**
+	 * Empty a slot and shift all following entries of the same probe sequence
+	 * backwards, so no lookup will stop early at the new gap
+	 */
+	private void deleteSlot(int slot) {
+		int gap = slot;
+		int current = slot;
+		while (true) {
+			current = (current + 1) & this.mask;
+			int pos = this.table[current];
+			if (pos == 0) {
+				break;
+			}
+			int ideal = spread(this.hashes[pos - 1]) & this.mask;
+			if (((current - ideal) & this.mask) >= ((current - gap) & this.mask)) {
+				this.table[gap] = pos;
+				gap = current;
+			}
+		}
+		this.table[gap] = 0;
+	}
+
+	private void rehash(int newCapacity) {
+		this.table = new int[newCapacity];
+		this.mask = newCapacity - 1;
+		for (int pos = 0; pos < this.list.size(); pos++) {
+			int slot = spread(this.hashes[pos]) & this.mask;
+			while (this.table[slot] != 0) {
+				slot = (slot + 1) & this.mask;
+			}
+			this.table[slot] = pos + 1;
+		}
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / loadFactor), 2) - 1) << 1;
+		return Math.max(capacity, 2);
+	}
+
+	/**
+	 * Hash code of an edge derived from the indices of its nodes, so that it
+	 * matches {@link Edge#getHashCode(long)} for the key of the edge. Edges
+	 * that are not connected to any nodes yet fall back to their own hash code
+	 */
+	private static int hash(Edge e) {
+		if (e instanceof DirectedEdge) {
+			DirectedEdge d = (DirectedEdge) e;
+			if (d.getSrc() != null && d.getDst() != null)
+				return Edge.getHashCode(Edge.getKey(d.getSrc().getIndex(), d.getDst().getIndex()));
+		} else if (e instanceof UndirectedEdge) {
+			UndirectedEdge u = (UndirectedEdge) e;
+			if (u.getNode1() != null && u.getNode2() != null)
+				return Edge.getHashCode(Edge.getKey(u.getNode1().getIndex(), u.getNode2().getIndex()));
+		}
+		return e.hashCode();
+	}
+
+	/**
+	 * Hash codes of edges are linear in the node indices, so mix them before
+	 * using their lower bits as a slot
+	 */
+	private static int spread(int hash) {
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
 }
@@ -0,0 +1,292 @@
+package dna.datastructures;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import dna.graph.IElement;
+import dna.graph.nodes.Node;
+import dna.util.Rand;
+
+/**
+ * Data structure to store nodes in an open addressing hash table that is keyed
+ * by the primitive node index. In contrast to {@link DHashMap}, no index is
+ * boxed into an Integer and no entry object is allocated per node.
+ *
+ * The nodes themselves are stored densely in an array, the hash table only
+ * holds positions within this array (shifted by one, as 0 marks an empty
+ * slot). Collisions are resolved through linear probing, removals use
+ * backward shifting, so there are no tombstones that slow down lookups over
+ * time.
+ */
+public class DIntHashMap extends DataStructureReadable implements INodeListDatastructureReadable {
+	private static final float loadFactor = 0.5f;
+
+	private int[] table;
+	private int mask;
+
+	private int[] keys;
+	private IElement[] values;
+	private int count;
+
+	/**
+	 * highest stored index, or only an upper bound of it if maxNodeIndexStale
+	 * is set, as removing the highest index does not look for the next one
+	 */
+	private int maxNodeIndex;
+	private boolean maxNodeIndexStale;
+
+	public DIntHashMap(Class<? extends IElement> dT) {
+		this.init(dT, defaultSize);
+	}
+
+	public void init(Class<? extends IElement> dT, int initialSize) {
+		this.dataType = dT;
+		int capacity = tableSizeFor(initialSize);
+		this.table = new int[capacity];
+		this.mask = capacity - 1;
+		this.keys = new int[Math.max(initialSize, 1)];
+		this.values = new IElement[Math.max(initialSize, 1)];
+		this.count = 0;
+		this.fingerprint = 0;
+		this.maxNodeIndex = -1;
+		this.maxNodeIndexStale = false;
+	}
+
+	public boolean add(IElement element) {
+		if (element instanceof Node)
+			return this.add((Node) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	public boolean add(Node element) {
+		super.canAdd(element);
+
+		int index = element.getIndex();
+		int slot = this.findSlot(index);
+		if (slot >= 0) {
+			return false;
+		}
+
+		if (this.count + 1 > this.table.length * loadFactor) {
+			this.rehash(this.table.length << 1);
+			slot = this.findSlot(index);
+		}
+
+		if (this.count == this.keys.length) {
+			int newLength = this.keys.length + (this.keys.length >> 1) + 1;
+			this.keys = Arrays.copyOf(this.keys, newLength);
+			this.values = Arrays.copyOf(this.values, newLength);
+		}
+
+		this.keys[this.count] = index;
+		this.values[this.count] = element;
+		this.count++;
+		this.fingerprint += getFingerprint(element);
+		this.table[~slot] = this.count;
+
+		if (index > this.maxNodeIndex) {
+			this.maxNodeIndex = index;
+			this.maxNodeIndexStale = false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean contains(IElement element) {
+		if (element instanceof Node)
+			return this.contains((Node) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	@Override
+	public boolean contains(Node element) {
+		return this.findSlot(element.getIndex()) >= 0;
+	}
+
+	@Override
+	public boolean remove(IElement element) {
+		if (element instanceof Node)
+			return this.remove((Node) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	/**
+	 * Removing a node frees its slot in the hash table and moves the last node
+	 * of the dense array into the position that got free, so the dense array
+	 * never contains gaps
+	 */
+	@Override
+	public boolean remove(Node element) {
+		int index = element.getIndex();
+		int slot = this.findSlot(index);
+		if (slot < 0) {
+			return false;
+		}
+
+		int pos = this.table[slot] - 1;
+		this.deleteSlot(slot);
+
+		int last = this.count - 1;
+		if (pos != last) {
+			int movedKey = this.keys[last];
+			this.keys[pos] = movedKey;
+			this.values[pos] = this.values[last];
+			this.table[this.findSlot(movedKey)] = pos + 1;
+		}
+		this.values[last] = null;
+		this.count--;
+		this.fingerprint -= getFingerprint(element);
+
+		if (index == this.maxNodeIndex) {
+			this.maxNodeIndexStale = true;
+		}
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return this.count;
+	}
+
+	@Override
+	public Node get(int index) {
+		int slot = this.findSlot(index);
+		if (slot < 0) {
+			return null;
+		}
+		return (Node) this.values[this.table[slot] - 1];
+	}
+
+	/**
+	 * After the highest index was removed, the new one is only searched for
+	 * here, so removing nodes in decreasing order of their indices does not
+	 * scan all nodes on every removal
+	 */
+	@Override
+	public int getMaxNodeIndex() {
+		if (this.maxNodeIndexStale) {
+			int max = -1;
+			for (int i = 0; i < this.count; i++) {
+				max = Math.max(max, this.keys[i]);
+			}
+			this.maxNodeIndex = max;
+			this.maxNodeIndexStale = false;
+		}
+		return this.maxNodeIndex;
+	}
+
+	@Override
+	public IElement getRandom() {
+		if (this.count == 0) {
+			return null;
+		}
+		return this.values[Rand.rand.nextInt(this.count)];
+	}
+
+	@Override
+	public Collection<IElement> getElements() {
+		return new AbstractCollection<IElement>() {
+			@Override
+			public Iterator<IElement> iterator() {
+				return DIntHashMap.this.iterator();
+			}
+
+			@Override
+			public int size() {
+				return DIntHashMap.this.count;
+			}
+		};
+	}
+
+	@Override
+	public Iterator<IElement> iterator() {
+		return new Iterator<IElement>() {
+			private int pos = 0;
+
+			@Override
+			public boolean hasNext() {
+				return this.pos < DIntHashMap.this.count;
+			}
+
+			@Override
+			public IElement next() {
+				if (!this.hasNext())
+					throw new NoSuchElementException();
+				return DIntHashMap.this.values[this.pos++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Find the slot within the hash table for a node index
+	 *
+	 * @param key
+	 * @return the slot if the index is stored here, otherwise the bitwise
+	 *         complement of the free slot where it would be stored
+	 */
+	private int findSlot(int key) {
+		int slot = hash(key) & this.mask;
+		while (true) {
+			int pos = this.table[slot];
+			if (pos == 0) {
+				return ~slot;
+			}
+			if (this.keys[pos - 1] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+	}
+
+	/**
+	 * Empty a slot and shift all following entries of the same probe sequence
+	 * backwards, so no lookup will stop early at the new gap
+	 */
+	private void deleteSlot(int slot) {
+		int gap = slot;
+		int current = slot;
+		while (true) {
+			current = (current + 1) & this.mask;
+			int pos = this.table[current];
+			if (pos == 0) {
+				break;
+			}
+			int ideal = hash(this.keys[pos - 1]) & this.mask;
+			if (((current - ideal) & this.mask) >= ((current - gap) & this.mask)) {
+				this.table[gap] = pos;
+				gap = current;
+			}
+		}
+		this.table[gap] = 0;
+	}
+
+	private void rehash(int newCapacity) {
+		this.table = new int[newCapacity];
+		this.mask = newCapacity - 1;
+		for (int pos = 0; pos < this.count; pos++) {
+			int slot = hash(this.keys[pos]) & this.mask;
+			while (this.table[slot] != 0) {
+				slot = (slot + 1) & this.mask;
+			}
+			this.table[slot] = pos + 1;
+		}
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / loadFactor), 2) - 1) << 1;
+		return Math.max(capacity, 2);
+	}
+
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
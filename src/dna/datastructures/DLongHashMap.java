@@ -0,0 +1,264 @@
+package dna.datastructures;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import dna.graph.IElement;
+import dna.graph.edges.Edge;
+import dna.util.Rand;
+
+/**
+ * Data structure to store edges in an open addressing hash table that is keyed
+ * by the indices of the connected nodes, packed into a single primitive long.
+ * This gives add, contains, get and remove in O(1) without hashing the string
+ * representation of the edge and without allocating anything per probe.
+ *
+ * The layout is the same as in {@link DIntHashMap}: edges are stored densely
+ * in an array, the hash table only holds positions within this array.
+ */
+public class DLongHashMap extends DataStructureReadable implements IEdgeListDatastructureReadable {
+	private static final float loadFactor = 0.5f;
+
+	private int[] table;
+	private int mask;
+
+	private long[] keys;
+	private IElement[] values;
+	private int count;
+
+	public DLongHashMap(Class<? extends IElement> dT) {
+		this.init(dT, defaultSize);
+	}
+
+	public void init(Class<? extends IElement> dT, int initialSize) {
+		this.dataType = dT;
+		int capacity = tableSizeFor(initialSize);
+		this.table = new int[capacity];
+		this.mask = capacity - 1;
+		this.keys = new long[Math.max(initialSize, 1)];
+		this.values = new IElement[Math.max(initialSize, 1)];
+		this.count = 0;
+		this.fingerprint = 0;
+	}
+
+	public boolean add(IElement element) {
+		if (element instanceof Edge)
+			return this.add((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	public boolean add(Edge element) {
+		super.canAdd(element);
+
+		long key = Edge.getKey(element);
+		int slot = this.findSlot(key);
+		if (slot >= 0) {
+			return false;
+		}
+
+		if (this.count + 1 > this.table.length * loadFactor) {
+			this.rehash(this.table.length << 1);
+			slot = this.findSlot(key);
+		}
+
+		if (this.count == this.keys.length) {
+			int newLength = this.keys.length + (this.keys.length >> 1) + 1;
+			this.keys = Arrays.copyOf(this.keys, newLength);
+			this.values = Arrays.copyOf(this.values, newLength);
+		}
+
+		this.keys[this.count] = key;
+		this.values[this.count] = element;
+		this.count++;
+		this.fingerprint += getFingerprint(element);
+		this.table[~slot] = this.count;
+		return true;
+	}
+
+	@Override
+	public boolean contains(IElement element) {
+		if (element instanceof Edge)
+			return this.contains((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	@Override
+	public boolean contains(Edge element) {
+		return this.findSlot(Edge.getKey(element)) >= 0;
+	}
+
+	@Override
+	public boolean remove(IElement element) {
+		if (element instanceof Edge)
+			return this.remove((Edge) element);
+		else
+			throw new RuntimeException("Cannot remove a non-edge from an edge list");
+	}
+
+	/**
+	 * Removing an edge frees its slot in the hash table and moves the last
+	 * edge of the dense array into the position that got free
+	 */
+	@Override
+	public boolean remove(Edge element) {
+		int slot = this.findSlot(Edge.getKey(element));
+		if (slot < 0) {
+			return false;
+		}
+
+		int pos = this.table[slot] - 1;
+		this.deleteSlot(slot);
+
+		int last = this.count - 1;
+		if (pos != last) {
+			long movedKey = this.keys[last];
+			this.keys[pos] = movedKey;
+			this.values[pos] = this.values[last];
+			this.table[this.findSlot(movedKey)] = pos + 1;
+		}
+		this.values[last] = null;
+		this.count--;
+		this.fingerprint -= getFingerprint(element);
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return this.count;
+	}
+
+	public Edge get(Edge e) {
+		int slot = this.findSlot(Edge.getKey(e));
+		if (slot < 0) {
+			return null;
+		}
+		return (Edge) this.values[this.table[slot] - 1];
+	}
+
+	@Override
+	public boolean contains(int src, int dst) {
+		return this.findSlot(Edge.getKey(this.dataType, src, dst)) >= 0;
+	}
+
+	public Edge get(int src, int dst) {
+		int slot = this.findSlot(Edge.getKey(this.dataType, src, dst));
+		if (slot < 0) {
+			return null;
+		}
+		return (Edge) this.values[this.table[slot] - 1];
+	}
+
+	@Override
+	public IElement getRandom() {
+		if (this.count == 0) {
+			return null;
+		}
+		return this.values[Rand.rand.nextInt(this.count)];
+	}
+
+	@Override
+	public Collection<IElement> getElements() {
+		return new AbstractCollection<IElement>() {
+			@Override
+			public Iterator<IElement> iterator() {
+				return DLongHashMap.this.iterator();
+			}
+
+			@Override
+			public int size() {
+				return DLongHashMap.this.count;
+			}
+		};
+	}
+
+	@Override
+	public Iterator<IElement> iterator() {
+		return new Iterator<IElement>() {
+			private int pos = 0;
+
+			@Override
+			public boolean hasNext() {
+				return this.pos < DLongHashMap.this.count;
+			}
+
+			@Override
+			public IElement next() {
+				if (!this.hasNext())
+					throw new NoSuchElementException();
+				return DLongHashMap.this.values[this.pos++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Find the slot within the hash table for a key
+	 *
+	 * @param key
+	 * @return the slot if the key is stored here, otherwise the bitwise
+	 *         complement of the free slot where it would be stored
+	 */
+	private int findSlot(long key) {
+		int slot = hash(key) & this.mask;
+		while (true) {
+			int pos = this.table[slot];
+			if (pos == 0) {
+				return ~slot;
+			}
+			if (this.keys[pos - 1] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+	}
+
+	/**
+	 * Empty a slot and shift all following entries of the same probe sequence
+	 * backwards, so no lookup will stop early at the new gap
+	 */
+	private void deleteSlot(int slot) {
+		int gap = slot;
+		int current = slot;
+		while (true) {
+			current = (current + 1) & this.mask;
+			int pos = this.table[current];
+			if (pos == 0) {
+				break;
+			}
+			int ideal = hash(this.keys[pos - 1]) & this.mask;
+			if (((current - ideal) & this.mask) >= ((current - gap) & this.mask)) {
+				this.table[gap] = pos;
+				gap = current;
+			}
+		}
+		this.table[gap] = 0;
+	}
+
+	private void rehash(int newCapacity) {
+		this.table = new int[newCapacity];
+		this.mask = newCapacity - 1;
+		for (int pos = 0; pos < this.count; pos++) {
+			int slot = hash(this.keys[pos]) & this.mask;
+			while (this.table[slot] != 0) {
+				slot = (slot + 1) & this.mask;
+			}
+			this.table[slot] = pos + 1;
+		}
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / loadFactor), 2) - 1) << 1;
+		return Math.max(capacity, 2);
+	}
+
+	private static int hash(long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+	}
+}
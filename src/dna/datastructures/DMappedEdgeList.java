@@ -0,0 +1,543 @@
+package dna.datastructures;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import dna.graph.IDoubleWeighted;
+import dna.graph.IElement;
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.Edge;
+import dna.graph.edges.UndirectedEdge;
+import dna.graph.nodes.Node;
+import dna.util.Rand;
+
+/**
+ * Data structure to store edges off-heap in memory mapped files. Each edge is
+ * written as a record of 16 bytes: the indices of both connected nodes packed
+ * into a long (as in {@link DLongHashMap}), followed by the weight as a double
+ * (0 for unweighted edges). The records are stored densely and probed through
+ * an int hash table over their positions, which is mapped from a second file.
+ * The heap only holds references to the connected nodes, but nothing per
+ * edge.
+ *
+ * As a consequence, edges handed out by get(), getRandom() and the iterator
+ * are created from their record on every call: they are equal to the stored
+ * edge, but not the same object, and in particular not the object stored in
+ * the edge lists of the nodes. Changing the weight of such an edge does not
+ * change the record, it has to be written back through {@link #update(Edge)}
+ * (as done by {@link dna.graph.Graph#setEdgeWeights(double[])}).
+ *
+ * Both files are mapped in segments of 2^segmentBits entries, so the number of
+ * edges is only limited by the hash table, which holds at most 2^30 slots.
+ * segmentBits (at most 26) is read once when the list is initialized.
+ *
+ * The files are created in the directory given through the system property
+ * "dna.mappedEdgeList.dir" (or the default temp directory) as soon as the
+ * first edge is added. They are deleted by {@link #close()}, which should be
+ * called once the graph using this list is discarded, e.g. by
+ * ((DMappedEdgeList) graph.edges).close(). Files of lists that are not closed
+ * are deleted when the JVM exits. This list is meant to be used as graph edge
+ * list, as every node edge list would get its own files.
+ */
+public class DMappedEdgeList extends DataStructureReadable implements IEdgeListDatastructureReadable, Closeable {
+	public static int segmentBits = 24;
+
+	private static final int recordSize = 16;
+	private static final int weightOffset = 8;
+	private static final int slotSize = 4;
+	private static final int maxTableSize = 1 << 30;
+	private static final float loadFactor = 0.5f;
+
+	private int segmentShift;
+	private int segmentSize;
+
+	private MappedRegion records;
+	private int capacity;
+	private int count;
+
+	private MappedRegion table;
+	private int tableSize;
+	private int mask;
+
+	private DIntHashMap nodes;
+
+	private boolean weighted;
+	private MethodHandle edgeFactory;
+
+	public DMappedEdgeList(Class<? extends IElement> dT) {
+		this.init(dT, defaultSize);
+	}
+
+	public void init(Class<? extends IElement> dT, int initialSize) {
+		this.dataType = dT;
+		this.weighted = IDoubleWeighted.class.isAssignableFrom(dT);
+		this.edgeFactory = null;
+		// a single mapping can not exceed 2GB
+		this.segmentShift = Math.min(segmentBits, 26);
+		this.segmentSize = 1 << this.segmentShift;
+
+		this.release();
+		this.capacity = Math.max(initialSize, defaultSize);
+		this.count = 0;
+		this.fingerprint = 0;
+
+		int tableSize = Integer.highestOneBit(Math.max((int) (initialSize / loadFactor), 2) - 1) << 1;
+		this.tableSize = Math.min(Math.max(tableSize, 2), maxTableSize);
+		this.mask = this.tableSize - 1;
+
+		this.nodes = new DIntHashMap(Node.class);
+	}
+
+	public boolean add(IElement element) {
+		if (element instanceof Edge)
+			return this.add((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	public boolean add(Edge element) {
+		super.canAdd(element);
+
+		long key = Edge.getKey(element);
+		int slot = this.findSlot(key);
+		if (slot >= 0) {
+			return false;
+		}
+
+		if (this.count + 1 > this.tableSize * loadFactor) {
+			if (this.tableSize < maxTableSize) {
+				this.rehash(this.tableSize << 1);
+				slot = this.findSlot(key);
+			} else if (this.count + 1 == this.tableSize) {
+				throw new RuntimeException("A mapped edge list can not store more than " + this.count + " edges");
+			}
+		}
+		this.ensureCapacity(this.count + 1);
+		if (this.table == null) {
+			this.table = this.newTable(this.tableSize);
+		}
+
+		this.records.putLong(this.count, 0, key);
+		this.records.putDouble(this.count, weightOffset, this.weightOf(element));
+		this.count++;
+		this.fingerprint += getFingerprint(element);
+		this.table.putInt(~slot, 0, this.count);
+
+		if (element instanceof DirectedEdge) {
+			this.rememberNode(((DirectedEdge) element).getSrc());
+			this.rememberNode(((DirectedEdge) element).getDst());
+		} else if (element instanceof UndirectedEdge) {
+			this.rememberNode(((UndirectedEdge) element).getNode1());
+			this.rememberNode(((UndirectedEdge) element).getNode2());
+		}
+		return true;
+	}
+
+	@Override
+	public boolean contains(IElement element) {
+		if (element instanceof Edge)
+			return this.contains((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	@Override
+	public boolean contains(Edge element) {
+		return this.findSlot(Edge.getKey(element)) >= 0;
+	}
+
+	@Override
+	public boolean remove(IElement element) {
+		if (element instanceof Edge)
+			return this.remove((Edge) element);
+		else
+			throw new RuntimeException("Cannot remove a non-edge from an edge list");
+	}
+
+	/**
+	 * Removing an edge moves the last record into the position that got free,
+	 * so the records are always stored without gaps
+	 */
+	@Override
+	public boolean remove(Edge element) {
+		long key = Edge.getKey(element);
+		int slot = this.findSlot(key);
+		if (slot < 0) {
+			return false;
+		}
+
+		int pos = this.positionAt(slot);
+		this.deleteSlot(slot);
+
+		int last = this.count - 1;
+		if (pos != last) {
+			long movedKey = this.records.getLong(last, 0);
+			this.records.putLong(pos, 0, movedKey);
+			this.records.putDouble(pos, weightOffset, this.records.getDouble(last, weightOffset));
+			this.table.putInt(this.findSlot(movedKey), 0, pos + 1);
+		}
+		this.count--;
+		this.fingerprint -= getFingerprint(element);
+		return true;
+	}
+
+	/**
+	 * Write the weight of the given edge into its record, e.g. after it was
+	 * changed on an edge handed out by this list
+	 *
+	 * @return false, if the edge is not stored here
+	 */
+	public boolean update(Edge element) {
+		int slot = this.findSlot(Edge.getKey(element));
+		if (slot < 0) {
+			return false;
+		}
+		this.records.putDouble(this.positionAt(slot), weightOffset, this.weightOf(element));
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return this.count;
+	}
+
+	public Edge get(Edge e) {
+		int slot = this.findSlot(Edge.getKey(e));
+		if (slot < 0) {
+			return null;
+		}
+		return this.edgeAt(this.positionAt(slot));
+	}
+
+	@Override
+	public boolean contains(int src, int dst) {
+		return this.findSlot(Edge.getKey(this.dataType, src, dst)) >= 0;
+	}
+
+	public Edge get(int src, int dst) {
+		int slot = this.findSlot(Edge.getKey(this.dataType, src, dst));
+		if (slot < 0) {
+			return null;
+		}
+		return this.edgeAt(this.positionAt(slot));
+	}
+
+	@Override
+	public IElement getRandom() {
+		if (this.count == 0) {
+			return null;
+		}
+		return this.edgeAt(Rand.rand.nextInt(this.count));
+	}
+
+	@Override
+	public Collection<IElement> getElements() {
+		return new AbstractCollection<IElement>() {
+			@Override
+			public Iterator<IElement> iterator() {
+				return DMappedEdgeList.this.iterator();
+			}
+
+			@Override
+			public int size() {
+				return DMappedEdgeList.this.count;
+			}
+		};
+	}
+
+	@Override
+	public Iterator<IElement> iterator() {
+		return new Iterator<IElement>() {
+			private int pos = 0;
+
+			@Override
+			public boolean hasNext() {
+				return this.pos < DMappedEdgeList.this.count;
+			}
+
+			@Override
+			public IElement next() {
+				if (!this.hasNext())
+					throw new NoSuchElementException();
+				return DMappedEdgeList.this.edgeAt(this.pos++);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Remove all edges and delete the backing files. The list stays usable,
+	 * new files are created once another edge is added.
+	 */
+	@Override
+	public void close() {
+		this.init(this.dataType, defaultSize);
+	}
+
+	private double weightOf(Edge element) {
+		return this.weighted ? ((IDoubleWeighted) element).getWeightAsDouble() : 0d;
+	}
+
+	private void rememberNode(Node n) {
+		Node known = this.nodes.get(n.getIndex());
+		if (known == n) {
+			return;
+		}
+		if (known != null) {
+			this.nodes.remove(known);
+		}
+		this.nodes.add(n);
+	}
+
+	/**
+	 * Create the edge stored in the record at position pos
+	 */
+	private Edge edgeAt(int pos) {
+		long key = this.records.getLong(pos, 0);
+		Node n1 = this.nodes.get((int) (key >>> 32));
+		Node n2 = this.nodes.get((int) key);
+
+		Edge e;
+		try {
+			if (this.edgeFactory == null)
+				this.edgeFactory = GraphDataStructure.constructor(this.dataType, Edge.class, Node.class, Node.class);
+			e = (Edge) this.edgeFactory.invokeExact(n1, n2);
+		} catch (Error ex) {
+			throw ex;
+		} catch (Throwable ex) {
+			throw new RuntimeException("Could not create an edge of type " + this.dataType, ex);
+		}
+		if (this.weighted) {
+			((IDoubleWeighted) e).setWeight(this.records.getDouble(pos, weightOffset));
+		}
+		return e;
+	}
+
+	/**
+	 * Make sure the records can hold the given number of edges. The capacity
+	 * is doubled until it exceeds a single segment, which is mapped again with
+	 * the new size, and from then on grows by whole segments
+	 */
+	private void ensureCapacity(int records) {
+		if (this.records != null && records <= this.capacity) {
+			return;
+		}
+
+		long newCapacity = this.capacity;
+		while (newCapacity < records) {
+			newCapacity *= 2;
+		}
+		if (this.records != null && newCapacity == this.capacity) {
+			newCapacity *= 2;
+		}
+		if (newCapacity > this.segmentSize) {
+			newCapacity = (newCapacity + this.segmentSize - 1) / this.segmentSize * this.segmentSize;
+		}
+		newCapacity = Math.min(newCapacity, Integer.MAX_VALUE - 8);
+		if (newCapacity < records) {
+			throw new RuntimeException("A mapped edge list can not store more than " + newCapacity + " edges");
+		}
+
+		if (this.records == null) {
+			this.records = new MappedRegion("dna-edges-", recordSize, this.segmentShift);
+		}
+		this.records.resize(newCapacity);
+		this.capacity = (int) newCapacity;
+	}
+
+	private MappedRegion newTable(int size) {
+		MappedRegion table = new MappedRegion("dna-edge-table-", slotSize, this.segmentShift);
+		table.resize(size);
+		return table;
+	}
+
+	/**
+	 * Drop the current mappings and their files, if there are any
+	 */
+	private void release() {
+		if (this.records != null) {
+			this.records.release();
+			this.records = null;
+		}
+		if (this.table != null) {
+			this.table.release();
+			this.table = null;
+		}
+	}
+
+	/**
+	 * @return the position of the record referenced by a used slot
+	 */
+	private int positionAt(int slot) {
+		return this.table.getInt(slot, 0) - 1;
+	}
+
+	/**
+	 * Find the slot within the hash table for a key
+	 *
+	 * @return the slot if the key is stored here, otherwise the bitwise
+	 *         complement of the free slot where it would be stored
+	 */
+	private int findSlot(long key) {
+		int slot = hash(key) & this.mask;
+		if (this.table == null) {
+			return ~slot;
+		}
+		while (true) {
+			int pos = this.table.getInt(slot, 0);
+			if (pos == 0) {
+				return ~slot;
+			}
+			if (this.records.getLong(pos - 1, 0) == key) {
+				return slot;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+	}
+
+	private void deleteSlot(int slot) {
+		int gap = slot;
+		int current = slot;
+		while (true) {
+			current = (current + 1) & this.mask;
+			int pos = this.table.getInt(current, 0);
+			if (pos == 0) {
+				break;
+			}
+			int ideal = hash(this.records.getLong(pos - 1, 0)) & this.mask;
+			if (((current - ideal) & this.mask) >= ((current - gap) & this.mask)) {
+				this.table.putInt(gap, 0, pos);
+				gap = current;
+			}
+		}
+		this.table.putInt(gap, 0, 0);
+	}
+
+	/**
+	 * Map a new, empty hash table of the given size and insert all records
+	 * into it
+	 */
+	private void rehash(int newSize) {
+		this.tableSize = newSize;
+		this.mask = newSize - 1;
+		if (this.table == null) {
+			return;
+		}
+
+		MappedRegion table = this.newTable(newSize);
+		for (int pos = 0; pos < this.count; pos++) {
+			int slot = hash(this.records.getLong(pos, 0)) & this.mask;
+			while (table.getInt(slot, 0) != 0) {
+				slot = (slot + 1) & this.mask;
+			}
+			table.putInt(slot, 0, pos + 1);
+		}
+		this.table.release();
+		this.table = table;
+	}
+
+	private static int hash(long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+	}
+
+	/**
+	 * Entries of a fixed size in a file that is mapped in segments of
+	 * 2^shift entries, as a single mapping can not exceed 2GB
+	 */
+	private static class MappedRegion {
+		private String prefix;
+		private int entrySize;
+		private int shift;
+		private int mask;
+
+		private File file;
+		private MappedByteBuffer[] segments;
+
+		public MappedRegion(String prefix, int entrySize, int shift) {
+			this.prefix = prefix;
+			this.entrySize = entrySize;
+			this.shift = shift;
+			this.mask = (1 << shift) - 1;
+		}
+
+		/**
+		 * Map the file with room for the given number of entries, which has to
+		 * be a multiple of the segment size if it exceeds a single segment.
+		 * Unchanged segments are kept, the contents stay in place as all
+		 * mappings are backed by the same file
+		 */
+		public void resize(long entries) {
+			long segmentSize = 1L << this.shift;
+			int segmentCount = (int) ((entries + segmentSize - 1) >>> this.shift);
+			MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+			try {
+				if (this.file == null) {
+					String dir = System.getProperty("dna.mappedEdgeList.dir", System.getProperty("java.io.tmpdir"));
+					this.file = File.createTempFile(this.prefix, ".bin", new File(dir));
+					this.file.deleteOnExit();
+				}
+				try (RandomAccessFile raf = new RandomAccessFile(this.file, "rw")) {
+					for (int s = 0; s < segmentCount; s++) {
+						long length = Math.min(segmentSize, entries - s * segmentSize) * this.entrySize;
+						if (this.segments != null && s < this.segments.length
+								&& this.segments[s].capacity() == length) {
+							segments[s] = this.segments[s];
+						} else {
+							segments[s] = raf.getChannel().map(FileChannel.MapMode.READ_WRITE,
+									s * segmentSize * this.entrySize, length);
+						}
+					}
+				}
+			} catch (IOException e) {
+				throw new RuntimeException("Could not map edge list file " + this.file, e);
+			}
+			this.segments = segments;
+		}
+
+		/**
+		 * Drop the mappings and delete the file
+		 */
+		public void release() {
+			this.segments = null;
+			if (this.file != null) {
+				this.file.delete();
+				this.file = null;
+			}
+		}
+
+		public long getLong(int pos, int offset) {
+			return this.segments[pos >>> this.shift].getLong((pos & this.mask) * this.entrySize + offset);
+		}
+
+		public void putLong(int pos, int offset, long value) {
+			this.segments[pos >>> this.shift].putLong((pos & this.mask) * this.entrySize + offset, value);
+		}
+
+		public double getDouble(int pos, int offset) {
+			return this.segments[pos >>> this.shift].getDouble((pos & this.mask) * this.entrySize + offset);
+		}
+
+		public void putDouble(int pos, int offset, double value) {
+			this.segments[pos >>> this.shift].putDouble((pos & this.mask) * this.entrySize + offset, value);
+		}
+
+		public int getInt(int pos, int offset) {
+			return this.segments[pos >>> this.shift].getInt((pos & this.mask) * this.entrySize + offset);
+		}
+
+		public void putInt(int pos, int offset, int value) {
+			this.segments[pos >>> this.shift].putInt((pos & this.mask) * this.entrySize + offset, value);
+		}
+	}
+}
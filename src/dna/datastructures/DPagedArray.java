@@ -0,0 +1,301 @@
+package dna.datastructures;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import dna.graph.IElement;
+import dna.graph.nodes.Node;
+import dna.util.Rand;
+
+/**
+ * Data structure to store nodes at the position of their index, like
+ * {@link DArray}, but split into pages of a fixed size that are allocated on
+ * demand.
+ *
+ * A node with index i is stored in page i >> pageBits, so growing the index
+ * space only copies the small page directory, never the stored nodes, and
+ * ranges of indices that are not used do not occupy any memory. A page that
+ * becomes empty is released from the directory, but up to maxSparePages of
+ * them are kept for reuse, so nodes that are removed and added again around
+ * a page boundary do not allocate a new page each time. The directory itself
+ * only shrinks once the highest used page falls below a quarter of its
+ * length.
+ *
+ * As in {@link DArray}, the indices of all stored nodes are kept in a dense
+ * array, so a random node can be picked in O(1).
+ *
+ * pageBits and maxSparePages are read when a list is initialized, changing
+ * them only affects lists initialized afterwards.
+ */
+public class DPagedArray extends DataStructureReadable implements INodeListDatastructureReadable {
+	public static int pageBits = 10;
+	public static int maxSparePages = 4;
+
+	private int pageShift;
+	private int pageSize;
+	private int pageMask;
+
+	private Page[] pages;
+	private Page[] spares;
+	private int spareCount;
+
+	private int[] occupied;
+	private int count;
+	private int maxNodeIndex;
+
+	/**
+	 * Nodes and their positions within the array of occupied indices for one
+	 * range of indices
+	 */
+	private static class Page {
+		private IElement[] nodes;
+		private int[] positions;
+		private int count;
+
+		public Page(int size) {
+			this.nodes = new IElement[size];
+			this.positions = new int[size];
+		}
+	}
+
+	public DPagedArray(Class<? extends IElement> dT) {
+		this.init(dT, defaultSize);
+	}
+
+	/**
+	 * Pages are allocated on demand, the initial size only determines the
+	 * size of the page directory
+	 */
+	public void init(Class<? extends IElement> dT, int initialSize) {
+		this.dataType = dT;
+		this.pageShift = pageBits;
+		this.pageSize = 1 << this.pageShift;
+		this.pageMask = this.pageSize - 1;
+		this.pages = new Page[Math.max((initialSize + this.pageMask) >> this.pageShift, 1)];
+		this.spares = new Page[maxSparePages];
+		this.spareCount = 0;
+		this.occupied = new int[initialSize];
+		this.count = 0;
+		this.maxNodeIndex = -1;
+		this.fingerprint = 0;
+	}
+
+	public boolean add(IElement element) {
+		if (element instanceof Node)
+			return this.add((Node) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	public boolean add(Node element) {
+		super.canAdd(element);
+		int index = element.getIndex();
+		int p = index >>> this.pageShift;
+
+		if (p >= this.pages.length) {
+			this.pages = Arrays.copyOf(this.pages, Math.max(this.pages.length * 2, p + 1));
+		}
+		Page page = this.pages[p];
+		if (page == null) {
+			if (this.spareCount > 0) {
+				page = this.spares[--this.spareCount];
+				this.spares[this.spareCount] = null;
+			} else {
+				page = new Page(this.pageSize);
+			}
+			this.pages[p] = page;
+		}
+
+		int offset = index & this.pageMask;
+		if (page.nodes[offset] != null) {
+			return false;
+		}
+		page.nodes[offset] = element;
+		page.count++;
+
+		if (this.count == this.occupied.length) {
+			this.occupied = Arrays.copyOf(this.occupied, this.occupied.length * 2 + 1);
+		}
+		this.occupied[this.count] = index;
+		page.positions[offset] = this.count;
+		this.count++;
+		this.fingerprint += getFingerprint(element);
+		if (index > this.maxNodeIndex) {
+			this.maxNodeIndex = index;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean contains(IElement element) {
+		if (element instanceof Node)
+			return this.contains((Node) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	public boolean contains(Node element) {
+		return this.get(element.getIndex()) != null;
+	}
+
+	public boolean remove(IElement element) {
+		if (element instanceof Node)
+			return this.remove((Node) element);
+		else
+			throw new RuntimeException("Cannot remove a non-node from a node list");
+	}
+
+	public boolean remove(Node element) {
+		int index = element.getIndex();
+		int p = index >>> this.pageShift;
+		if (p >= this.pages.length || this.pages[p] == null) {
+			return false;
+		}
+		Page page = this.pages[p];
+		int offset = index & this.pageMask;
+		if (page.nodes[offset] == null) {
+			return false;
+		}
+		page.nodes[offset] = null;
+		page.count--;
+		this.fingerprint -= getFingerprint(element);
+
+		this.count--;
+		int pos = page.positions[offset];
+		int moved = this.occupied[this.count];
+		this.occupied[pos] = moved;
+		this.pages[moved >>> this.pageShift].positions[moved & this.pageMask] = pos;
+
+		if (page.count == 0) {
+			this.pages[p] = null;
+			if (this.spareCount < this.spares.length) {
+				this.spares[this.spareCount++] = page;
+			}
+		}
+
+		if (index == this.maxNodeIndex) {
+			this.maxNodeIndex = this.findMaxNodeIndex(p);
+			int used = (this.maxNodeIndex >>> this.pageShift) + 1;
+			if (this.maxNodeIndex < 0) {
+				used = 0;
+			}
+			if (used < this.pages.length / 4) {
+				this.pages = Arrays.copyOf(this.pages, Math.max(this.pages.length / 2, 1));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Find the highest index stored in the given page or any page below
+	 */
+	private int findMaxNodeIndex(int p) {
+		for (; p >= 0; p--) {
+			Page page = this.pages[p];
+			if (page == null) {
+				continue;
+			}
+			for (int offset = this.pageMask; offset >= 0; offset--) {
+				if (page.nodes[offset] != null) {
+					return (p << this.pageShift) + offset;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int size() {
+		return this.count;
+	}
+
+	@Override
+	public IElement getRandom() {
+		if (this.count == 0) {
+			return null;
+		}
+		return this.get(this.occupied[Rand.rand.nextInt(this.count)]);
+	}
+
+	@Override
+	public Collection<IElement> getElements() {
+		return new AbstractCollection<IElement>() {
+			@Override
+			public Iterator<IElement> iterator() {
+				return DPagedArray.this.iterator();
+			}
+
+			@Override
+			public int size() {
+				return DPagedArray.this.count;
+			}
+		};
+	}
+
+	/**
+	 * Iterate over all stored nodes in the order of their indices, skipping
+	 * pages that are not allocated
+	 */
+	@Override
+	public Iterator<IElement> iterator() {
+		return new Iterator<IElement>() {
+			private int p = 0;
+			private int offset = -1;
+
+			@Override
+			public boolean hasNext() {
+				return this.advance(false) != null;
+			}
+
+			@Override
+			public IElement next() {
+				IElement next = this.advance(true);
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				return next;
+			}
+
+			private IElement advance(boolean consume) {
+				Page[] pages = DPagedArray.this.pages;
+				int p = this.p;
+				int offset = this.offset + 1;
+				for (; p < pages.length; p++, offset = 0) {
+					if (pages[p] == null) {
+						continue;
+					}
+					for (; offset < pages[p].nodes.length; offset++) {
+						if (pages[p].nodes[offset] != null) {
+							if (consume) {
+								this.p = p;
+								this.offset = offset;
+							}
+							return pages[p].nodes[offset];
+						}
+					}
+				}
+				return null;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	@Override
+	public Node get(int index) {
+		int p = index >>> this.pageShift;
+		if (p >= this.pages.length || this.pages[p] == null) {
+			return null;
+		}
+		return (Node) this.pages[p].nodes[index & this.pageMask];
+	}
+
+	@Override
+	public int getMaxNodeIndex() {
+		return this.maxNodeIndex;
+	}
+}
@@ -0,0 +1,212 @@
+package dna.datastructures;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+
+import dna.datastructures.DataStructureProfile.Operation;
+import dna.graph.IElement;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.Node;
+
+/**
+ * Decorator that counts and times all calls to another data structure and
+ * records them in a {@link DataStructureProfile}. Iterations are timed per
+ * returned element, also for iterations over getElements().
+ *
+ * Use {@link GraphDataStructure#setProfiled(GraphDataStructure.ListType, boolean)}
+ * to wrap all lists of a slot, which then share one profile.
+ */
+public class DProfiled extends DataStructureReadable implements INodeListDatastructureReadable,
+		IEdgeListDatastructureReadable {
+	private IDataStructure list;
+	private DataStructureProfile profile;
+
+	public DProfiled(Class<? extends IElement> dT, IDataStructure list, DataStructureProfile profile) {
+		this.dataType = dT;
+		this.list = list;
+		this.profile = profile;
+	}
+
+	public void init(Class<? extends IElement> dT, int initialSize) {
+		this.dataType = dT;
+		this.list.init(dT, initialSize);
+	}
+
+	/**
+	 * Retrieve the data structure that is decorated by this profiler
+	 *
+	 * @return
+	 */
+	public IDataStructure getWrapped() {
+		return this.list;
+	}
+
+	public DataStructureProfile getProfile() {
+		return this.profile;
+	}
+
+	@Override
+	public boolean add(IElement element) {
+		long start = System.nanoTime();
+		boolean res = this.list.add(element);
+		this.profile.record(Operation.Add, System.nanoTime() - start);
+		return res;
+	}
+
+	@Override
+	public boolean add(Node element) {
+		return this.add((IElement) element);
+	}
+
+	@Override
+	public boolean add(Edge element) {
+		return this.add((IElement) element);
+	}
+
+	@Override
+	public boolean contains(IElement element) {
+		long start = System.nanoTime();
+		boolean res = this.list.contains(element);
+		this.profile.record(Operation.Contains, System.nanoTime() - start);
+		return res;
+	}
+
+	@Override
+	public boolean contains(Node element) {
+		return this.contains((IElement) element);
+	}
+
+	@Override
+	public boolean contains(Edge element) {
+		return this.contains((IElement) element);
+	}
+
+	@Override
+	public boolean contains(int src, int dst) {
+		long start = System.nanoTime();
+		boolean res = ((IEdgeListDatastructure) this.list).contains(src, dst);
+		this.profile.record(Operation.Contains, System.nanoTime() - start);
+		return res;
+	}
+
+	@Override
+	public boolean remove(IElement element) {
+		long start = System.nanoTime();
+		boolean res = this.list.remove(element);
+		this.profile.record(Operation.Remove, System.nanoTime() - start);
+		return res;
+	}
+
+	@Override
+	public boolean remove(Node element) {
+		return this.remove((IElement) element);
+	}
+
+	@Override
+	public boolean remove(Edge element) {
+		return this.remove((IElement) element);
+	}
+
+	@Override
+	public int size() {
+		return this.list.size();
+	}
+
+	@Override
+	public long getFingerprint() {
+		return this.list.getFingerprint();
+	}
+
+	@Override
+	public int getMaxNodeIndex() {
+		return ((INodeListDatastructure) this.list).getMaxNodeIndex();
+	}
+
+	@Override
+	public Node get(int index) {
+		long start = System.nanoTime();
+		Node res = ((INodeListDatastructureReadable) this.readable()).get(index);
+		this.profile.record(Operation.Get, System.nanoTime() - start);
+		return res;
+	}
+
+	@Override
+	public Edge get(Edge element) {
+		long start = System.nanoTime();
+		Edge res = ((IEdgeListDatastructureReadable) this.readable()).get(element);
+		this.profile.record(Operation.Get, System.nanoTime() - start);
+		return res;
+	}
+
+	@Override
+	public Edge get(int src, int dst) {
+		long start = System.nanoTime();
+		Edge res = ((IEdgeListDatastructureReadable) this.readable()).get(src, dst);
+		this.profile.record(Operation.Get, System.nanoTime() - start);
+		return res;
+	}
+
+	@Override
+	public IElement getRandom() {
+		long start = System.nanoTime();
+		IElement res = this.readable().getRandom();
+		this.profile.record(Operation.GetRandom, System.nanoTime() - start);
+		return res;
+	}
+
+	@Override
+	public Collection<IElement> getElements() {
+		final Collection<IElement> elements = this.readable().getElements();
+		return new AbstractCollection<IElement>() {
+			@Override
+			public Iterator<IElement> iterator() {
+				return DProfiled.this.profiledIterator(elements.iterator());
+			}
+
+			@Override
+			public int size() {
+				return elements.size();
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterator<IElement> iterator() {
+		return this.profiledIterator(this.list.iterator());
+	}
+
+	@Override
+	public boolean canStore(Class<? extends IElement> o) {
+		return this.list.canStore(o);
+	}
+
+	private Iterator<IElement> profiledIterator(final Iterator<IElement> wrapped) {
+		return new Iterator<IElement>() {
+			@Override
+			public boolean hasNext() {
+				return wrapped.hasNext();
+			}
+
+			@Override
+			public IElement next() {
+				long start = System.nanoTime();
+				IElement res = wrapped.next();
+				DProfiled.this.profile.record(Operation.Iterate, System.nanoTime() - start);
+				return res;
+			}
+
+			@Override
+			public void remove() {
+				wrapped.remove();
+			}
+		};
+	}
+
+	private IReadable readable() {
+		if (!(this.list instanceof IReadable))
+			throw new RuntimeException("Wrapped data structure " + this.list.getClass().getName() + " is not readable");
+		return (IReadable) this.list;
+	}
+}
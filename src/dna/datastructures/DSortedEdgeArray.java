@@ -0,0 +1,305 @@
+package dna.datastructures;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import dna.graph.IElement;
+import dna.graph.edges.Edge;
+import dna.util.Rand;
+
+/**
+ * Data structure to store edges sorted by the indices of the nodes they
+ * connect. The indices of both nodes are packed into a primitive long (as in
+ * {@link DLongHashMap}) and kept in a sorted array, so contains, get and remove
+ * are a binary search over primitives. Adding and removing shift all
+ * following entries, so this is meant to be used as node edge list.
+ *
+ * All edges stored for a node share this node's index, and undirected edges
+ * always store the node with the lower index first. Sorting by the packed
+ * indices therefore sorts the edges of a node by the index of the node at
+ * their other end. This allows to intersect the adjacency of two nodes by
+ * merging both arrays in O(d1 + d2), see {@link #intersect(int, DSortedEdgeArray, int)}.
+ */
+public class DSortedEdgeArray extends DataStructureReadable implements IEdgeListDatastructureReadable {
+	private long[] keys;
+	private Edge[] values;
+	private int count;
+
+	public DSortedEdgeArray(Class<? extends IElement> dT) {
+		this.init(dT, defaultSize);
+	}
+
+	public void init(Class<? extends IElement> dT, int initialSize) {
+		this.dataType = dT;
+		this.keys = new long[Math.max(initialSize, 1)];
+		this.values = new Edge[Math.max(initialSize, 1)];
+		this.count = 0;
+		this.fingerprint = 0;
+	}
+
+	public boolean add(IElement element) {
+		if (element instanceof Edge)
+			return this.add((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	public boolean add(Edge element) {
+		super.canAdd(element);
+
+		long key = Edge.getKey(element);
+		int pos = this.find(key);
+		if (pos >= 0) {
+			return false;
+		}
+		pos = ~pos;
+
+		if (this.count == this.keys.length) {
+			int newLength = this.keys.length + (this.keys.length >> 1) + 1;
+			this.keys = Arrays.copyOf(this.keys, newLength);
+			this.values = Arrays.copyOf(this.values, newLength);
+		}
+
+		System.arraycopy(this.keys, pos, this.keys, pos + 1, this.count - pos);
+		System.arraycopy(this.values, pos, this.values, pos + 1, this.count - pos);
+		this.keys[pos] = key;
+		this.values[pos] = element;
+		this.count++;
+		this.fingerprint += getFingerprint(element);
+		return true;
+	}
+
+	@Override
+	public boolean contains(IElement element) {
+		if (element instanceof Edge)
+			return this.contains((Edge) element);
+		throw new RuntimeException("Can't handle element of type " + element.getClass() + " here");
+	}
+
+	@Override
+	public boolean contains(Edge element) {
+		return this.find(Edge.getKey(element)) >= 0;
+	}
+
+	@Override
+	public boolean remove(IElement element) {
+		if (element instanceof Edge)
+			return this.remove((Edge) element);
+		else
+			throw new RuntimeException("Cannot remove a non-edge from an edge list");
+	}
+
+	@Override
+	public boolean remove(Edge element) {
+		int pos = this.find(Edge.getKey(element));
+		if (pos < 0) {
+			return false;
+		}
+		System.arraycopy(this.keys, pos + 1, this.keys, pos, this.count - pos - 1);
+		System.arraycopy(this.values, pos + 1, this.values, pos, this.count - pos - 1);
+		this.count--;
+		this.fingerprint -= getFingerprint(element);
+		this.values[this.count] = null;
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return this.count;
+	}
+
+	public Edge get(Edge e) {
+		int pos = this.find(Edge.getKey(e));
+		if (pos < 0) {
+			return null;
+		}
+		return this.values[pos];
+	}
+
+	@Override
+	public boolean contains(int src, int dst) {
+		return this.find(Edge.getKey(this.dataType, src, dst)) >= 0;
+	}
+
+	public Edge get(int src, int dst) {
+		int pos = this.find(Edge.getKey(this.dataType, src, dst));
+		if (pos < 0) {
+			return null;
+		}
+		return this.values[pos];
+	}
+
+	@Override
+	public IElement getRandom() {
+		if (this.count == 0) {
+			return null;
+		}
+		return this.values[Rand.rand.nextInt(this.count)];
+	}
+
+	/**
+	 * Retrieve the indices of the nodes at the other end of all stored edges,
+	 * in ascending order
+	 *
+	 * @param owner
+	 *            index of the node all stored edges are connected to
+	 * @return
+	 */
+	public int[] getNeighbors(int owner) {
+		int[] res = new int[this.count];
+		for (int i = 0; i < this.count; i++) {
+			res[i] = neighbor(this.keys[i], owner);
+		}
+		return res;
+	}
+
+	/**
+	 * Check whether an edge between the owner of this list and another node is
+	 * stored here, regardless of the direction of this edge
+	 *
+	 * @param owner
+	 *            index of the node all stored edges are connected to
+	 * @param neighbor
+	 * @return
+	 */
+	public boolean containsNeighbor(int owner, int neighbor) {
+		int pos = this.find(Edge.getKey(owner, neighbor));
+		if (pos < 0)
+			pos = this.find(Edge.getKey(neighbor, owner));
+		return pos >= 0;
+	}
+
+	/**
+	 * Retrieve the indices of all nodes that are adjacent to the owner of this
+	 * list as well as to the owner of another list, by merging both sorted
+	 * lists
+	 *
+	 * @param owner
+	 *            index of the node all edges of this list are connected to
+	 * @param that
+	 *            list to intersect with
+	 * @param thatOwner
+	 *            index of the node all edges of the other list are connected to
+	 * @return indices of the common neighbors in ascending order
+	 */
+	public int[] intersect(int owner, DSortedEdgeArray that, int thatOwner) {
+		int[] res = new int[Math.min(this.count, that.count)];
+		int found = 0;
+		int i = 0, j = 0;
+		while (i < this.count && j < that.count) {
+			int a = neighbor(this.keys[i], owner);
+			int b = neighbor(that.keys[j], thatOwner);
+			if (a < b) {
+				i++;
+			} else if (a > b) {
+				j++;
+			} else {
+				res[found++] = a;
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(res, found);
+	}
+
+	/**
+	 * Count the nodes that are adjacent to the owner of this list as well as to
+	 * the owner of another list, without collecting them (see
+	 * {@link #intersect(int, DSortedEdgeArray, int)})
+	 *
+	 * @param owner
+	 * @param that
+	 * @param thatOwner
+	 * @return
+	 */
+	public int countCommonNeighbors(int owner, DSortedEdgeArray that, int thatOwner) {
+		int common = 0;
+		int i = 0, j = 0;
+		while (i < this.count && j < that.count) {
+			int a = neighbor(this.keys[i], owner);
+			int b = neighbor(that.keys[j], thatOwner);
+			if (a < b) {
+				i++;
+			} else if (a > b) {
+				j++;
+			} else {
+				common++;
+				i++;
+				j++;
+			}
+		}
+		return common;
+	}
+
+	@Override
+	public Collection<IElement> getElements() {
+		return new AbstractCollection<IElement>() {
+			@Override
+			public Iterator<IElement> iterator() {
+				return DSortedEdgeArray.this.iterator();
+			}
+
+			@Override
+			public int size() {
+				return DSortedEdgeArray.this.count;
+			}
+		};
+	}
+
+	@Override
+	public Iterator<IElement> iterator() {
+		return new Iterator<IElement>() {
+			private int pos = 0;
+
+			@Override
+			public boolean hasNext() {
+				return this.pos < DSortedEdgeArray.this.count;
+			}
+
+			@Override
+			public IElement next() {
+				if (!this.hasNext())
+					throw new NoSuchElementException();
+				return DSortedEdgeArray.this.values[this.pos++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Binary search for a key
+	 *
+	 * @param key
+	 * @return the position of the key if it is stored here, otherwise the
+	 *         bitwise complement of the position where it would be inserted
+	 */
+	private int find(long key) {
+		int low = 0;
+		int high = this.count - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long midKey = this.keys[mid];
+			if (midKey < key)
+				low = mid + 1;
+			else if (midKey > key)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return ~low;
+	}
+
+	/**
+	 * Unpack the index of the node at the other end of an edge
+	 */
+	private static int neighbor(long key, int owner) {
+		int n1 = (int) (key >>> 32);
+		return n1 == owner ? (int) key : n1;
+	}
+}
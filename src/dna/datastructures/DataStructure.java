@@ -1,6 +1,10 @@
 package dna.datastructures;
 
 import dna.graph.IElement;
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.Edge;
+import dna.graph.edges.UndirectedEdge;
+import dna.graph.nodes.Node;
 
 /**
  * Base class for storing IElements
@@ -13,10 +17,73 @@ public abstract class DataStructure implements IDataStructure {
 	protected int size;
 	protected final int defaultSize = 10;
 
+	/**
+	 * Sum of the fingerprints of all stored elements, see
+	 * {@link #getFingerprint()}. Has to be reset within init(), and updated on
+	 * every successful add and remove
+	 */
+	protected long fingerprint;
+
 	public void reinitializeWithSize(int size) {
 		this.init(this.dataType, size);
 	}
 
+	public long getFingerprint() {
+		return this.fingerprint;
+	}
+
+	/**
+	 * Compute the fingerprint of a single element from the fields its
+	 * equality is based on: the index of a node, or the indices of the nodes
+	 * connected by an edge. Weights are not included, as they may change
+	 * while an element is stored. Elements of any other structure fall back
+	 * to their hashCode()
+	 * 
+	 * @param element
+	 * @return
+	 */
+	public static long getFingerprint(IElement element) {
+		if (element instanceof Node)
+			return mix(((Node) element).getIndex());
+		if (element instanceof DirectedEdge) {
+			DirectedEdge d = (DirectedEdge) element;
+			if (d.getSrc() != null && d.getDst() != null)
+				return mix(Edge.getKey(d.getSrc().getIndex(), d.getDst().getIndex()));
+		} else if (element instanceof UndirectedEdge) {
+			UndirectedEdge u = (UndirectedEdge) element;
+			if (u.getNode1() != null && u.getNode2() != null)
+				return mix(Edge.getKey(u.getNode1().getIndex(), u.getNode2().getIndex()));
+		}
+		return mix(element.hashCode());
+	}
+
+	/**
+	 * Spread the bits of a key over the whole fingerprint (finalizer of
+	 * MurmurHash3), so that sums of fingerprints rarely collide
+	 */
+	private static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+	/**
+	 * Add an element that is known not to be stored here yet. Data structures
+	 * that need to search for an element before adding it (eg. to avoid
+	 * duplicates in lists) can skip that search here, which keeps filling a
+	 * list with many distinct elements (e.g. in benchmarks) from taking
+	 * quadratic time
+	 * 
+	 * @param element
+	 * @return true, if addition succeeded
+	 */
+	public boolean addNew(IElement element) {
+		return this.add(element);
+	}
+
 	public boolean canAdd(IElement element) {
 		if (!dataType.isInstance(element))
 			throw new RuntimeException("Datatype to be stored here: " + dataType.getName()
@@ -38,6 +105,8 @@ public abstract class DataStructure implements IDataStructure {
 			return true;
 
 		if (this instanceof IReadable) {
+			if (thatCasted instanceof IReadable && this.getFingerprint() != thatCasted.getFingerprint())
+				return false;
 			return ((IReadable) this).dataEquals((IReadable) thatCasted);
 		} else {
 			return true;
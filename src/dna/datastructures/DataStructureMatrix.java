@@ -0,0 +1,76 @@
+package dna.datastructures;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import dna.graph.edges.DirectedDoubleWeightedEdge;
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.Edge;
+import dna.graph.edges.UndirectedDoubleWeightedEdge;
+import dna.graph.edges.UndirectedEdge;
+import dna.graph.nodes.DirectedDoubleWeightedNode;
+import dna.graph.nodes.DirectedNode;
+import dna.graph.nodes.Node;
+import dna.graph.nodes.UndirectedDoubleWeightedNode;
+import dna.graph.nodes.UndirectedNode;
+
+/**
+ * All list types and element types that can be combined into a graph, as
+ * checked by the tests, measured by the benchmarks and tried by the
+ * {@link dna.io.TraceReplayer}. A new list type only needs to be added here.
+ */
+public class DataStructureMatrix {
+	public static final Class<?>[] listTypes = { DArrayList.class, DArray.class, DHashSet.class, DHashMap.class,
+			DLinkedList.class, DIntHashMap.class, DLongHashMap.class, DSortedEdgeArray.class, DConcurrentArray.class,
+			DConcurrentHashSet.class, DAdaptive.class, DPagedArray.class, DMappedEdgeList.class };
+
+	public static final Class<?>[] nodeTypes = { DirectedNode.class, DirectedDoubleWeightedNode.class,
+			UndirectedNode.class, UndirectedDoubleWeightedNode.class };
+
+	public static final Class<?>[] elementTypes = { DirectedNode.class, DirectedDoubleWeightedNode.class,
+			UndirectedNode.class, UndirectedDoubleWeightedNode.class, UndirectedEdge.class,
+			UndirectedDoubleWeightedEdge.class, DirectedEdge.class, DirectedDoubleWeightedEdge.class };
+
+	/**
+	 * Check whether elements of the given type can be stored in the given list
+	 * type
+	 */
+	public static boolean canStore(Class<?> listType, Class<?> elementType) {
+		if (Node.class.isAssignableFrom(elementType))
+			return INodeListDatastructure.class.isAssignableFrom(listType);
+		if (Edge.class.isAssignableFrom(elementType))
+			return IEdgeListDatastructure.class.isAssignableFrom(listType);
+		return false;
+	}
+
+	/**
+	 * Check whether the given list type can be used for the edges of a single
+	 * node. A {@link DMappedEdgeList} can not, as every node would get its own
+	 * mapped file
+	 */
+	public static boolean isNodeEdgeListType(Class<?> listType) {
+		return IEdgeListDatastructure.class.isAssignableFrom(listType) && listType != DMappedEdgeList.class;
+	}
+
+	/**
+	 * Check whether the given list type hands out the stored instances. A
+	 * {@link DMappedEdgeList} creates a new, equal edge from its record instead
+	 */
+	public static boolean storesInstances(Class<?> listType) {
+		return listType != DMappedEdgeList.class;
+	}
+
+	/**
+	 * Retrieve all pairs of a list type and an element type it can store
+	 */
+	public static List<Class<?>[]> listElementPairs() {
+		List<Class<?>[]> pairs = new ArrayList<>();
+		for (Class<?> listType : listTypes) {
+			for (Class<?> elementType : elementTypes) {
+				if (canStore(listType, elementType))
+					pairs.add(new Class<?>[] { listType, elementType });
+			}
+		}
+		return pairs;
+	}
+}
@@ -0,0 +1,119 @@
+package dna.datastructures;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Invocation counts and latency histograms for the operations on all lists of
+ * one slot of a {@link GraphDataStructure}, recorded by {@link DProfiled}.
+ * Latencies are collected in buckets of powers of two: bucket b holds all
+ * calls that took at least 2^(b-1) and less than 2^b nanoseconds.
+ *
+ * All counters are atomic, so lists used from several threads can share a
+ * profile.
+ */
+public class DataStructureProfile {
+	public enum Operation {
+		Add, Contains, Remove, Get, GetRandom, Iterate
+	}
+
+	private static final int buckets = 64;
+
+	private String label;
+	private AtomicLongArray counts;
+	private AtomicLongArray nanos;
+	private AtomicLongArray histograms;
+
+	public DataStructureProfile(String label) {
+		this.label = label;
+		this.reset();
+	}
+
+	public String getLabel() {
+		return this.label;
+	}
+
+	public void reset() {
+		int operations = Operation.values().length;
+		this.counts = new AtomicLongArray(operations);
+		this.nanos = new AtomicLongArray(operations);
+		this.histograms = new AtomicLongArray(operations * buckets);
+	}
+
+	public void record(Operation op, long duration) {
+		int bucket = duration <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(duration);
+		this.counts.incrementAndGet(op.ordinal());
+		this.nanos.addAndGet(op.ordinal(), duration);
+		this.histograms.incrementAndGet(op.ordinal() * buckets + Math.min(bucket, buckets - 1));
+	}
+
+	public long getCount(Operation op) {
+		return this.counts.get(op.ordinal());
+	}
+
+	public long getTotalNanos(Operation op) {
+		return this.nanos.get(op.ordinal());
+	}
+
+	/**
+	 * Retrieve the number of calls per latency bucket
+	 *
+	 * @param op
+	 * @return
+	 */
+	public long[] getHistogram(Operation op) {
+		long[] res = new long[buckets];
+		for (int i = 0; i < buckets; i++) {
+			res[i] = this.histograms.get(op.ordinal() * buckets + i);
+		}
+		return res;
+	}
+
+	/**
+	 * Estimate a percentile of the latency from the histogram
+	 *
+	 * @param op
+	 * @param percentile
+	 *            between 0 and 1
+	 * @return the upper bound of the bucket the percentile falls into, in
+	 *         nanoseconds
+	 */
+	public long getPercentile(Operation op, double percentile) {
+		long[] histogram = this.getHistogram(op);
+		long total = 0;
+		for (long c : histogram) {
+			total += c;
+		}
+		long seen = 0;
+		for (int i = 0; i < buckets; i++) {
+			seen += histogram[i];
+			if (seen > 0 && seen >= percentile * total) {
+				return i == 0 ? 0 : (1L << Math.min(i, 62));
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Summarize all operations that have been called at least once, one line
+	 * per operation
+	 *
+	 * @return
+	 */
+	public String report() {
+		StringBuilder sb = new StringBuilder();
+		for (Operation op : Operation.values()) {
+			long count = this.getCount(op);
+			if (count == 0)
+				continue;
+			sb.append(this.label).append(" ").append(op).append(": ").append(count).append(" calls, avg ")
+					.append(this.getTotalNanos(op) / count).append("ns, p50 < ")
+					.append(this.getPercentile(op, 0.5)).append("ns, p99 < ").append(this.getPercentile(op, 0.99))
+					.append("ns\n");
+		}
+		return sb.toString();
+	}
+
+	public String toString() {
+		return this.report();
+	}
+}
@@ -1,5 +1,7 @@
 package dna.datastructures;
 
+import java.util.HashMap;
+
 import dna.graph.IElement;
 
 /**
@@ -18,6 +20,12 @@ public abstract class DataStructureReadable extends DataStructure implements IRe
 		return false;
 	}
 
+	/**
+	 * Check whether both data structures store equal elements, including
+	 * fields that are not part of the common equality (like weights). The
+	 * elements of the other data structure are hashed first, so this takes
+	 * linear time
+	 */
 	public boolean dataEquals(IReadable that) {
 		if (this.size() != that.size())
 			return false;
@@ -25,14 +33,22 @@ public abstract class DataStructureReadable extends DataStructure implements IRe
 
 		if (this.size() == 0)
 			return true;
+		if (this.getFingerprint() != that.getFingerprint())
+			return false;
+
+		HashMap<IElement, IElement> thatElements = new HashMap<>(2 * that.size());
+		for (IElement thatElement : that.getElements()) {
+			if (thatElement != null)
+				thatElements.put(thatElement, thatElement);
+		}
 
 		for (IElement thisElement : this.getElements()) {
-			for (IElement thatElement : that.getElements()) {
-				if (thisElement == null || thatElement == null)
-					continue;
-				if (thisElement.equals(thatElement) && thisElement.deepEquals(thatElement))
-					checkedAndFound++;
-			}
+			if (thisElement == null)
+				continue;
+			IElement thatElement = thatElements.get(thisElement);
+			if (thatElement == null || !thisElement.deepEquals(thatElement))
+				return false;
+			checkedAndFound++;
 		}
 
 		return checkedAndFound == this.size();
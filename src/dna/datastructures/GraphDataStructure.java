@@ -1,12 +1,18 @@
 package dna.datastructures;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import dna.graph.Graph;
+import dna.graph.IElement;
 import dna.graph.edges.DirectedEdge;
 import dna.graph.edges.Edge;
 import dna.graph.nodes.Node;
+import dna.io.TraceRecorder;
 import dna.io.etc.Keywords;
 
 /**
@@ -14,15 +20,41 @@ import dna.io.etc.Keywords;
  * graph type (eg. dna.graph, ReadableGraph), the storages within a graph for edges
  * and nodes, and the node type and the resulting edge type
  * 
+ * The constructors of all these types are looked up only once and kept as
+ * method handles, so creating nodes, edges and lists does not go through
+ * reflection every time
+ * 
  * @author Nico
  * 
  */
 public class GraphDataStructure {
+	/**
+	 * The different kinds of lists that are created through this class
+	 */
+	public enum ListType {
+		NodeList, GraphEdgeList, NodeEdgeList
+	}
+
 	private Class<? extends INodeListDatastructure> nodeListType;
 	private Class<? extends IEdgeListDatastructure> graphEdgeListType;
 	private Class<? extends IEdgeListDatastructure> nodeEdgeListType;
 	private Class<? extends Node> nodeType;
 	private Class<? extends Edge> edgeType;
+	private EnumSet<ListType> filtered = EnumSet.noneOf(ListType.class);
+	private EnumMap<ListType, DataStructureProfile> profiles = new EnumMap<>(ListType.class);
+	private boolean lazyNodeLists = false;
+	private boolean bitmapNeighbors = false;
+	private TraceRecorder traceRecorder;
+
+	private MethodHandle nodeListFactory;
+	private MethodHandle graphEdgeListFactory;
+	private MethodHandle nodeEdgeListFactory;
+	private MethodHandle nodeFactory;
+	private MethodHandle nodeFromStringFactory;
+	private MethodHandle edgeFactory;
+	private MethodHandle edgeFromStringFactory;
+
+	private static final ConcurrentHashMap<String, Class<?>> classes = new ConcurrentHashMap<>();
 
 	@SuppressWarnings("unchecked")
 	public GraphDataStructure(Class<? extends INodeListDatastructure> nodeListType,
@@ -38,10 +70,10 @@ public class GraphDataStructure {
 	public GraphDataStructure(String gdsString) {
 		String splitted[] = gdsString.split(Keywords.classDelimiter);
 		try {
-			this.nodeListType = (Class<? extends INodeListDatastructure>) Class.forName(splitted[0]);
-			this.graphEdgeListType = (Class<? extends IEdgeListDatastructure>) Class.forName(splitted[1]);
-			this.nodeEdgeListType = (Class<? extends IEdgeListDatastructure>) Class.forName(splitted[2]);
-			this.nodeType = (Class<? extends Node>) Class.forName(splitted[3]);
+			this.nodeListType = (Class<? extends INodeListDatastructure>) classForName(splitted[0]);
+			this.graphEdgeListType = (Class<? extends IEdgeListDatastructure>) classForName(splitted[1]);
+			this.nodeEdgeListType = (Class<? extends IEdgeListDatastructure>) classForName(splitted[2]);
+			this.nodeType = (Class<? extends Node>) classForName(splitted[3]);
 		} catch (ClassNotFoundException | ClassCastException e) {
 			e.printStackTrace();
 		}
@@ -112,6 +144,8 @@ public class GraphDataStructure {
 
 	public void setNodeType(Class<? extends Node> newNodeType) {
 		this.nodeType = newNodeType;
+		this.nodeFactory = null;
+		this.nodeFromStringFactory = null;
 
 		try {
 			Class<? extends Edge> eT = (Class<? extends Edge>) nodeType.getField("edgeType").get(null);
@@ -123,6 +157,124 @@ public class GraphDataStructure {
 
 	public void setEdgeType(Class<? extends Edge> edgeType) {
 		this.edgeType = edgeType;
+		this.edgeFactory = null;
+		this.edgeFromStringFactory = null;
+	}
+
+	/**
+	 * Enable or disable wrapping all newly created lists of the given type into
+	 * a {@link DFiltered}, which answers most checks for elements that are not
+	 * stored without searching the list itself
+	 * 
+	 * @param type
+	 * @param filtered
+	 */
+	public void setFiltered(ListType type, boolean filtered) {
+		if (filtered)
+			this.filtered.add(type);
+		else
+			this.filtered.remove(type);
+	}
+
+	public boolean isFiltered(ListType type) {
+		return this.filtered.contains(type);
+	}
+
+	/**
+	 * Enable or disable wrapping all newly created lists of the given type into
+	 * a {@link DProfiled}. All lists of one type record their calls into the
+	 * same profile, see {@link #getProfile(ListType)}
+	 * 
+	 * @param type
+	 * @param profiled
+	 */
+	public void setProfiled(ListType type, boolean profiled) {
+		if (!profiled)
+			this.profiles.remove(type);
+		else if (!this.profiles.containsKey(type))
+			this.profiles.put(type, new DataStructureProfile(type.toString()));
+	}
+
+	public boolean isProfiled(ListType type) {
+		return this.profiles.containsKey(type);
+	}
+
+	/**
+	 * Retrieve the profile shared by all lists of a type
+	 * 
+	 * @param type
+	 * @return the profile, or null if lists of this type are not profiled
+	 */
+	public DataStructureProfile getProfile(ListType type) {
+		return this.profiles.get(type);
+	}
+
+	/**
+	 * Summarize the profiles of all profiled list types
+	 * 
+	 * @return
+	 */
+	public String getProfilingReport() {
+		StringBuilder sb = new StringBuilder();
+		for (DataStructureProfile profile : this.profiles.values()) {
+			sb.append(profile.report());
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Enable or disable lazy creation of the edge and neighbor lists within
+	 * nodes: if enabled, nodes share {@link DEmpty#instance} for all their
+	 * lists until they store the first element in one of them. This saves
+	 * memory for graphs with many isolated nodes or nodes of low degree
+	 * 
+	 * @param lazyNodeLists
+	 */
+	public void setLazyNodeLists(boolean lazyNodeLists) {
+		this.lazyNodeLists = lazyNodeLists;
+	}
+
+	public boolean isLazyNodeLists() {
+		return this.lazyNodeLists;
+	}
+
+	/**
+	 * Enable or disable storing the neighbors of directed nodes as a
+	 * {@link BitmapIndexSet}: only their indices are kept, the neighbors
+	 * themselves are found through the outgoing edges. This takes about two
+	 * bytes per neighbor and counts common neighbors by intersecting bitmaps,
+	 * but requires a node edge list type that is
+	 * {@link IEdgeListDatastructureReadable} to iterate the neighbors
+	 * 
+	 * @param bitmapNeighbors
+	 */
+	public void setBitmapNeighbors(boolean bitmapNeighbors) {
+		this.bitmapNeighbors = bitmapNeighbors;
+	}
+
+	public boolean isBitmapNeighbors() {
+		return this.bitmapNeighbors;
+	}
+
+	/**
+	 * Record all operations on graphs and nodes created by this data
+	 * structure into a trace, which can be replayed by the
+	 * {@link dna.io.TraceReplayer}
+	 * 
+	 * @param traceRecorder
+	 *            recorder to use, or null to stop recording
+	 */
+	public void setTraceRecorder(TraceRecorder traceRecorder) {
+		this.traceRecorder = traceRecorder;
+	}
+
+	/**
+	 * Retrieve the recorder for operations on graphs and nodes
+	 * 
+	 * @return the recorder, or null if no operations are recorded
+	 */
+	public TraceRecorder getTraceRecorder() {
+		return this.traceRecorder;
 	}
 
 	public Graph newGraphInstance(String name, long timestamp, int nodes, int edges) {
@@ -132,84 +284,135 @@ public class GraphDataStructure {
 	public INodeListDatastructure newNodeList() {
 		INodeListDatastructure res = null;
 		try {
-			res = (INodeListDatastructure) nodeListType.getConstructor(nodeType.getClass()).newInstance(nodeType);
-		} catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException
-				| NoSuchMethodException | SecurityException e) {
+			if (this.nodeListFactory == null)
+				this.nodeListFactory = constructor(nodeListType, INodeListDatastructure.class, Class.class);
+			res = (INodeListDatastructure) this.nodeListFactory.invokeExact((Class) nodeType);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
 			e.printStackTrace();
 		}
-		return res;
+		return (INodeListDatastructure) this.decorate(ListType.NodeList, nodeType, res);
 	}
 
 	public IEdgeListDatastructure newGraphEdgeList() {
 		IEdgeListDatastructure res = null;
 		try {
-			res = graphEdgeListType.getConstructor(edgeType.getClass()).newInstance(edgeType);
-		} catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException
-				| NoSuchMethodException | SecurityException e) {
+			if (this.graphEdgeListFactory == null)
+				this.graphEdgeListFactory = constructor(graphEdgeListType, IEdgeListDatastructure.class, Class.class);
+			res = (IEdgeListDatastructure) this.graphEdgeListFactory.invokeExact((Class) edgeType);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
 			e.printStackTrace();
 		}
-		return res;
+		return (IEdgeListDatastructure) this.decorate(ListType.GraphEdgeList, edgeType, res);
 	}
 
 	public IEdgeListDatastructure newNodeEdgeList() {
 		IEdgeListDatastructure res = null;
 		try {
-			res = nodeEdgeListType.getConstructor(edgeType.getClass()).newInstance(edgeType);
-		} catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException
-				| NoSuchMethodException | SecurityException e) {
+			if (this.nodeEdgeListFactory == null)
+				this.nodeEdgeListFactory = constructor(nodeEdgeListType, IEdgeListDatastructure.class, Class.class);
+			res = (IEdgeListDatastructure) this.nodeEdgeListFactory.invokeExact((Class) edgeType);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
 			e.printStackTrace();
 		}
-		return res;
+		return (IEdgeListDatastructure) this.decorate(ListType.NodeEdgeList, edgeType, res);
+	}
+
+	/**
+	 * Wrap a newly created list into the decorators enabled for its type
+	 */
+	private IDataStructure decorate(ListType type, Class<? extends IElement> dT, IDataStructure list) {
+		if (list == null)
+			return null;
+		if (this.isFiltered(type))
+			list = new DFiltered(dT, list);
+		if (this.isProfiled(type))
+			list = new DProfiled(dT, list, this.getProfile(type));
+		return list;
 	}
 
 	public Node newNodeInstance(int index) {
-		Constructor<? extends Node> c;
 		try {
-			c = nodeType.getConstructor(int.class, GraphDataStructure.class);
-			return c.newInstance(index, this);
-		} catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
-				| IllegalArgumentException | InvocationTargetException e) {
+			if (this.nodeFactory == null)
+				this.nodeFactory = constructor(nodeType, Node.class, int.class, GraphDataStructure.class);
+			return (Node) this.nodeFactory.invokeExact(index, this);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
 			e.printStackTrace();
 		}
 		throw new RuntimeException("Could not generate new node instance");
 	}
 
 	public Node newNodeInstance(String str) {
-		Constructor<? extends Node> c;
 		try {
-			c = nodeType.getConstructor(String.class, GraphDataStructure.class);
-			return c.newInstance(str, this);
-		} catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
-				| IllegalArgumentException | InvocationTargetException e) {
+			if (this.nodeFromStringFactory == null)
+				this.nodeFromStringFactory = constructor(nodeType, Node.class, String.class, GraphDataStructure.class);
+			return (Node) this.nodeFromStringFactory.invokeExact(str, this);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
 			e.printStackTrace();
 		}
 		throw new RuntimeException("Could not generate new node instance");
 	}
 
 	public Edge newEdgeInstance(Node src, Node dst) {
-		Constructor<? extends Edge> c;
 		try {
-			c = edgeType.getConstructor(Node.class, Node.class);
-			return c.newInstance(src, dst);
-		} catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
-				| IllegalArgumentException | InvocationTargetException e) {
+			if (this.edgeFactory == null)
+				this.edgeFactory = constructor(edgeType, Edge.class, Node.class, Node.class);
+			return (Edge) this.edgeFactory.invokeExact(src, dst);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
 			e.printStackTrace();
 		}
 		throw new RuntimeException("Could not generate new edge instance");
 	}
 
 	public Edge newEdgeInstance(String str, Graph graph) {
-		Constructor<? extends Edge> c;
 		try {
-			c = edgeType.getConstructor(String.class, Graph.class);
-			return c.newInstance(str, graph);
-		} catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
-				| IllegalArgumentException | InvocationTargetException e) {
+			if (this.edgeFromStringFactory == null)
+				this.edgeFromStringFactory = constructor(edgeType, Edge.class, String.class, Graph.class);
+			return (Edge) this.edgeFromStringFactory.invokeExact(str, graph);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
 			e.printStackTrace();
 		}
 		throw new RuntimeException("Could not generate new edge instance");
 	}
 
+	/**
+	 * Look up the public constructor of a class with the given parameter types,
+	 * as a method handle that returns an object of the given type, so it can
+	 * be called through invokeExact
+	 */
+	static MethodHandle constructor(Class<?> c, Class<?> returnType, Class<?>... parameterTypes)
+			throws NoSuchMethodException, IllegalAccessException {
+		MethodHandle handle = MethodHandles.publicLookup().findConstructor(c,
+				MethodType.methodType(void.class, parameterTypes));
+		return handle.asType(MethodType.methodType(returnType, parameterTypes));
+	}
+
+	/**
+	 * Same as Class.forName, but remembers all classes it has found, as the
+	 * same data structures are read again and again from stored graphs
+	 */
+	private static Class<?> classForName(String name) throws ClassNotFoundException {
+		Class<?> c = classes.get(name);
+		if (c == null) {
+			c = Class.forName(name);
+			classes.putIfAbsent(name, c);
+		}
+		return c;
+	}
+
 	public boolean createsDirected() {
 		return DirectedEdge.class.isAssignableFrom(edgeType);
 	}
@@ -224,6 +427,10 @@ public class GraphDataStructure {
 	}
 
 	public boolean isReadable(IDataStructure list) {
+		if (list instanceof DFiltered)
+			return this.isReadable(((DFiltered) list).getWrapped());
+		if (list instanceof DProfiled)
+			return this.isReadable(((DProfiled) list).getWrapped());
 		return IReadable.class.isAssignableFrom(list.getClass());
 	}
 }
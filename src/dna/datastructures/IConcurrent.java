@@ -0,0 +1,11 @@
+package dna.datastructures;
+
+/**
+ * A single interface to mark data structures that can be mutated by several
+ * threads at once. Iterating them while other threads change them is weakly
+ * consistent: each element is returned at most once, but elements that are
+ * added or removed during the iteration might be missed.
+ */
+public interface IConcurrent extends IDataStructure {
+
+}
@@ -66,4 +66,16 @@ public interface IDataStructure extends Iterable {
 	 * @return
 	 */
 	public boolean canStore(Class<? extends IElement> elementClass);
+
+	/**
+	 * Get an order-independent fingerprint of all elements stored in this data
+	 * structure. It is maintained on every change, and data structures
+	 * storing equal elements have equal fingerprints - so differing
+	 * fingerprints prove that two data structures store different elements.
+	 * Data structures that can't tell whether an element has been stored
+	 * before (like Bloom filters) keep a fingerprint of 0
+	 * 
+	 * @return
+	 */
+	public long getFingerprint();
 }
@@ -19,6 +19,19 @@ public interface IEdgeListDatastructure extends IDataStructure {
 	 */
 	public boolean contains(Edge element);
 
+	/**
+	 * Check whether the edge between two nodes is contained in this data
+	 * structure, without creating a dummy edge for that check. For undirected
+	 * edges, the order of both nodes does not matter
+	 * 
+	 * @param src
+	 *            index of the source node
+	 * @param dst
+	 *            index of the destination node
+	 * @return
+	 */
+	public boolean contains(int src, int dst);
+
 	/**
 	 * Remove an edge from this data structure
 	 * 
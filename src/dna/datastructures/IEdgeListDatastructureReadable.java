@@ -12,4 +12,15 @@ public interface IEdgeListDatastructureReadable extends IEdgeListDatastructure,
 	 * @return
 	 */
 	public Edge get(Edge element);
+
+	/**
+	 * Retrieve the edge between two nodes by their indices, without creating a
+	 * dummy edge first. For undirected edges, the order of both nodes does not
+	 * matter
+	 * 
+	 * @param src
+	 * @param dst
+	 * @return the edge, or null if it is not stored here
+	 */
+	public Edge get(int src, int dst);
 }
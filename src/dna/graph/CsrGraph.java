@@ -0,0 +1,296 @@
+package dna.graph;
+
+import java.util.Arrays;
+
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.UndirectedEdge;
+import dna.graph.nodes.Node;
+
+/**
+ * Immutable snapshot of a graph in compressed sparse row (CSR) format. The
+ * neighbors of the node with index i are stored in targets[offsets[i]] up to
+ * (excluding) targets[offsets[i + 1]], sorted by their index. For graphs with
+ * weighted edges, the weights are stored in a parallel array.
+ *
+ * Directed graphs hold one CSR for outgoing and one for incoming edges, for
+ * undirected graphs both refer to the same symmetric CSR in which every edge
+ * is listed for both of its nodes.
+ *
+ * Rows are allocated for all indices up to the highest node index, so this is
+ * meant for graphs with (mostly) dense node indices.
+ *
+ * To allow scanning the snapshot without copying it, the getters for the node
+ * indices, offsets, targets and weights return the internal arrays. Callers
+ * must not modify them, as the snapshot is shared by all its readers.
+ */
+public class CsrGraph {
+	private String name;
+	private long timestamp;
+	private boolean directed;
+
+	private int[] nodeIndices;
+	private int edgeCount;
+
+	private int[] outOffsets;
+	private int[] outTargets;
+	private double[] outWeights;
+
+	private int[] inOffsets;
+	private int[] inTargets;
+	private double[] inWeights;
+
+	public CsrGraph(Graph g) {
+		this.name = g.getName();
+		this.timestamp = g.getTimestamp();
+		this.directed = g.isDirected();
+		this.edgeCount = g.getEdgeCount();
+
+		int maxIndex = g.getMaxNodeIndex();
+		int[] nodes = new int[g.getNodeCount()];
+		int nodeCounter = 0;
+		for (IElement n : g.getNodes()) {
+			if (n == null)
+				continue;
+			nodes[nodeCounter++] = ((Node) n).getIndex();
+		}
+		this.nodeIndices = Arrays.copyOf(nodes, nodeCounter);
+		Arrays.sort(this.nodeIndices);
+
+		boolean weighted = IWeighted.class.isAssignableFrom(g.getGraphDatastructures().getEdgeType());
+
+		/*
+		 * First, collect all edges as (unsorted) rows. For undirected edges,
+		 * each edge is inserted in the rows of both nodes
+		 */
+		int entries = 0;
+		int[] srcs = new int[this.directed ? this.edgeCount : 2 * this.edgeCount];
+		int[] dsts = new int[srcs.length];
+		double[] weights = weighted ? new double[srcs.length] : null;
+
+		for (IElement eIn : g.getEdges()) {
+			if (eIn == null)
+				continue;
+			int n1, n2;
+			if (eIn instanceof DirectedEdge) {
+				n1 = ((DirectedEdge) eIn).getSrc().getIndex();
+				n2 = ((DirectedEdge) eIn).getDst().getIndex();
+			} else {
+				n1 = ((UndirectedEdge) eIn).getNode1().getIndex();
+				n2 = ((UndirectedEdge) eIn).getNode2().getIndex();
+			}
+			double weight = 0;
+			if (eIn instanceof IDoubleWeighted)
+				weight = ((IDoubleWeighted) eIn).getWeightAsDouble();
+			else if (weighted)
+				weight = ((Number) ((IWeighted<?>) eIn).getWeight()).doubleValue();
+
+			if (entries + 2 > srcs.length) {
+				srcs = Arrays.copyOf(srcs, srcs.length * 2 + 2);
+				dsts = Arrays.copyOf(dsts, srcs.length);
+				if (weighted)
+					weights = Arrays.copyOf(weights, srcs.length);
+			}
+
+			maxIndex = Math.max(maxIndex, Math.max(n1, n2));
+			srcs[entries] = n1;
+			dsts[entries] = n2;
+			if (weighted)
+				weights[entries] = weight;
+			entries++;
+
+			if (!this.directed && n1 != n2) {
+				srcs[entries] = n2;
+				dsts[entries] = n1;
+				if (weighted)
+					weights[entries] = weight;
+				entries++;
+			}
+		}
+
+		int rows = maxIndex + 1;
+		Csr unsorted = Csr.fromPairs(rows, srcs, dsts, weights, entries);
+
+		/*
+		 * Transposing a CSR walks its rows in ascending order, so the rows of
+		 * a transposed CSR are always sorted. For directed graphs, the first
+		 * transposition gives the incoming edges, the second one the outgoing
+		 * edges. Undirected CSRs are symmetric, so a single transposition is
+		 * sufficient
+		 */
+		Csr in = unsorted.transpose(rows);
+		Csr out = this.directed ? in.transpose(rows) : in;
+
+		this.outOffsets = out.offsets;
+		this.outTargets = out.targets;
+		this.outWeights = out.weights;
+		this.inOffsets = in.offsets;
+		this.inTargets = in.targets;
+		this.inWeights = in.weights;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public long getTimestamp() {
+		return this.timestamp;
+	}
+
+	public boolean isDirected() {
+		return this.directed;
+	}
+
+	public boolean isWeighted() {
+		return this.outWeights != null;
+	}
+
+	/**
+	 * Retrieve the sorted indices of all nodes within this graph
+	 *
+	 * @return the internal array, which must not be modified
+	 */
+	public int[] getNodeIndices() {
+		return this.nodeIndices;
+	}
+
+	public int getNodeCount() {
+		return this.nodeIndices.length;
+	}
+
+	public int getEdgeCount() {
+		return this.edgeCount;
+	}
+
+	/**
+	 * Retrieve the highest node index that has a row within this snapshot
+	 *
+	 * @return
+	 */
+	public int getMaxNodeIndex() {
+		return this.outOffsets.length - 2;
+	}
+
+	/**
+	 * @return the internal array, which must not be modified
+	 */
+	public int[] getOutOffsets() {
+		return this.outOffsets;
+	}
+
+	/**
+	 * @return the internal array, which must not be modified
+	 */
+	public int[] getOutTargets() {
+		return this.outTargets;
+	}
+
+	/**
+	 * @return weights of the outgoing edges (the internal array, which must not
+	 *         be modified), or null if the edges are not weighted
+	 */
+	public double[] getOutWeights() {
+		return this.outWeights;
+	}
+
+	/**
+	 * @return the internal array, which must not be modified
+	 */
+	public int[] getInOffsets() {
+		return this.inOffsets;
+	}
+
+	/**
+	 * @return the internal array, which must not be modified
+	 */
+	public int[] getInTargets() {
+		return this.inTargets;
+	}
+
+	/**
+	 * @return weights of the incoming edges (the internal array, which must not
+	 *         be modified), or null if the edges are not weighted
+	 */
+	public double[] getInWeights() {
+		return this.inWeights;
+	}
+
+	public int getOutDegree(int index) {
+		if (index < 0 || index > this.getMaxNodeIndex())
+			return 0;
+		return this.outOffsets[index + 1] - this.outOffsets[index];
+	}
+
+	public int getInDegree(int index) {
+		if (index < 0 || index > this.getMaxNodeIndex())
+			return 0;
+		return this.inOffsets[index + 1] - this.inOffsets[index];
+	}
+
+	/**
+	 * Check whether there is an edge from src to dst (or between both nodes
+	 * for undirected graphs) through a binary search in the row of src
+	 *
+	 * @param src
+	 * @param dst
+	 * @return
+	 */
+	public boolean hasEdge(int src, int dst) {
+		if (src < 0 || src > this.getMaxNodeIndex())
+			return false;
+		return Arrays.binarySearch(this.outTargets, this.outOffsets[src], this.outOffsets[src + 1], dst) >= 0;
+	}
+
+	private static class Csr {
+		private int[] offsets;
+		private int[] targets;
+		private double[] weights;
+
+		private static Csr fromPairs(int rows, int[] srcs, int[] dsts, double[] weights, int entries) {
+			Csr res = new Csr();
+			res.offsets = new int[rows + 1];
+			res.targets = new int[entries];
+			res.weights = weights == null ? null : new double[entries];
+
+			for (int i = 0; i < entries; i++) {
+				res.offsets[srcs[i] + 1]++;
+			}
+			for (int i = 0; i < rows; i++) {
+				res.offsets[i + 1] += res.offsets[i];
+			}
+
+			int[] next = Arrays.copyOf(res.offsets, rows);
+			for (int i = 0; i < entries; i++) {
+				int pos = next[srcs[i]]++;
+				res.targets[pos] = dsts[i];
+				if (weights != null)
+					res.weights[pos] = weights[i];
+			}
+			return res;
+		}
+
+		private Csr transpose(int rows) {
+			Csr res = new Csr();
+			res.offsets = new int[rows + 1];
+			res.targets = new int[this.targets.length];
+			res.weights = this.weights == null ? null : new double[this.weights.length];
+
+			for (int t : this.targets) {
+				res.offsets[t + 1]++;
+			}
+			for (int i = 0; i < rows; i++) {
+				res.offsets[i + 1] += res.offsets[i];
+			}
+
+			int[] next = Arrays.copyOf(res.offsets, rows);
+			for (int row = 0; row < rows; row++) {
+				for (int i = this.offsets[row]; i < this.offsets[row + 1]; i++) {
+					int pos = next[this.targets[i]]++;
+					res.targets[pos] = row;
+					if (this.weights != null)
+						res.weights[pos] = this.weights[i];
+				}
+			}
+			return res;
+		}
+	}
+}
@@ -2,6 +2,7 @@ package dna.graph;
 
 import java.util.Collection;
 
+import dna.datastructures.DMappedEdgeList;
 import dna.datastructures.GraphDataStructure;
 import dna.datastructures.IEdgeListDatastructure;
 import dna.datastructures.IEdgeListDatastructureReadable;
@@ -9,6 +10,7 @@ import dna.datastructures.INodeListDatastructure;
 import dna.datastructures.INodeListDatastructureReadable;
 import dna.graph.edges.Edge;
 import dna.graph.nodes.Node;
+import dna.io.TraceRecorder.Operation;
 
 /**
  * Class for graphs. Methods that need special data structures are also defined
@@ -41,10 +43,14 @@ public class Graph {
 	}
 
 	public boolean addNode(Node n) {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.AddNode, n);
 		return nodes.add(n);
 	}
 
 	public boolean containsNode(Node n) {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.ContainsNode, n);
 		return nodes.contains(n);
 	}
 
@@ -55,6 +61,8 @@ public class Graph {
 	 * @return
 	 */
 	public Node getNode(int index) {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.GetNode, index);
 		if (!gds.isReadable(nodes))
 			throw new RuntimeException("This is not a readable graph");
 		return ((INodeListDatastructureReadable) this.nodes).get(index);
@@ -66,6 +74,8 @@ public class Graph {
 	 * @return
 	 */
 	public Node getRandomNode() {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.GetRandomNode);
 		if (!gds.isReadable(nodes))
 			throw new RuntimeException("This is not a readable graph");
 		return (Node) ((INodeListDatastructureReadable) nodes).getRandom();
@@ -77,12 +87,16 @@ public class Graph {
 	 * @return
 	 */
 	public Collection<IElement> getNodes() {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.IterateNodes);
 		if (!gds.isReadable(nodes))
 			throw new RuntimeException("This is not a readable graph");
 		return ((INodeListDatastructureReadable) nodes).getElements();
 	}
 
 	public boolean removeNode(Node n) {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.RemoveNode, n);
 		return nodes.remove(n);
 	}
 
@@ -105,10 +119,14 @@ public class Graph {
 	}
 
 	public boolean addEdge(Edge e) {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.AddEdge, e);
 		return edges.add(e);
 	}
 
 	public boolean containsEdge(Edge e) {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.ContainsEdgeInstance, e);
 		return edges.contains(e);
 	}
 
@@ -120,34 +138,149 @@ public class Graph {
 	 * @return
 	 */
 	public Edge getEdge(Edge e) {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.GetEdgeInstance, e);
 		if (!gds.isReadable(edges))
 			throw new RuntimeException("This is not a readable graph");
 		return ((IEdgeListDatastructureReadable) edges).get(e);
 	}
 
+	/**
+	 * Check whether the graph contains an edge between the nodes with the
+	 * given indices, without creating a dummy edge. For undirected graphs, the
+	 * order of the indices does not matter
+	 * 
+	 * @param src
+	 * @param dst
+	 * @return
+	 */
+	public boolean containsEdge(int src, int dst) {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.ContainsEdge, src, dst);
+		return edges.contains(src, dst);
+	}
+
+	/**
+	 * Get the edge between the nodes with the given indices, without creating
+	 * a dummy edge
+	 * 
+	 * @param src
+	 * @param dst
+	 * @return the edge, or null if there is none
+	 */
+	public Edge getEdge(int src, int dst) {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.GetEdge, src, dst);
+		if (!gds.isReadable(edges))
+			throw new RuntimeException("This is not a readable graph");
+		return ((IEdgeListDatastructureReadable) edges).get(src, dst);
+	}
+
 	/**
 	 * Retrieve a random edge
 	 * 
 	 * @return
 	 */
 	public Edge getRandomEdge() {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.GetRandomEdge);
 		if (!gds.isReadable(edges))
 			throw new RuntimeException("This is not a readable graph");
 		return (Edge) ((IEdgeListDatastructureReadable) edges).getRandom();
 	}
 
+	/**
+	 * Collect the weights of all nodes into one array, indexed by the index
+	 * of each node. Positions of indices that are not used hold 0
+	 * 
+	 * @return
+	 */
+	public double[] getNodeWeights() {
+		this.checkWeighted(gds.getNodeType());
+		double[] weights = new double[this.getMaxNodeIndex() + 1];
+		for (IElement n : this.getNodes()) {
+			if (n == null)
+				continue;
+			weights[((Node) n).getIndex()] = ((IDoubleWeighted) n).getWeightAsDouble();
+		}
+		return weights;
+	}
+
+	/**
+	 * Assign the weights of all nodes at once, see {@link #getNodeWeights()}.
+	 * Nodes with an index beyond the end of the array keep their weight
+	 * 
+	 * @param weights
+	 */
+	public void setNodeWeights(double[] weights) {
+		this.checkWeighted(gds.getNodeType());
+		for (IElement n : this.getNodes()) {
+			if (n == null || ((Node) n).getIndex() >= weights.length)
+				continue;
+			((IDoubleWeighted) n).setWeight(weights[((Node) n).getIndex()]);
+		}
+	}
+
+	/**
+	 * Collect the weights of all edges into one array, in the order in which
+	 * {@link #getEdges()} returns them as long as the edge list is not
+	 * modified
+	 * 
+	 * @return
+	 */
+	public double[] getEdgeWeights() {
+		this.checkWeighted(gds.getEdgeType());
+		double[] weights = new double[this.getEdgeCount()];
+		int i = 0;
+		for (IElement e : this.getEdges()) {
+			if (e == null)
+				continue;
+			weights[i++] = ((IDoubleWeighted) e).getWeightAsDouble();
+		}
+		return weights;
+	}
+
+	/**
+	 * Assign the weights of all edges at once, in the order of
+	 * {@link #getEdgeWeights()}. A {@link DMappedEdgeList} hands out copies
+	 * of its edges, so their new weights are written back into it
+	 * 
+	 * @param weights
+	 */
+	public void setEdgeWeights(double[] weights) {
+		this.checkWeighted(gds.getEdgeType());
+		DMappedEdgeList mapped = this.edges instanceof DMappedEdgeList ? (DMappedEdgeList) this.edges : null;
+		int i = 0;
+		for (IElement e : this.getEdges()) {
+			if (e == null)
+				continue;
+			((IDoubleWeighted) e).setWeight(weights[i++]);
+			if (mapped != null)
+				mapped.update((Edge) e);
+		}
+	}
+
+	private void checkWeighted(Class<? extends IElement> type) {
+		if (!IDoubleWeighted.class.isAssignableFrom(type))
+			throw new RuntimeException("Elements of type " + type.getName() + " do not have a double weight");
+	}
+
 	/**
 	 * Retrieve a collection of all edges within this graph
 	 * 
 	 * @return
 	 */
 	public Collection<IElement> getEdges() {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.IterateEdges);
 		if (!gds.isReadable(edges))
 			throw new RuntimeException("This is not a readable graph");
 		return ((IEdgeListDatastructureReadable) edges).getElements();
 	}
 
 	public boolean removeEdge(Edge e) {
+		if (gds.getTraceRecorder() != null)
+			gds.getTraceRecorder().record(Operation.RemoveEdge, e);
 		return edges.remove(e);
 	}
 
@@ -185,6 +318,30 @@ public class Graph {
 		return this.gds;
 	}
 
+	/**
+	 * Retrieve an order-independent fingerprint of all nodes and edges of this
+	 * graph. It is maintained by the data structures on every change, so this
+	 * is cheap to call. Graphs with different fingerprints differ in their
+	 * nodes or edges
+	 * 
+	 * @return
+	 */
+	public long getFingerprint() {
+		return 31 * nodes.getFingerprint() + edges.getFingerprint();
+	}
+
+	/**
+	 * Freeze the current state of this graph into a compressed sparse row
+	 * snapshot, see {@link CsrGraph} for details
+	 * 
+	 * @return
+	 */
+	public CsrGraph toCsr() {
+		if (!gds.isReadable())
+			throw new RuntimeException("This is not a readable graph");
+		return new CsrGraph(this);
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) {
@@ -217,6 +374,11 @@ public class Graph {
 			return false;
 		}
 
+		if (nodes != null && edges != null && other.nodes != null && other.edges != null
+				&& this.getFingerprint() != other.getFingerprint()) {
+			return false;
+		}
+
 		if (edges == null) {
 			if (other.edges != null) {
 				return false;
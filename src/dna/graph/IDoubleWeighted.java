@@ -0,0 +1,12 @@
+package dna.graph;
+
+/**
+ * Interface for nodes and edges with a weight of type double, which can be
+ * read and written without boxing it into a Double
+ */
+public interface IDoubleWeighted extends IWeighted<Double> {
+
+	public void setWeight(double newWeight);
+
+	public double getWeightAsDouble();
+}
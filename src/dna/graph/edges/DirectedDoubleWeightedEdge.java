@@ -1,11 +1,11 @@
 package dna.graph.edges;
 
 import dna.graph.Graph;
-import dna.graph.IWeighted;
+import dna.graph.IDoubleWeighted;
 import dna.graph.nodes.Node;
 import dna.io.etc.Keywords;
 
-public class DirectedDoubleWeightedEdge extends DirectedEdge implements IWeighted<Double> {
+public class DirectedDoubleWeightedEdge extends DirectedEdge implements IDoubleWeighted {
 	private double weight;
 
 	public DirectedDoubleWeightedEdge(Node src, Node dst, Double weight) {
@@ -36,9 +36,19 @@ public class DirectedDoubleWeightedEdge extends DirectedEdge implements IWeighte
 		this.weight = newWeight;
 	}
 
+	@Override
+	public void setWeight(double newWeight) {
+		this.weight = newWeight;
+	}
+
 	@Override
 	public Double getWeight() {
 		return this.weight;
 	}
 
+	@Override
+	public double getWeightAsDouble() {
+		return this.weight;
+	}
+
 }
@@ -45,8 +45,12 @@ public class DirectedEdge extends Edge {
 				&& this.dst.getIndex() == ((DirectedEdge) o).dst.getIndex();
 	}
 
+	/**
+	 * Computed from the indices of both nodes only, so this neither allocates
+	 * nor depends on weights
+	 */
 	public int hashCode() {
-		return this.getStringRepresentation().hashCode();
+		return getHashCode(getKey(this.src.getIndex(), this.dst.getIndex()));
 	}
 
 	@Override
@@ -1,6 +1,64 @@
 package dna.graph.edges;
 
 import dna.graph.Element;
+import dna.graph.IElement;
 
 public abstract class Edge extends Element {
+	/**
+	 * Pack the indices of two nodes into a single key, the first index in the
+	 * upper 32 bits
+	 * 
+	 * @param n1
+	 * @param n2
+	 * @return
+	 */
+	public static long getKey(int n1, int n2) {
+		return ((long) n1 << 32) | (n2 & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Pack the indices of the nodes connected by an edge into a single key.
+	 * For directed edges, this is (src, dst), for undirected edges it is
+	 * (node1, node2) which are already ordered by their index
+	 * 
+	 * @param e
+	 * @return
+	 */
+	public static long getKey(Edge e) {
+		if (e instanceof DirectedEdge) {
+			DirectedEdge d = (DirectedEdge) e;
+			return getKey(d.getSrc().getIndex(), d.getDst().getIndex());
+		}
+		if (e instanceof UndirectedEdge) {
+			UndirectedEdge u = (UndirectedEdge) e;
+			return getKey(u.getNode1().getIndex(), u.getNode2().getIndex());
+		}
+		throw new RuntimeException("Can't compute a key for edges of type " + e.getClass());
+	}
+
+	/**
+	 * Compute the key of an edge of the given type between two nodes without
+	 * creating that edge: undirected edges store the node with the lower index
+	 * first, so the indices are swapped for them if needed
+	 * 
+	 * @param edgeType
+	 * @param src
+	 * @param dst
+	 * @return
+	 */
+	public static long getKey(Class<? extends IElement> edgeType, int src, int dst) {
+		if (src > dst && UndirectedEdge.class.isAssignableFrom(edgeType))
+			return getKey(dst, src);
+		return getKey(src, dst);
+	}
+
+	/**
+	 * Hash code of the edge with the given key, as returned by hashCode()
+	 * 
+	 * @param key
+	 * @return
+	 */
+	public static int getHashCode(long key) {
+		return 31 * (int) (key >>> 32) + (int) key;
+	}
 }
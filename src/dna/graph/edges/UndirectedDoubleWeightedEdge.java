@@ -1,11 +1,11 @@
 package dna.graph.edges;
 
 import dna.graph.Graph;
-import dna.graph.IWeighted;
+import dna.graph.IDoubleWeighted;
 import dna.graph.nodes.Node;
 import dna.io.etc.Keywords;
 
-public class UndirectedDoubleWeightedEdge extends UndirectedEdge implements IWeighted<Double> {
+public class UndirectedDoubleWeightedEdge extends UndirectedEdge implements IDoubleWeighted {
 	private double weight;
 
 	public UndirectedDoubleWeightedEdge(Node src, Node dst, Double weight) {
@@ -31,11 +31,21 @@ public class UndirectedDoubleWeightedEdge extends UndirectedEdge implements IWei
 		this.weight = newWeight;
 	}
 
+	@Override
+	public void setWeight(double newWeight) {
+		this.weight = newWeight;
+	}
+
 	@Override
 	public Double getWeight() {
 		return this.weight;
 	}
 
+	@Override
+	public double getWeightAsDouble() {
+		return this.weight;
+	}
+
 	public String getStringRepresentation() {
 		return super.getStringRepresentation() + Keywords.edgeWeightDelimiter + this.weight;
 	}
@@ -86,8 +86,12 @@ public class UndirectedEdge extends Edge {
 				&& this.node2.getIndex() == ((UndirectedEdge) o).node2.getIndex();
 	}
 
+	/**
+	 * Computed from the indices of both nodes only, so this neither allocates
+	 * nor depends on weights
+	 */
 	public int hashCode() {
-		return this.getStringRepresentation().hashCode();
+		return getHashCode(getKey(this.node1.getIndex(), this.node2.getIndex()));
 	}
 
 	/**
@@ -1,12 +1,18 @@
 package dna.graph.nodes;
 
+import java.util.Arrays;
+
 import com.google.common.collect.Iterables;
 
+import dna.datastructures.BitmapIndexSet;
+import dna.datastructures.DEmpty;
 import dna.datastructures.GraphDataStructure;
 import dna.datastructures.IEdgeListDatastructure;
+import dna.datastructures.IEdgeListDatastructureReadable;
 import dna.datastructures.INodeListDatastructure;
 import dna.graph.edges.DirectedEdge;
 import dna.graph.edges.Edge;
+import dna.io.TraceRecorder.Operation;
 
 public class DirectedNode extends Node {
 	private IEdgeListDatastructure in;
@@ -14,6 +20,7 @@ public class DirectedNode extends Node {
 	private Iterable<Edge> all;
 
 	private INodeListDatastructure neighbors;
+	private BitmapIndexSet neighborIndices;
 
 	public final static Class<? extends Edge> edgeType = DirectedEdge.class;
 
@@ -25,16 +32,72 @@ public class DirectedNode extends Node {
 		super(str, gds);
 	}
 
-	@SuppressWarnings("unchecked")
 	protected void init() {
-		this.in = this.gds.newNodeEdgeList();
-		this.out = this.gds.newNodeEdgeList();
-		this.neighbors = this.gds.newNodeList();
-		this.all = Iterables.unmodifiableIterable(Iterables.concat(in, out));
+		if (this.gds.isLazyNodeLists()) {
+			this.in = DEmpty.instance;
+			this.out = DEmpty.instance;
+		} else {
+			this.in = this.gds.newNodeEdgeList();
+			this.out = this.gds.newNodeEdgeList();
+		}
+		if (this.gds.isLazyNodeLists() || this.gds.isBitmapNeighbors())
+			this.neighbors = DEmpty.instance;
+		else
+			this.neighbors = this.gds.newNodeList();
+		this.updateAll();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void updateAll() {
+		if (this.in == DEmpty.instance && this.out == DEmpty.instance)
+			this.all = DEmpty.instance;
+		else
+			this.all = Iterables.unmodifiableIterable(Iterables.concat(in, out));
+	}
+
+	/**
+	 * Lists that are still shared empty ones (see
+	 * {@link GraphDataStructure#setLazyNodeLists(boolean)}) are replaced by
+	 * real ones before anything is added to them
+	 */
+	private IEdgeListDatastructure inList() {
+		if (this.in == DEmpty.instance) {
+			this.in = this.gds.newNodeEdgeList();
+			this.updateAll();
+		}
+		return this.in;
+	}
+
+	private IEdgeListDatastructure outList() {
+		if (this.out == DEmpty.instance) {
+			this.out = this.gds.newNodeEdgeList();
+			this.updateAll();
+		}
+		return this.out;
+	}
+
+	private boolean addNeighbor(Node n) {
+		if (!this.gds.isBitmapNeighbors()) {
+			if (this.neighbors == DEmpty.instance)
+				this.neighbors = this.gds.newNodeList();
+			return this.neighbors.add(n);
+		}
+		if (this.neighborIndices == null)
+			this.neighborIndices = new BitmapIndexSet();
+		return this.neighborIndices.add(n.getIndex());
+	}
+
+	private void removeNeighbor(Node n) {
+		if (!this.gds.isBitmapNeighbors())
+			this.neighbors.remove(n);
+		else if (this.neighborIndices != null)
+			this.neighborIndices.remove(n.getIndex());
 	}
 
 	@Override
 	public boolean hasEdge(Edge eIn) {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeHasEdge, this, eIn);
 		if (!(eIn instanceof DirectedEdge))
 			return false;
 		DirectedEdge e = (DirectedEdge) eIn;
@@ -42,22 +105,31 @@ public class DirectedNode extends Node {
 				&& this.in.contains(e);
 	}
 
+	@Override
+	public boolean hasEdgeTo(int index) {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeHasEdgeTo, this.index, index);
+		return this.out.contains(this.index, index);
+	}
+
 	@Override
 	public boolean addEdge(Edge eIn) {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeAddEdge, this, eIn);
 		if (!(eIn instanceof DirectedEdge))
 			return false;
 		DirectedEdge e = (DirectedEdge) eIn;
 		if (e.getSrc().getIndex() == this.index) {
-			boolean success = !this.out.contains(e) && this.out.add(e);
-			if (success && this.in.contains(e.invert())) {
-				success &= this.neighbors.add(e.getDst());
+			boolean success = !this.out.contains(e) && this.outList().add(e);
+			if (success && this.in.contains(e.getDst().getIndex(), this.index)) {
+				success &= this.addNeighbor(e.getDst());
 			}
 			return success;
 		}
 		if (e.getDst().getIndex() == this.index) {
-			boolean success = !this.in.contains(e) && this.in.add(e);
-			if (success && this.out.contains(e.invert())) {
-				success &= this.neighbors.add(e.getSrc());
+			boolean success = !this.in.contains(e) && this.inList().add(e);
+			if (success && this.out.contains(this.index, e.getSrc().getIndex())) {
+				success &= this.addNeighbor(e.getSrc());
 			}
 			return success;
 		}
@@ -66,15 +138,17 @@ public class DirectedNode extends Node {
 
 	@Override
 	public boolean removeEdge(Edge eIn) {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeRemoveEdge, this, eIn);
 		if (!(eIn instanceof DirectedEdge))
 			return false;
 		DirectedEdge e = (DirectedEdge) eIn;
 		if (e.getSrc().getIndex() == this.index) {
-			this.neighbors.remove(e.getDst());
+			this.removeNeighbor(e.getDst());
 			return this.out.remove(e);
 		}
 		if (e.getDst().getIndex() == this.index) {
-			this.neighbors.remove(e.getSrc());
+			this.removeNeighbor(e.getSrc());
 			return this.in.remove(e);
 		}
 		return false;
@@ -82,32 +156,91 @@ public class DirectedNode extends Node {
 
 	@Override
 	public Iterable<Edge> getEdges() {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeIterateEdges, this);
 		return this.all;
 	}
 
 	@SuppressWarnings("unchecked")
 	public Iterable<DirectedEdge> getIncomingEdges() {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeIterateIncoming, this);
 		return this.in;
 	}
 
 	@SuppressWarnings("unchecked")
 	public Iterable<DirectedEdge> getOutgoingEdges() {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeIterateOutgoing, this);
 		return this.out;
 	}
 
+	/**
+	 * If the neighbors are stored as indices (see
+	 * {@link GraphDataStructure#setBitmapNeighbors(boolean)}), the nodes are
+	 * taken from the destinations of the matching outgoing edges
+	 */
 	@SuppressWarnings("unchecked")
 	public Iterable<DirectedNode> getNeighbors() {
-		return this.neighbors;
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeIterateNeighbors, this);
+		if (!this.gds.isBitmapNeighbors())
+			return this.neighbors;
+		if (this.neighborIndices == null)
+			return DEmpty.instance;
+		if (!(this.out instanceof IEdgeListDatastructureReadable))
+			throw new RuntimeException("Can't resolve neighbors from edge list of type " + this.out.getClass());
+
+		IEdgeListDatastructureReadable outgoing = (IEdgeListDatastructureReadable) this.out;
+		int[] indices = this.neighborIndices.toArray();
+		DirectedNode[] res = new DirectedNode[indices.length];
+		for (int i = 0; i < indices.length; i++) {
+			res[i] = (DirectedNode) ((DirectedEdge) outgoing.get(this.index, indices[i])).getDst();
+		}
+		return Arrays.asList(res);
 	}
 
 	public int getNeighborCount() {
+		if (this.gds.isBitmapNeighbors())
+			return this.neighborIndices == null ? 0 : this.neighborIndices.size();
 		return this.neighbors.size();
 	}
 
 	public boolean hasNeighbor(DirectedNode n) {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeHasNeighbor, this, n);
+		if (this.gds.isBitmapNeighbors())
+			return this.neighborIndices != null && this.neighborIndices.contains(n.getIndex());
 		return this.neighbors.contains(n);
 	}
 
+	/**
+	 * Count the nodes that are neighbors of both this and the given node. If
+	 * the neighbors are stored as {@link BitmapIndexSet}s, this intersects
+	 * their bitmaps instead of probing each neighbor
+	 * 
+	 * @param n
+	 * @return
+	 */
+	public int getCommonNeighborCount(DirectedNode n) {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeCommonNeighbors, this, n);
+		if (this.gds.isBitmapNeighbors() && n.gds.isBitmapNeighbors()) {
+			if (this.neighborIndices == null || n.neighborIndices == null)
+				return 0;
+			return this.neighborIndices.andCardinality(n.neighborIndices);
+		}
+
+		INodeListDatastructure small = this.neighbors.size() <= n.neighbors.size() ? this.neighbors : n.neighbors;
+		INodeListDatastructure large = small == this.neighbors ? n.neighbors : this.neighbors;
+		int count = 0;
+		for (Object neighbor : small) {
+			if (neighbor != null && large.contains((Node) neighbor))
+				count++;
+		}
+		return count;
+	}
+
 	public int getDegree() {
 		return this.getInDegree() + this.getOutDegree();
 	}
@@ -27,6 +27,16 @@ public abstract class Node extends Element implements IElement {
 
 	public abstract boolean hasEdge(Edge e);
 
+	/**
+	 * Check whether this node has an edge to the node with the given index,
+	 * without creating a dummy edge. For directed nodes, only outgoing edges
+	 * are considered
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public abstract boolean hasEdgeTo(int index);
+
 	public abstract boolean addEdge(Edge e);
 
 	public abstract boolean removeEdge(Edge e);
@@ -44,7 +54,7 @@ public abstract class Node extends Element implements IElement {
 	}
 
 	public int hashCode() {
-		return this.getStringRepresentation().hashCode();
+		return this.index;
 	}
 
 	@Override
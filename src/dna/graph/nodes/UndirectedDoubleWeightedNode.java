@@ -1,12 +1,12 @@
 package dna.graph.nodes;
 
 import dna.datastructures.GraphDataStructure;
-import dna.graph.IWeighted;
+import dna.graph.IDoubleWeighted;
 import dna.graph.edges.Edge;
 import dna.graph.edges.UndirectedDoubleWeightedEdge;
 import dna.io.etc.Keywords;
 
-public class UndirectedDoubleWeightedNode extends UndirectedNode implements IWeighted<Double> {
+public class UndirectedDoubleWeightedNode extends UndirectedNode implements IDoubleWeighted {
 	private double weight;
 	public final static Class<? extends Edge> edgeType = UndirectedDoubleWeightedEdge.class;
 
@@ -33,11 +33,21 @@ public class UndirectedDoubleWeightedNode extends UndirectedNode implements IWei
 		this.weight = newWeight;
 	}
 
+	@Override
+	public void setWeight(double newWeight) {
+		this.weight = newWeight;
+	}
+
 	@Override
 	public Double getWeight() {
 		return this.weight;
 	}
 
+	@Override
+	public double getWeightAsDouble() {
+		return this.weight;
+	}
+
 	@Override
 	public String getStringRepresentation() {
 		return super.getStringRepresentation() + Keywords.nodeWeightDelimiter + this.weight;
@@ -1,9 +1,11 @@
 package dna.graph.nodes;
 
+import dna.datastructures.DEmpty;
 import dna.datastructures.GraphDataStructure;
 import dna.datastructures.IEdgeListDatastructure;
 import dna.graph.edges.Edge;
 import dna.graph.edges.UndirectedEdge;
+import dna.io.TraceRecorder.Operation;
 
 public class UndirectedNode extends Node {
 	private IEdgeListDatastructure edges;
@@ -20,7 +22,11 @@ public class UndirectedNode extends Node {
 
 	@Override
 	protected void init() {
-		this.edges = this.gds.newNodeEdgeList();
+		if (this.gds.isLazyNodeLists()) {
+			this.edges = DEmpty.instance;
+		} else {
+			this.edges = this.gds.newNodeEdgeList();
+		}
 	}
 
 	public int getDegree() {
@@ -34,21 +40,39 @@ public class UndirectedNode extends Node {
 
 	@Override
 	public boolean hasEdge(Edge e) {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeHasEdge, this, e);
 		return this.edges.contains(e);
 	}
 
+	@Override
+	public boolean hasEdgeTo(int index) {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeHasEdgeTo, this.index, index);
+		return this.edges.contains(this.index, index);
+	}
+
 	@Override
 	public boolean addEdge(Edge e) {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeAddEdge, this, e);
+		if (this.edges == DEmpty.instance) {
+			this.edges = this.gds.newNodeEdgeList();
+		}
 		return !this.edges.contains(e) && this.edges.add(e);
 	}
 
 	@Override
 	public boolean removeEdge(Edge e) {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeRemoveEdge, this, e);
 		return this.edges.remove(e);
 	}
 
 	@Override
 	public Iterable<Edge> getEdges() {
+		if (this.gds.getTraceRecorder() != null)
+			this.gds.getTraceRecorder().record(Operation.NodeIterateEdges, this);
 		return this.edges;
 	}
 
@@ -0,0 +1,163 @@
+package dna.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import dna.datastructures.GraphDataStructure;
+import dna.graph.Graph;
+import dna.graph.IDoubleWeighted;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.Node;
+
+/**
+ * Reads graphs written by the {@link BinaryGraphWriter}. Nodes and edges are
+ * created directly from their indices and weights, so no line of text needs
+ * to be split or parsed.
+ */
+public class BinaryGraphReader {
+	private FileChannel channel;
+	private ByteBuffer buffer;
+
+	public Graph read(String dir, String filename) throws ClassNotFoundException, IOException {
+		return this.read(dir, filename, null);
+	}
+
+	public Graph read(String dir, String filename, GraphDataStructure ds) throws IOException,
+			ClassNotFoundException {
+		this.channel = FileChannel.open(Paths.get(dir + filename), StandardOpenOption.READ);
+		this.buffer = ByteBuffer.allocateDirect(1 << 16);
+		this.buffer.flip();
+		try {
+			if (this.readInt() != BinaryGraphWriter.magic)
+				throw new IOException(dir + filename + " is not a binary graph file");
+			int version = this.readByte();
+			if (version != BinaryGraphWriter.version)
+				throw new IOException("Unsupported version " + version + " of binary graph file " + dir + filename);
+
+			String name = this.readString();
+			String gdsString = this.readString();
+			if (ds == null) {
+				ds = new GraphDataStructure(gdsString);
+			}
+			int nodes = this.readVarint();
+			int edges = this.readVarint();
+			long timestamp = this.readLong();
+			int flags = this.readByte();
+			boolean weightedNodes = (flags & BinaryGraphWriter.nodesWeighted) != 0;
+			boolean weightedEdges = (flags & BinaryGraphWriter.edgesWeighted) != 0;
+			boolean nodesTakeWeights = IDoubleWeighted.class.isAssignableFrom(ds.getNodeType());
+			boolean edgesTakeWeights = IDoubleWeighted.class.isAssignableFrom(ds.getEdgeType());
+
+			Graph g = ds.newGraphInstance(name, timestamp, nodes, edges);
+
+			int index = 0;
+			for (int i = 0; i < nodes; i++) {
+				index += this.readVarint();
+				Node n = ds.newNodeInstance(index);
+				if (weightedNodes) {
+					double weight = this.readDouble();
+					if (nodesTakeWeights)
+						((IDoubleWeighted) n).setWeight(weight);
+				}
+				g.addNode(n);
+			}
+
+			int src = 0;
+			int read = 0;
+			while (read < edges) {
+				src += this.readVarint();
+				int count = this.readVarint();
+				Node srcNode = g.getNode(src);
+				int dst = src;
+				for (int i = 0; i < count; i++) {
+					if (i == 0)
+						dst = src + unzigzag(this.readVarint());
+					else
+						dst += this.readVarint();
+					Edge e = ds.newEdgeInstance(srcNode, g.getNode(dst));
+					if (weightedEdges) {
+						double weight = this.readDouble();
+						if (edgesTakeWeights)
+							((IDoubleWeighted) e).setWeight(weight);
+					}
+					g.addEdge(e);
+					GraphReader.addToNodes(e);
+				}
+				read += count;
+			}
+			return g;
+		} finally {
+			this.channel.close();
+			this.channel = null;
+			this.buffer = null;
+		}
+	}
+
+	static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Make sure the buffer holds at least the given number of bytes, reading
+	 * more from the channel if needed
+	 */
+	private void require(int bytes) throws IOException {
+		if (this.buffer.remaining() >= bytes)
+			return;
+		this.buffer.compact();
+		while (this.buffer.position() < bytes) {
+			if (this.channel.read(this.buffer) < 0) {
+				this.buffer.flip();
+				throw new EOFException("Unexpected end of binary graph file");
+			}
+		}
+		this.buffer.flip();
+	}
+
+	private int readByte() throws IOException {
+		this.require(1);
+		return this.buffer.get() & 0xff;
+	}
+
+	private int readInt() throws IOException {
+		this.require(4);
+		return this.buffer.getInt();
+	}
+
+	private long readLong() throws IOException {
+		this.require(8);
+		return this.buffer.getLong();
+	}
+
+	private double readDouble() throws IOException {
+		this.require(8);
+		return this.buffer.getDouble();
+	}
+
+	private int readVarint() throws IOException {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			int b = this.readByte();
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+	}
+
+	private String readString() throws IOException {
+		byte[] bytes = new byte[this.readVarint()];
+		int pos = 0;
+		while (pos < bytes.length) {
+			this.require(1);
+			int chunk = Math.min(this.buffer.remaining(), bytes.length - pos);
+			this.buffer.get(bytes, pos, chunk);
+			pos += chunk;
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,178 @@
+package dna.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import dna.graph.CsrGraph;
+import dna.graph.Graph;
+import dna.graph.IDoubleWeighted;
+
+/**
+ * Writes a graph in a compact binary format, which can be read by the
+ * {@link BinaryGraphReader} much faster than the text format of the
+ * {@link GraphWriter}.
+ *
+ * The file starts with a header: magic number, version, the name of the
+ * graph and its data structures (as in the text format), the number of nodes
+ * and edges, the timestamp and flags for weighted nodes and edges. Then all
+ * node indices follow in ascending order, each one as the variable length
+ * difference to its predecessor and followed by its weight for weighted
+ * nodes.
+ *
+ * Edges are written grouped by their source (node1 for undirected edges):
+ * the difference to the previous source, the number of edges, and the
+ * destinations in ascending order. The first destination of a group is
+ * written relative to its source (zig-zag encoded, as it may be lower), the
+ * others relative to their predecessor. Weights of edges are written as raw
+ * doubles right after their destination.
+ */
+public class BinaryGraphWriter {
+	public static final int magic = 0x444e4147;
+	public static final int version = 1;
+
+	public static final int nodesWeighted = 1;
+	public static final int edgesWeighted = 2;
+
+	private FileChannel channel;
+	private ByteBuffer buffer;
+
+	public boolean write(Graph g, String dir, String filename) {
+		try {
+			(new File(dir)).mkdirs();
+			this.channel = FileChannel.open(Paths.get(dir + filename), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			this.buffer = ByteBuffer.allocateDirect(1 << 16);
+
+			boolean weightedNodes = IDoubleWeighted.class.isAssignableFrom(g.getGraphDatastructures().getNodeType());
+			boolean weightedEdges = IDoubleWeighted.class.isAssignableFrom(g.getGraphDatastructures().getEdgeType());
+			CsrGraph csr = g.toCsr();
+
+			this.writeInt(magic);
+			this.writeByte(version);
+			this.writeString(g.getName());
+			this.writeString(g.getGraphDatastructures().getDataStructures());
+			this.writeVarint(csr.getNodeCount());
+			this.writeVarint(csr.getEdgeCount());
+			this.writeLong(g.getTimestamp());
+			this.writeByte((weightedNodes ? nodesWeighted : 0) | (weightedEdges ? edgesWeighted : 0));
+
+			double[] nodeWeights = weightedNodes ? g.getNodeWeights() : null;
+			int previous = 0;
+			for (int index : csr.getNodeIndices()) {
+				this.writeVarint(index - previous);
+				if (weightedNodes)
+					this.writeDouble(nodeWeights[index]);
+				previous = index;
+			}
+
+			int[] offsets = csr.getOutOffsets();
+			int[] targets = csr.getOutTargets();
+			double[] weights = csr.getOutWeights();
+			int previousSrc = 0;
+			for (int src = 0; src <= csr.getMaxNodeIndex(); src++) {
+				int first = offsets[src];
+				if (!csr.isDirected()) {
+					// the symmetric csr lists each edge for both nodes
+					while (first < offsets[src + 1] && targets[first] < src)
+						first++;
+				}
+				if (first == offsets[src + 1])
+					continue;
+
+				this.writeVarint(src - previousSrc);
+				this.writeVarint(offsets[src + 1] - first);
+				int previousDst = src;
+				for (int i = first; i < offsets[src + 1]; i++) {
+					if (i == first)
+						this.writeVarint(zigzag(targets[i] - src));
+					else
+						this.writeVarint(targets[i] - previousDst);
+					if (weightedEdges)
+						this.writeDouble(weights[i]);
+					previousDst = targets[i];
+				}
+				previousSrc = src;
+			}
+
+			this.flush();
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		} finally {
+			try {
+				if (this.channel != null)
+					this.channel.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			this.channel = null;
+			this.buffer = null;
+		}
+	}
+
+	static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private void ensure(int bytes) throws IOException {
+		if (this.buffer.remaining() < bytes)
+			this.flush();
+	}
+
+	private void flush() throws IOException {
+		this.buffer.flip();
+		while (this.buffer.hasRemaining()) {
+			this.channel.write(this.buffer);
+		}
+		this.buffer.clear();
+	}
+
+	private void writeByte(int value) throws IOException {
+		this.ensure(1);
+		this.buffer.put((byte) value);
+	}
+
+	private void writeInt(int value) throws IOException {
+		this.ensure(4);
+		this.buffer.putInt(value);
+	}
+
+	private void writeLong(long value) throws IOException {
+		this.ensure(8);
+		this.buffer.putLong(value);
+	}
+
+	private void writeDouble(double value) throws IOException {
+		this.ensure(8);
+		this.buffer.putDouble(value);
+	}
+
+	/**
+	 * Write an unsigned int in 7 bit groups, the highest bit of each byte is
+	 * set if more bytes follow
+	 */
+	private void writeVarint(int value) throws IOException {
+		this.ensure(5);
+		while ((value & ~0x7f) != 0) {
+			this.buffer.put((byte) ((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+		this.buffer.put((byte) value);
+	}
+
+	private void writeString(String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		this.writeVarint(bytes.length);
+		this.flush();
+		ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+		while (wrapped.hasRemaining()) {
+			this.channel.write(wrapped);
+		}
+	}
+}
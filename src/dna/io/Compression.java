@@ -0,0 +1,82 @@
+package dna.io;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression of files written by the {@link Writer}.
+ *
+ * Compressed files are recognized by their first two bytes: the magic number
+ * of gzip or a valid zlib header for deflate. Neither can be the start of a
+ * text file, which begins with the keyword prefix "# ", so readers can detect
+ * the compression without relying on the name of the file.
+ */
+public enum Compression {
+	None, Gzip, Deflate;
+
+	public static int bufferSize = 1 << 16;
+
+	public OutputStream wrap(OutputStream out) throws IOException {
+		switch (this) {
+		case Gzip:
+			return new GZIPOutputStream(out, bufferSize);
+		case Deflate:
+			return new DeflaterOutputStream(out);
+		default:
+			return out;
+		}
+	}
+
+	public InputStream wrap(InputStream in) throws IOException {
+		switch (this) {
+		case Gzip:
+			return new GZIPInputStream(in, bufferSize);
+		case Deflate:
+			return new InflaterInputStream(in);
+		default:
+			return in;
+		}
+	}
+
+	/**
+	 * Open the given file for reading, decompressing it if needed
+	 */
+	public static InputStream open(String path) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(path), bufferSize);
+		in.mark(2);
+		int b0 = in.read();
+		int b1 = in.read();
+		in.reset();
+		return detect(b0, b1).wrap(in);
+	}
+
+	/**
+	 * Detect the compression of the file opened by the given channel, without
+	 * changing its position
+	 */
+	public static Compression detect(FileChannel channel) throws IOException {
+		ByteBuffer head = ByteBuffer.allocate(2);
+		while (head.hasRemaining() && channel.read(head, head.position()) > 0)
+			;
+		if (head.position() < 2)
+			return None;
+		return detect(head.get(0) & 0xff, head.get(1) & 0xff);
+	}
+
+	private static Compression detect(int b0, int b1) {
+		if (b0 == 0x1f && b1 == 0x8b)
+			return Gzip;
+		if ((b0 & 0x0f) == 8 && ((b0 << 8) | b1) % 31 == 0)
+			return Deflate;
+		return None;
+	}
+}
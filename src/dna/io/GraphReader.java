@@ -10,16 +10,36 @@ import dna.graph.edges.UndirectedEdge;
 import dna.io.etc.Keywords;
 
 public class GraphReader {
+	private int threads;
+
+	public GraphReader() {
+		this(1);
+	}
+
+	/**
+	 * With more than one thread, graphs are read by a
+	 * {@link MappedGraphReader}, which parses the list of edges and adds the
+	 * edges to their nodes in parallel.
+	 * 
+	 * @param threads
+	 *            number of threads used to read the list of edges
+	 */
+	public GraphReader(int threads) {
+		this.threads = Math.max(threads, 1);
+	}
 
 	public Graph read(String dir, String filename)
 			throws ClassNotFoundException, IOException {
 		return this.read(dir, filename, null);
 	}
 
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public Graph read(String dir, String filename,
 			GraphDataStructure ds) throws IOException,
 			ClassNotFoundException {
+		if (this.threads > 1) {
+			return new MappedGraphReader(this.threads).read(dir, filename, ds);
+		}
+
 		Reader reader = new Reader(dir, filename);
 
 		reader.readKeyword(Keywords.graphGraph);
@@ -42,7 +62,6 @@ public class GraphReader {
 		long timestamp = reader.readLong();
 
 		Graph g = ds.newGraphInstance(name, timestamp, nodes, edges);
-		Class eClass = ds.getEdgeType();
 
 		reader.readKeyword(Keywords.graphListOfNodes);
 		String line = null;
@@ -54,18 +73,43 @@ public class GraphReader {
 		while ((line = reader.readString()) != null) {
 			Edge e = ds.newEdgeInstance(line, g);
 			g.addEdge(e);
-			if (DirectedEdge.class.isAssignableFrom(eClass)) {
-				DirectedEdge d = (DirectedEdge) e;
-				d.getSrc().addEdge(d);
-				d.getDst().addEdge(d);
-			} else if (UndirectedEdge.class.isAssignableFrom(eClass)) {
-				UndirectedEdge u = (UndirectedEdge) e;
-				u.getNode1().addEdge(u);
-				u.getNode2().addEdge(u);
-			}
+			addToNodes(e);
 		}
 
 		reader.close();
 		return g;
 	}
+
+	/**
+	 * Hand the header, all nodes and all edges of the given graph file to the
+	 * visitor in the order of the file, without creating the graph or any of
+	 * its nodes and edges. The file is scanned as by the
+	 * {@link MappedGraphReader}, so no String is created per line either.
+	 * 
+	 * @param dir
+	 * @param filename
+	 * @param visitor
+	 * @throws IOException
+	 */
+	public void stream(String dir, String filename, GraphVisitor visitor)
+			throws IOException {
+		new MappedGraphReader().stream(dir, filename, visitor);
+	}
+
+	/**
+	 * Add an edge that was just read to the edge lists of both its nodes
+	 * 
+	 * @param e
+	 */
+	static void addToNodes(Edge e) {
+		if (e instanceof DirectedEdge) {
+			DirectedEdge d = (DirectedEdge) e;
+			d.getSrc().addEdge(d);
+			d.getDst().addEdge(d);
+		} else if (e instanceof UndirectedEdge) {
+			UndirectedEdge u = (UndirectedEdge) e;
+			u.getNode1().addEdge(u);
+			u.getNode2().addEdge(u);
+		}
+	}
 }
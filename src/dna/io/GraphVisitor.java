@@ -0,0 +1,41 @@
+package dna.io;
+
+import java.io.IOException;
+
+/**
+ * Receives the elements of a graph file one by one, as read by
+ * {@link GraphReader#stream(String, String, GraphVisitor)}: first the header,
+ * then all nodes, then all edges, each in the order of the file. No nodes,
+ * edges or graph are created, so this can be used to compute statistics of
+ * a graph or to convert it into another format without holding it in memory.
+ *
+ * Elements without a weight in the file are reported with weight 0.
+ */
+public interface GraphVisitor {
+	/**
+	 * @param name
+	 *            name of the graph
+	 * @param dataStructures
+	 *            string representation of the graph's data structures
+	 * @param nodes
+	 *            number of nodes as given in the header
+	 * @param edges
+	 *            number of edges as given in the header
+	 * @param timestamp
+	 *            timestamp of the graph
+	 */
+	public void header(String name, String dataStructures, int nodes, int edges, long timestamp)
+			throws IOException;
+
+	public void node(int index, double weight) throws IOException;
+
+	/**
+	 * @param src
+	 *            index of the source (node1 for undirected edges)
+	 * @param dst
+	 *            index of the destination (node2 for undirected edges)
+	 * @param weight
+	 *            weight of the edge
+	 */
+	public void edge(int src, int dst, double weight) throws IOException;
+}
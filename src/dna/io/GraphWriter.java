@@ -3,15 +3,44 @@ package dna.io;
 import java.io.IOException;
 
 import dna.graph.Graph;
+import dna.graph.IDoubleWeighted;
 import dna.graph.IElement;
+import dna.graph.edges.DirectedDoubleWeightedEdge;
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.UndirectedDoubleWeightedEdge;
+import dna.graph.edges.UndirectedEdge;
+import dna.graph.nodes.DirectedDoubleWeightedNode;
+import dna.graph.nodes.DirectedNode;
+import dna.graph.nodes.Node;
+import dna.graph.nodes.UndirectedDoubleWeightedNode;
+import dna.graph.nodes.UndirectedNode;
 import dna.io.etc.Keywords;
 
 public class GraphWriter {
+	private Compression compression;
+	private boolean async;
+
+	public GraphWriter() {
+		this(Compression.None, false);
+	}
+
+	/**
+	 * @param compression
+	 *            compression of the written files, which is detected by the
+	 *            {@link GraphReader}
+	 * @param async
+	 *            if true, compress and write in a background thread while the
+	 *            graph is formatted
+	 */
+	public GraphWriter(Compression compression, boolean async) {
+		this.compression = compression;
+		this.async = async;
+	}
 
 	public boolean write(Graph g, String dir, String filename) {
 		Writer writer = null;
 		try {
-			writer = new Writer(dir, filename);
+			writer = new Writer(dir, filename, this.compression, this.async);
 
 			writer.writeKeyword(Keywords.graphGraph);
 			writer.writeln(g.getName());
@@ -31,13 +60,13 @@ public class GraphWriter {
 			writer.writeKeyword(Keywords.graphListOfNodes);
 			for (IElement n : g.getNodes()) {
 				if ( n == null ) continue;
-				writer.writeln(n.getStringRepresentation());
+				this.writeElement(writer, n);
 			}
 
 			writer.writeKeyword(Keywords.graphListOfEdges);
 			for (IElement e : g.getEdges()) {
 				if ( e == null ) continue;
-				writer.writeln(e.getStringRepresentation());
+				this.writeElement(writer, e);
 			}
 
 			return true;
@@ -46,11 +75,50 @@ public class GraphWriter {
 			return false;
 		} finally {
 			try {
-				writer.close();
+				if (writer != null)
+					writer.close();
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
 		}
 	}
 
+	/**
+	 * Write the string representation of a node or edge, formatting the
+	 * indices directly into the writer's buffer. This is only done for the
+	 * node and edge classes of DNA itself, whose representation is known;
+	 * all other classes (including subclasses of these) are written through
+	 * their getStringRepresentation()
+	 */
+	private void writeElement(Writer writer, IElement element)
+			throws IOException {
+		Class<?> c = element.getClass();
+		if (c == DirectedNode.class || c == DirectedDoubleWeightedNode.class
+				|| c == UndirectedNode.class
+				|| c == UndirectedDoubleWeightedNode.class) {
+			writer.write(((Node) element).getIndex());
+		} else if (c == DirectedEdge.class
+				|| c == DirectedDoubleWeightedEdge.class) {
+			DirectedEdge e = (DirectedEdge) element;
+			writer.write(e.getSrc().getIndex());
+			writer.write(Keywords.directedEdgeDelimiter);
+			writer.write(e.getDst().getIndex());
+		} else if (c == UndirectedEdge.class
+				|| c == UndirectedDoubleWeightedEdge.class) {
+			UndirectedEdge e = (UndirectedEdge) element;
+			writer.write(e.getNode1().getIndex());
+			writer.write(Keywords.undirectedEdgeDelimiter);
+			writer.write(e.getNode2().getIndex());
+		} else {
+			writer.writeln(element.getStringRepresentation());
+			return;
+		}
+		if (element instanceof IDoubleWeighted) {
+			writer.write(element instanceof Node ? Keywords.nodeWeightDelimiter
+					: Keywords.edgeWeightDelimiter);
+			writer.write(((IDoubleWeighted) element).getWeightAsDouble());
+		}
+		writer.newLine();
+	}
+
 }
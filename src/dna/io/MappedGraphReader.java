@@ -0,0 +1,578 @@
+package dna.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import dna.datastructures.GraphDataStructure;
+import dna.graph.Graph;
+import dna.graph.IDoubleWeighted;
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.Edge;
+import dna.graph.edges.UndirectedEdge;
+import dna.graph.nodes.Node;
+import dna.io.etc.Keywords;
+
+/**
+ * Reads graphs in the text format written by the {@link GraphWriter}, like
+ * the {@link GraphReader}, but without creating a String for every node and
+ * edge. The file is memory mapped (in windows of at most windowSize bytes, so
+ * files larger than 2GB can be read as well) and the lists of nodes and edges
+ * are scanned byte by byte into ints and doubles, from which nodes and edges
+ * are created by their indices.
+ *
+ * Weights are converted directly if this is exact, i.e. if their digits fit
+ * into 53 bits and the decimal exponent is small. Only other weights (more
+ * digits, large exponents, NaN, Infinity) are handed to
+ * Double.parseDouble(String), so all weights are read exactly as by the
+ * GraphReader.
+ *
+ * With more than one thread, the list of edges is split at line boundaries
+ * into one chunk per thread, and the chunks are parsed in parallel. Nodes are
+ * partitioned by their index modulo the number of threads, and while parsing,
+ * every chunk sorts its edges by the partitions of their nodes. Then each
+ * thread adds the edges sorted into its own partition to the nodes of that
+ * partition, so every node is only modified by a single thread and no locking
+ * is needed. Meanwhile, the edges are added to the graph in the order of the
+ * file.
+ *
+ * Compressed files (see {@link Compression}) cannot be mapped, they are
+ * decompressed into a buffer while they are scanned, and their list of edges
+ * is always read by a single thread.
+ */
+public class MappedGraphReader {
+	public static long windowSize = 1L << 30;
+
+	private static final double[] powersOfTen = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	private int threads;
+
+	public MappedGraphReader() {
+		this(1);
+	}
+
+	/**
+	 * @param threads
+	 *            number of threads used to read the list of edges
+	 */
+	public MappedGraphReader(int threads) {
+		this.threads = Math.max(threads, 1);
+	}
+
+	public Graph read(String dir, String filename) throws ClassNotFoundException, IOException {
+		return this.read(dir, filename, null);
+	}
+
+	public Graph read(String dir, String filename, GraphDataStructure ds) throws IOException,
+			ClassNotFoundException {
+		try (FileChannel channel = FileChannel.open(Paths.get(dir + filename), StandardOpenOption.READ);
+				Scanner scanner = Scanner.open(channel)) {
+			GraphBuilder builder = new GraphBuilder(ds);
+			this.readNodes(scanner, builder);
+
+			scanner.readKeyword(Keywords.graphListOfEdges);
+			if (this.threads == 1 || scanner.isCompressed()) {
+				while (scanner.nextEdge()) {
+					builder.edge(scanner.node1, scanner.node2, scanner.weight);
+				}
+			} else {
+				this.readEdgesParallel(channel, scanner.position(), builder.g, builder.ds);
+			}
+			return builder.g;
+		}
+	}
+
+	/**
+	 * Hand all elements of the given graph file to the visitor, without
+	 * creating a graph, nodes or edges. The list of edges is always read
+	 * sequentially, in the order of the file.
+	 */
+	public void stream(String dir, String filename, GraphVisitor visitor) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(dir + filename), StandardOpenOption.READ);
+				Scanner scanner = Scanner.open(channel)) {
+			this.readNodes(scanner, visitor);
+
+			scanner.readKeyword(Keywords.graphListOfEdges);
+			while (scanner.nextEdge()) {
+				visitor.edge(scanner.node1, scanner.node2, scanner.weight);
+			}
+		}
+	}
+
+	/**
+	 * Read the header and the list of nodes
+	 */
+	private void readNodes(Scanner scanner, GraphVisitor visitor) throws IOException {
+		scanner.readKeyword(Keywords.graphGraph);
+		String name = scanner.readLine();
+
+		scanner.readKeyword(Keywords.graphDataStructures);
+		String gdsString = scanner.readLine();
+
+		scanner.readKeyword(Keywords.graphNodes);
+		int nodes = Integer.parseInt(scanner.readLine());
+
+		scanner.readKeyword(Keywords.graphEdges);
+		int edges = Integer.parseInt(scanner.readLine());
+
+		scanner.readKeyword(Keywords.graphTimestamp);
+		long timestamp = Long.parseLong(scanner.readLine());
+
+		visitor.header(name, gdsString, nodes, edges, timestamp);
+
+		scanner.readKeyword(Keywords.graphListOfNodes);
+		while (scanner.skipEmptyLines() && scanner.peek() != Keywords.pre.charAt(0)) {
+			int index = scanner.readInt();
+			double weight = scanner.readWeight(Keywords.nodeWeightDelimiter.charAt(0));
+			scanner.endOfLine();
+			visitor.node(index, weight);
+		}
+	}
+
+	/**
+	 * Create an edge between the nodes with the given indices
+	 */
+	private static Edge newEdge(Graph g, GraphDataStructure ds, int n1, int n2, double weight) throws IOException {
+		Node node1 = g.getNode(n1);
+		Node node2 = g.getNode(n2);
+		if (node1 == null || node2 == null)
+			throw new IOException("Edge " + n1 + " / " + n2 + " refers to an unknown node");
+		Edge e = ds.newEdgeInstance(node1, node2);
+		if (e instanceof IDoubleWeighted)
+			((IDoubleWeighted) e).setWeight(weight);
+		return e;
+	}
+
+	/**
+	 * Builds a graph from the elements read from a file
+	 */
+	private static class GraphBuilder implements GraphVisitor {
+		private GraphDataStructure ds;
+		private Graph g;
+		private boolean weightedNodes;
+
+		public GraphBuilder(GraphDataStructure ds) {
+			this.ds = ds;
+		}
+
+		@Override
+		public void header(String name, String dataStructures, int nodes, int edges, long timestamp) {
+			if (this.ds == null) {
+				this.ds = new GraphDataStructure(dataStructures);
+			}
+			this.g = this.ds.newGraphInstance(name, timestamp, nodes, edges);
+			this.weightedNodes = IDoubleWeighted.class.isAssignableFrom(this.ds.getNodeType());
+		}
+
+		@Override
+		public void node(int index, double weight) {
+			Node n = this.ds.newNodeInstance(index);
+			if (this.weightedNodes)
+				((IDoubleWeighted) n).setWeight(weight);
+			this.g.addNode(n);
+		}
+
+		@Override
+		public void edge(int src, int dst, double weight) throws IOException {
+			Edge e = newEdge(this.g, this.ds, src, dst, weight);
+			this.g.addEdge(e);
+			GraphReader.addToNodes(e);
+		}
+	}
+
+	/**
+	 * Parse the list of edges starting at the given position in one chunk per
+	 * thread, then add the edges to the nodes partitioned by their index
+	 */
+	private void readEdgesParallel(final FileChannel channel, long start, final Graph g,
+			final GraphDataStructure ds) throws IOException {
+		long size = channel.size();
+		long[] bounds = new long[this.threads + 1];
+		bounds[0] = start;
+		bounds[this.threads] = size;
+		for (int i = 1; i < this.threads; i++) {
+			long bound = Math.max(bounds[i - 1], start + (size - start) * i / this.threads);
+			if (bound > start && bound < size) {
+				// move the bound behind the end of the line it falls into
+				Scanner scanner = new Scanner(channel, bound - 1, size);
+				int c;
+				while ((c = scanner.next()) != '\n' && c != -1)
+					;
+				bound = scanner.position();
+			}
+			bounds[i] = bound;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+		try {
+			List<Future<Chunk>> parsed = new ArrayList<>();
+			for (int i = 0; i < this.threads; i++) {
+				final Scanner scanner = new Scanner(channel, bounds[i], bounds[i + 1]);
+				parsed.add(executor.submit(new Callable<Chunk>() {
+					@Override
+					public Chunk call() throws IOException {
+						Chunk chunk = new Chunk(MappedGraphReader.this.threads);
+						Edge e;
+						while ((e = scanner.readEdge(g, ds)) != null)
+							chunk.add(e);
+						return chunk;
+					}
+				}));
+			}
+			final List<Chunk> chunks = new ArrayList<>();
+			for (Future<Chunk> chunk : parsed) {
+				chunks.add(chunk.get());
+			}
+
+			List<Future<Void>> partitions = new ArrayList<>();
+			for (int i = 0; i < this.threads; i++) {
+				final int partition = i;
+				partitions.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						for (Chunk chunk : chunks) {
+							for (Edge e : chunk.partitions.get(partition)) {
+								MappedGraphReader.this.addToPartition(e, partition);
+							}
+						}
+						return null;
+					}
+				}));
+			}
+			// the edge list of the graph is shared by all partitions, so it is
+			// filled by this thread while the partitions are processed
+			for (Chunk chunk : chunks) {
+				for (Edge e : chunk.edges) {
+					g.addEdge(e);
+				}
+			}
+			for (Future<Void> partition : partitions) {
+				partition.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading edges", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new RuntimeException("Could not read edges", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * The edges parsed from one chunk of the file, both in the order of the
+	 * file and grouped by the partitions of their nodes. An edge whose nodes
+	 * belong to different partitions is listed for both of them.
+	 */
+	private static class Chunk {
+		private List<Edge> edges = new ArrayList<>();
+		private List<List<Edge>> partitions;
+
+		public Chunk(int partitions) {
+			this.partitions = new ArrayList<>(partitions);
+			for (int i = 0; i < partitions; i++) {
+				this.partitions.add(new ArrayList<Edge>());
+			}
+		}
+
+		public void add(Edge e) {
+			this.edges.add(e);
+			Node[] nodes = endpoints(e);
+			int first = nodes[0].getIndex() % this.partitions.size();
+			int second = nodes[1].getIndex() % this.partitions.size();
+			this.partitions.get(first).add(e);
+			if (second != first)
+				this.partitions.get(second).add(e);
+		}
+	}
+
+	/**
+	 * Retrieve both nodes of an edge, in the same order as
+	 * {@link GraphReader#addToNodes(Edge)} adds the edge to them
+	 */
+	private static Node[] endpoints(Edge e) {
+		if (e instanceof DirectedEdge)
+			return new Node[] { ((DirectedEdge) e).getSrc(), ((DirectedEdge) e).getDst() };
+		if (e instanceof UndirectedEdge)
+			return new Node[] { ((UndirectedEdge) e).getNode1(), ((UndirectedEdge) e).getNode2() };
+		throw new RuntimeException("Can't handle element of type " + e.getClass() + " here");
+	}
+
+	/**
+	 * Add an edge to those of its nodes that belong to the given partition
+	 */
+	private void addToPartition(Edge e, int partition) {
+		Node[] nodes = endpoints(e);
+		if (nodes[0].getIndex() % this.threads == partition)
+			nodes[0].addEdge(e);
+		if (nodes[1].getIndex() % this.threads == partition)
+			nodes[1].addEdge(e);
+	}
+
+	/**
+	 * Reads bytes from a range of a file, mapping it in windows of at most
+	 * windowSize bytes, or from a decompressed stream
+	 */
+	private static class Scanner implements Closeable {
+		private FileChannel channel;
+		private ReadableByteChannel stream;
+		private long end;
+		private ByteBuffer window;
+		private long windowStart;
+
+		private byte[] token = new byte[32];
+
+		private int node1;
+		private int node2;
+		private double weight;
+
+		public Scanner(FileChannel channel, long start, long end) throws IOException {
+			this.channel = channel;
+			this.end = end;
+			this.windowStart = start;
+			this.window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(end - start, windowSize));
+		}
+
+		public Scanner(ReadableByteChannel stream) {
+			this.stream = stream;
+			this.end = Long.MAX_VALUE;
+			this.window = ByteBuffer.allocate(Compression.bufferSize);
+			this.window.flip();
+		}
+
+		/**
+		 * Scan the whole file, decompressing it if needed
+		 */
+		public static Scanner open(FileChannel channel) throws IOException {
+			Compression compression = Compression.detect(channel);
+			if (compression == Compression.None)
+				return new Scanner(channel, 0, channel.size());
+			return new Scanner(Channels.newChannel(compression.wrap(Channels.newInputStream(channel))));
+		}
+
+		public boolean isCompressed() {
+			return this.stream != null;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (this.stream != null)
+				this.stream.close();
+		}
+
+		/**
+		 * Read the next line of the list of edges into node1, node2 and weight
+		 *
+		 * @return false at the end of the range
+		 */
+		public boolean nextEdge() throws IOException {
+			if (!this.skipEmptyLines())
+				return false;
+			this.node1 = this.readInt();
+			// skip the delimiter, either -> or <->
+			int c;
+			while ((c = this.peek()) == '<' || c == '-' || c == '>')
+				this.next();
+			this.node2 = this.readInt();
+			this.weight = this.readWeight(Keywords.edgeWeightDelimiter.charAt(0));
+			this.endOfLine();
+			return true;
+		}
+
+		/**
+		 * Read the next edge from a line of the list of edges
+		 *
+		 * @return the edge, or null at the end of the range
+		 */
+		public Edge readEdge(Graph g, GraphDataStructure ds) throws IOException {
+			if (!this.nextEdge())
+				return null;
+			return newEdge(g, ds, this.node1, this.node2, this.weight);
+		}
+
+		public int next() throws IOException {
+			if (!this.window.hasRemaining() && !this.advance())
+				return -1;
+			return this.window.get() & 0xff;
+		}
+
+		public int peek() throws IOException {
+			if (!this.window.hasRemaining() && !this.advance())
+				return -1;
+			return this.window.get(this.window.position()) & 0xff;
+		}
+
+		/**
+		 * Map the window following the current one, or fill it from the
+		 * stream
+		 *
+		 * @return false if the end of the range has been reached
+		 */
+		private boolean advance() throws IOException {
+			this.windowStart += this.window.limit();
+			if (this.windowStart >= this.end)
+				return false;
+			if (this.stream != null) {
+				this.window.clear();
+				int read;
+				while ((read = this.stream.read(this.window)) == 0)
+					;
+				this.window.flip();
+				return read > 0;
+			}
+			this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, this.windowStart,
+					Math.min(this.end - this.windowStart, windowSize));
+			return true;
+		}
+
+		public long position() {
+			return this.windowStart + this.window.position();
+		}
+
+		/**
+		 * @return false if the end of the range has been reached
+		 */
+		public boolean skipEmptyLines() throws IOException {
+			int c;
+			while ((c = this.peek()) == '\n' || c == '\r')
+				this.next();
+			return c != -1;
+		}
+
+		public void endOfLine() throws IOException {
+			int c = this.next();
+			if (c == '\r')
+				c = this.next();
+			if (c != '\n' && c != -1)
+				throw new IOException("Unexpected character '" + (char) c + "' at byte " + (this.position() - 1));
+		}
+
+		public String readLine() throws IOException {
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			int c;
+			while ((c = this.next()) != '\n' && c != -1) {
+				if (c != '\r')
+					line.write(c);
+			}
+			return new String(line.toByteArray(), StandardCharsets.UTF_8);
+		}
+
+		public void readKeyword(String keyword) throws IOException {
+			this.skipEmptyLines();
+			if (!this.readLine().equals(Keywords.asLine(keyword)))
+				throw new IOException("Expected keyword '" + keyword + "'");
+		}
+
+		public int readInt() throws IOException {
+			int c = this.peek();
+			if (c < '0' || c > '9')
+				throw new IOException("Expected a node index at byte " + this.position());
+			int value = 0;
+			while ((c = this.peek()) >= '0' && c <= '9') {
+				value = value * 10 + (c - '0');
+				this.next();
+			}
+			return value;
+		}
+
+		/**
+		 * Read the weight following the delimiter, if there is one
+		 *
+		 * @return the weight, 0 if the line ends without a weight (as in the
+		 *         String constructors of the weighted types)
+		 */
+		public double readWeight(char delimiter) throws IOException {
+			if (this.peek() != delimiter)
+				return 0;
+			this.next();
+
+			int length = 0;
+			int c;
+			while ((c = this.peek()) != '\n' && c != '\r' && c != -1) {
+				if (length == this.token.length)
+					this.token = Arrays.copyOf(this.token, length * 2);
+				this.token[length++] = (byte) this.next();
+			}
+			return this.parseDouble(length);
+		}
+
+		/**
+		 * Convert the token into a double, directly if the digits form an exact
+		 * double and the power of ten is exact as well (then the division or
+		 * multiplication rounds correctly), otherwise by Double.parseDouble
+		 */
+		private double parseDouble(int length) {
+			int i = 0;
+			boolean negative = length > 0 && this.token[0] == '-';
+			if (negative)
+				i++;
+			long mantissa = 0;
+			int exponent = 0;
+			boolean exact = i < length;
+			boolean fraction = false;
+			for (; i < length && exact; i++) {
+				byte b = this.token[i];
+				if (b >= '0' && b <= '9') {
+					if (mantissa > (1L << 53) / 10) {
+						exact = false;
+					} else {
+						mantissa = mantissa * 10 + (b - '0');
+						if (fraction)
+							exponent--;
+					}
+				} else if (b == '.' && !fraction) {
+					fraction = true;
+				} else if (b == 'E' || b == 'e') {
+					int e = this.parseExponent(i + 1, length);
+					exact = e != Integer.MIN_VALUE;
+					exponent += exact ? e : 0;
+					break;
+				} else {
+					exact = false;
+				}
+			}
+			if (exact && mantissa <= (1L << 53) && exponent >= -22 && exponent <= 22) {
+				double value = exponent < 0 ? mantissa / powersOfTen[-exponent] : mantissa * powersOfTen[exponent];
+				return negative ? -value : value;
+			}
+			return Double.parseDouble(new String(this.token, 0, length, StandardCharsets.US_ASCII));
+		}
+
+		/**
+		 * @return the exponent, or Integer.MIN_VALUE if it is malformed or too
+		 *         large
+		 */
+		private int parseExponent(int from, int length) {
+			boolean negative = from < length && this.token[from] == '-';
+			if (negative)
+				from++;
+			if (from == length || length - from > 3)
+				return Integer.MIN_VALUE;
+			int exponent = 0;
+			for (int i = from; i < length; i++) {
+				if (this.token[i] < '0' || this.token[i] > '9')
+					return Integer.MIN_VALUE;
+				exponent = exponent * 10 + (this.token[i] - '0');
+			}
+			return negative ? -exponent : exponent;
+		}
+	}
+}
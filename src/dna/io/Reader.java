@@ -1,9 +1,9 @@
 package dna.io;
 
 import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 import com.sun.media.sound.InvalidFormatException;
 
@@ -12,6 +12,7 @@ import dna.io.etc.Keywords;
 
 /**
  * Simple file reader that reads data from a file one line at a time.
+ * Compressed files are detected and decompressed while reading.
  * 
  * @author benni
  * 
@@ -19,8 +20,9 @@ import dna.io.etc.Keywords;
 public class Reader {
 	private BufferedReader reader;
 
-	public Reader(String dir, String filename) throws FileNotFoundException {
-		this.reader = new BufferedReader(new FileReader(dir + filename));
+	public Reader(String dir, String filename) throws IOException {
+		this.reader = new BufferedReader(new InputStreamReader(
+				Compression.open(dir + filename), StandardCharsets.UTF_8));
 	}
 
 	public String readString() throws IOException {
@@ -0,0 +1,162 @@
+package dna.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import dna.datastructures.GraphDataStructure;
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.Edge;
+import dna.graph.edges.UndirectedEdge;
+import dna.graph.nodes.Node;
+
+/**
+ * Records the operations on a graph and its nodes into a compact binary
+ * trace, which can be replayed against other data structures by the
+ * {@link TraceReplayer}. Enable recording for all graphs and nodes of a
+ * {@link GraphDataStructure} with
+ * {@link GraphDataStructure#setTraceRecorder(TraceRecorder)}, and close the
+ * recorder at the end of the run.
+ *
+ * The trace starts with a header (magic number, version, node and edge type,
+ * lazy node lists) followed by one record per operation: its ordinal as a
+ * byte, then the node indices it refers to as variable length integers. Edges
+ * are written as the indices of their two nodes, so the weights of edges are
+ * not recorded.
+ */
+public class TraceRecorder {
+	public static final int magic = 0x444e4154;
+	public static final int version = 1;
+
+	/**
+	 * All recorded operations. Operations on the graph itself refer to no
+	 * index (random element, iteration), a node index or the two node indices
+	 * of an edge. Operations on a node are prefixed with the index of that
+	 * node. ContainsEdge and GetEdge look up an edge by the indices of its
+	 * nodes, ContainsEdgeInstance and GetEdgeInstance by an edge object (they
+	 * are appended, so older traces keep their ordinals)
+	 */
+	public enum Operation {
+		AddNode(1), RemoveNode(1), ContainsNode(1), GetNode(1), GetRandomNode(0), IterateNodes(0),
+		AddEdge(2), RemoveEdge(2), ContainsEdge(2), GetEdge(2), GetRandomEdge(0), IterateEdges(0),
+		NodeAddEdge(3), NodeRemoveEdge(3), NodeHasEdge(3), NodeIterateEdges(1),
+		NodeIterateIncoming(1), NodeIterateOutgoing(1), NodeIterateNeighbors(1), NodeHasNeighbor(2), NodeHasEdgeTo(2), NodeCommonNeighbors(2),
+		ContainsEdgeInstance(2), GetEdgeInstance(2);
+
+		private final int indices;
+
+		private Operation(int indices) {
+			this.indices = indices;
+		}
+
+		/**
+		 * Number of node indices that follow this operation in a trace
+		 *
+		 * @return
+		 */
+		public int getIndices() {
+			return this.indices;
+		}
+	}
+
+	private DataOutputStream out;
+	private long operations;
+
+	public TraceRecorder(String dir, String filename, GraphDataStructure gds) throws IOException {
+		(new File(dir)).mkdirs();
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dir + filename), 1 << 16));
+		this.out.writeInt(magic);
+		this.out.writeByte(version);
+		this.out.writeUTF(gds.getNodeType().getName());
+		this.out.writeUTF(gds.getEdgeType().getName());
+		this.out.writeBoolean(gds.isLazyNodeLists());
+	}
+
+	/**
+	 * Retrieve the number of operations recorded so far
+	 *
+	 * @return
+	 */
+	public long getOperations() {
+		return this.operations;
+	}
+
+	public synchronized void record(Operation op) {
+		this.start(op);
+	}
+
+	public synchronized void record(Operation op, int index) {
+		this.start(op);
+		this.writeIndex(index);
+	}
+
+	public synchronized void record(Operation op, int index, int other) {
+		this.start(op);
+		this.writeIndex(index);
+		this.writeIndex(other);
+	}
+
+	public void record(Operation op, Node n) {
+		this.record(op, n.getIndex());
+	}
+
+	public synchronized void record(Operation op, Edge e) {
+		this.start(op);
+		this.writeEdge(e);
+	}
+
+	public synchronized void record(Operation op, Node n, Edge e) {
+		this.start(op);
+		this.writeIndex(n.getIndex());
+		this.writeEdge(e);
+	}
+
+	public void record(Operation op, Node n, Node other) {
+		this.record(op, n.getIndex(), other.getIndex());
+	}
+
+	public synchronized void close() throws IOException {
+		this.out.close();
+	}
+
+	private void start(Operation op) {
+		this.operations++;
+		try {
+			this.out.writeByte(op.ordinal());
+		} catch (IOException e) {
+			throw new RuntimeException("Could not write trace", e);
+		}
+	}
+
+	private void writeEdge(Edge e) {
+		if (e instanceof DirectedEdge) {
+			DirectedEdge d = (DirectedEdge) e;
+			this.writeIndex(d.getSrc().getIndex());
+			this.writeIndex(d.getDst().getIndex());
+		} else if (e instanceof UndirectedEdge) {
+			UndirectedEdge u = (UndirectedEdge) e;
+			this.writeIndex(u.getNode1().getIndex());
+			this.writeIndex(u.getNode2().getIndex());
+		} else {
+			throw new RuntimeException("Can't handle element of type " + e.getClass() + " here");
+		}
+	}
+
+	/**
+	 * Write an index in 7 bit groups, the highest bit of each byte is set if
+	 * more bytes follow
+	 */
+	private void writeIndex(int index) {
+		try {
+			while ((index & ~0x7f) != 0) {
+				this.out.writeByte((index & 0x7f) | 0x80);
+				index >>>= 7;
+			}
+			this.out.writeByte(index);
+		} catch (IOException e) {
+			throw new RuntimeException("Could not write trace", e);
+		}
+	}
+}
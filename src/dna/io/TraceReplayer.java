@@ -0,0 +1,475 @@
+package dna.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import dna.datastructures.*;
+import dna.graph.Graph;
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.Edge;
+import dna.graph.edges.UndirectedEdge;
+import dna.graph.nodes.DirectedNode;
+import dna.graph.nodes.Node;
+import dna.io.TraceRecorder.Operation;
+
+/**
+ * Replays a trace written by a {@link TraceRecorder} against graphs using
+ * other data structures, to find the combination of node list, graph edge
+ * list and node edge list that suits the recorded access pattern best. Node
+ * and edge types are taken from the trace.
+ *
+ * The whole trace is read into memory before replaying, so the measured wall
+ * time only covers the operations on the graph. The peak heap is the sum of
+ * the peak usages of all heap memory pools during a replay, including
+ * garbage. As the pools may reach their peaks at different times, this is an
+ * upper bound of the heap that was used at once. When
+ * ranking, every combination is replayed a few times before it is measured,
+ * and ranked by the median of several measured replays.
+ *
+ * Usage: TraceReplayer dir filename [comma separated list types]
+ */
+public class TraceReplayer {
+	public static final Class<?>[] defaultListTypes = DataStructureMatrix.listTypes;
+
+	public static int defaultWarmups = 3;
+	public static int defaultRuns = 5;
+
+	private Class<? extends Node> nodeType;
+	private Class<? extends Edge> edgeType;
+	private boolean lazyNodeLists;
+
+	private int[] trace;
+	private int traceLength;
+	private long operations;
+
+	private long sink;
+
+	/**
+	 * Result of replaying the trace against one graph data structure
+	 */
+	public static class Result {
+		private GraphDataStructure gds;
+		private long nanos;
+		private long peakHeap;
+		private String error;
+
+		public Result(GraphDataStructure gds, long nanos, long peakHeap, String error) {
+			this.gds = gds;
+			this.nanos = nanos;
+			this.peakHeap = peakHeap;
+			this.error = error;
+		}
+
+		public GraphDataStructure getGraphDataStructure() {
+			return this.gds;
+		}
+
+		public long getNanos() {
+			return this.nanos;
+		}
+
+		public long getPeakHeap() {
+			return this.peakHeap;
+		}
+
+		/**
+		 * Retrieve the message of the exception the replay failed with
+		 *
+		 * @return null if the replay succeeded
+		 */
+		public String getError() {
+			return this.error;
+		}
+
+		public boolean failed() {
+			return this.error != null;
+		}
+
+		public String toString() {
+			if (this.failed())
+				return this.gds.getDataStructures() + ": failed (" + this.error + ")";
+			return this.gds.getDataStructures() + ": " + (this.nanos / 1000000) + "ms, peak heap "
+					+ (this.peakHeap / (1024 * 1024)) + "MB";
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public TraceReplayer(String dir, String filename) throws IOException, ClassNotFoundException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(dir + filename),
+				1 << 16))) {
+			if (in.readInt() != TraceRecorder.magic)
+				throw new IOException(dir + filename + " is not a trace");
+			int v = in.readByte();
+			if (v != TraceRecorder.version)
+				throw new IOException("Can't read traces of version " + v);
+			this.nodeType = (Class<? extends Node>) Class.forName(in.readUTF());
+			this.edgeType = (Class<? extends Edge>) Class.forName(in.readUTF());
+			this.lazyNodeLists = in.readBoolean();
+			this.read(in);
+		}
+	}
+
+	private void read(DataInputStream in) throws IOException {
+		Operation[] ops = Operation.values();
+		this.trace = new int[1024];
+		this.traceLength = 0;
+		int op;
+		while ((op = in.read()) != -1) {
+			if (op >= ops.length)
+				throw new IOException("Unknown operation " + op + " in trace");
+			this.append(op);
+			for (int i = 0; i < ops[op].getIndices(); i++) {
+				this.append(readIndex(in));
+			}
+			this.operations++;
+		}
+	}
+
+	private static int readIndex(DataInputStream in) throws IOException {
+		int index = 0;
+		for (int shift = 0;; shift += 7) {
+			int b = in.read();
+			if (b == -1)
+				throw new EOFException("Trace ends within an operation");
+			index |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0)
+				return index;
+		}
+	}
+
+	private void append(int value) {
+		if (this.traceLength == this.trace.length)
+			this.trace = Arrays.copyOf(this.trace, 2 * this.trace.length);
+		this.trace[this.traceLength++] = value;
+	}
+
+	public Class<? extends Node> getNodeType() {
+		return this.nodeType;
+	}
+
+	public Class<? extends Edge> getEdgeType() {
+		return this.edgeType;
+	}
+
+	/**
+	 * Retrieve the number of operations in the trace
+	 *
+	 * @return
+	 */
+	public long getOperations() {
+		return this.operations;
+	}
+
+	/**
+	 * Replay the trace against every readable combination of the given list
+	 * types, with defaultWarmups runs that are not measured and defaultRuns
+	 * measured runs per combination
+	 *
+	 * @param listTypes
+	 * @return
+	 */
+	public List<Result> rank(Class<?>[] listTypes) {
+		return this.rank(listTypes, defaultWarmups, defaultRuns);
+	}
+
+	/**
+	 * Replay the trace against every readable combination of the given list
+	 * types and rank them by their median wall time and, for equal times, by
+	 * their median peak heap. Failed replays are ranked last.
+	 *
+	 * Each combination is replayed warmups times before it is measured, so
+	 * the code it uses has been compiled by the JIT, and then runs times.
+	 * Taking the median of these runs keeps single runs that were slowed down
+	 * by garbage collection or compilation from deciding the rank
+	 *
+	 * @param listTypes
+	 * @param warmups
+	 *            number of replays per combination that are not measured
+	 * @param runs
+	 *            number of measured replays per combination
+	 * @return
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public List<Result> rank(Class<?>[] listTypes, int warmups, int runs) {
+		ArrayList<Result> results = new ArrayList<>();
+		for (Class nodeList : listTypes) {
+			if (!INodeListDatastructureReadable.class.isAssignableFrom(nodeList))
+				continue;
+			for (Class graphEdgeList : listTypes) {
+				if (!IEdgeListDatastructureReadable.class.isAssignableFrom(graphEdgeList))
+					continue;
+				for (Class nodeEdgeList : listTypes) {
+					if (!IEdgeListDatastructureReadable.class.isAssignableFrom(nodeEdgeList)
+							|| !DataStructureMatrix.isNodeEdgeListType(nodeEdgeList))
+						continue;
+					results.add(this.replay(new GraphDataStructure(nodeList, graphEdgeList, nodeEdgeList,
+							this.nodeType), warmups, runs));
+				}
+			}
+		}
+		Collections.sort(results, new Comparator<Result>() {
+			@Override
+			public int compare(Result r1, Result r2) {
+				if (r1.failed() != r2.failed())
+					return r1.failed() ? 1 : -1;
+				if (r1.getNanos() != r2.getNanos())
+					return r1.getNanos() < r2.getNanos() ? -1 : 1;
+				return Long.compare(r1.getPeakHeap(), r2.getPeakHeap());
+			}
+		});
+		return results;
+	}
+
+	/**
+	 * Replay the trace warmups times without measuring it, then runs times,
+	 * and report the median wall time and peak heap of the measured runs. The
+	 * first failed replay is reported instead
+	 *
+	 * @param gds
+	 * @param warmups
+	 * @param runs
+	 * @return
+	 */
+	public Result replay(GraphDataStructure gds, int warmups, int runs) {
+		for (int i = 0; i < warmups; i++) {
+			Result warmup = this.replay(gds);
+			if (warmup.failed())
+				return warmup;
+		}
+		runs = Math.max(runs, 1);
+		long[] nanos = new long[runs];
+		long[] peakHeaps = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			Result r = this.replay(gds);
+			if (r.failed())
+				return r;
+			nanos[i] = r.getNanos();
+			peakHeaps[i] = r.getPeakHeap();
+		}
+		Arrays.sort(nanos);
+		Arrays.sort(peakHeaps);
+		return new Result(gds, nanos[runs / 2], peakHeaps[runs / 2], null);
+	}
+
+	/**
+	 * Replay the trace once against a new graph using the given data
+	 * structures. Node type, edge type and lazy node lists are set as recorded
+	 *
+	 * @param gds
+	 * @return
+	 */
+	public Result replay(GraphDataStructure gds) {
+		gds.setNodeType(this.nodeType);
+		gds.setEdgeType(this.edgeType);
+		gds.setLazyNodeLists(this.lazyNodeLists);
+
+		List<MemoryPoolMXBean> pools = new ArrayList<>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid())
+				pools.add(pool);
+		}
+		System.gc();
+		for (MemoryPoolMXBean pool : pools) {
+			pool.resetPeakUsage();
+		}
+
+		Graph g = gds.newGraphInstance("replay", 0, 0, 0);
+		long start = System.nanoTime();
+		String error = null;
+		try {
+			this.run(gds, g);
+		} catch (RuntimeException e) {
+			error = e.toString();
+		}
+		long nanos = System.nanoTime() - start;
+		if (g.edges instanceof DMappedEdgeList) {
+			// delete the file right away, replays are repeated many times
+			((DMappedEdgeList) g.edges).close();
+		}
+
+		// the sum of the peaks of all pools, see the class doc
+		long peakHeap = 0;
+		for (MemoryPoolMXBean pool : pools) {
+			peakHeap += pool.getPeakUsage().getUsed();
+		}
+		return new Result(gds, nanos, peakHeap, error);
+	}
+
+	private void run(GraphDataStructure gds, Graph g) {
+		Operation[] ops = Operation.values();
+		Node[] nodes = new Node[1024];
+		Edge lastEdge = null;
+
+		int pos = 0;
+		while (pos < this.traceLength) {
+			Operation op = ops[this.trace[pos]];
+			int a = op.getIndices() > 0 ? this.trace[pos + 1] : 0;
+			int b = op.getIndices() > 1 ? this.trace[pos + 2] : 0;
+			int c = op.getIndices() > 2 ? this.trace[pos + 3] : 0;
+			pos += 1 + op.getIndices();
+
+			switch (op) {
+			case AddNode:
+				if (a >= nodes.length)
+					nodes = Arrays.copyOf(nodes, Math.max(2 * nodes.length, a + 1));
+				nodes[a] = gds.newNodeInstance(a);
+				g.addNode(nodes[a]);
+				break;
+			case RemoveNode:
+				g.removeNode(node(gds, nodes, a));
+				break;
+			case ContainsNode:
+				this.consume(g.containsNode(node(gds, nodes, a)));
+				break;
+			case GetNode:
+				this.consume(g.getNode(a));
+				break;
+			case GetRandomNode:
+				this.consume(g.getRandomNode());
+				break;
+			case IterateNodes:
+				this.consume(g.getNodes());
+				break;
+			case AddEdge:
+				lastEdge = gds.newEdgeInstance(node(gds, nodes, a), node(gds, nodes, b));
+				g.addEdge(lastEdge);
+				break;
+			case RemoveEdge:
+				g.removeEdge(edge(gds, nodes, lastEdge, a, b));
+				break;
+			case ContainsEdge:
+				this.consume(g.containsEdge(a, b));
+				break;
+			case GetEdge:
+				this.consume(g.getEdge(a, b));
+				break;
+			case ContainsEdgeInstance:
+				this.consume(g.containsEdge(edge(gds, nodes, lastEdge, a, b)));
+				break;
+			case GetEdgeInstance:
+				this.consume(g.getEdge(edge(gds, nodes, lastEdge, a, b)));
+				break;
+			case GetRandomEdge:
+				this.consume(g.getRandomEdge());
+				break;
+			case IterateEdges:
+				this.consume(g.getEdges());
+				break;
+			case NodeAddEdge:
+				node(gds, nodes, a).addEdge(edge(gds, nodes, lastEdge, b, c));
+				break;
+			case NodeRemoveEdge:
+				node(gds, nodes, a).removeEdge(edge(gds, nodes, lastEdge, b, c));
+				break;
+			case NodeHasEdge:
+				this.consume(node(gds, nodes, a).hasEdge(edge(gds, nodes, lastEdge, b, c)));
+				break;
+			case NodeIterateEdges:
+				this.consume(node(gds, nodes, a).getEdges());
+				break;
+			case NodeIterateIncoming:
+				this.consume(((DirectedNode) node(gds, nodes, a)).getIncomingEdges());
+				break;
+			case NodeIterateOutgoing:
+				this.consume(((DirectedNode) node(gds, nodes, a)).getOutgoingEdges());
+				break;
+			case NodeIterateNeighbors:
+				this.consume(((DirectedNode) node(gds, nodes, a)).getNeighbors());
+				break;
+			case NodeHasNeighbor:
+				this.consume(((DirectedNode) node(gds, nodes, a)).hasNeighbor((DirectedNode) node(gds, nodes, b)));
+				break;
+			case NodeHasEdgeTo:
+				this.consume(node(gds, nodes, a).hasEdgeTo(b));
+				break;
+			case NodeCommonNeighbors:
+				this.consume(((DirectedNode) node(gds, nodes, a)).getCommonNeighborCount((DirectedNode) node(gds,
+						nodes, b)));
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Retrieve the node added with the given index, or a new dummy node if no
+	 * such node has been added
+	 */
+	private static Node node(GraphDataStructure gds, Node[] nodes, int index) {
+		if (index < nodes.length && nodes[index] != null)
+			return nodes[index];
+		return gds.newNodeInstance(index);
+	}
+
+	/**
+	 * Retrieve the edge between the given nodes. Nodes mostly add the edge
+	 * that has just been added to the graph, so that instance is reused if it
+	 * connects the same nodes
+	 */
+	private static Edge edge(GraphDataStructure gds, Node[] nodes, Edge lastEdge, int src, int dst) {
+		if (lastEdge instanceof DirectedEdge) {
+			DirectedEdge d = (DirectedEdge) lastEdge;
+			if (d.getSrc().getIndex() == src && d.getDst().getIndex() == dst)
+				return lastEdge;
+		} else if (lastEdge instanceof UndirectedEdge) {
+			UndirectedEdge u = (UndirectedEdge) lastEdge;
+			if (u.getNode1().getIndex() == src && u.getNode2().getIndex() == dst)
+				return lastEdge;
+		}
+		return gds.newEdgeInstance(node(gds, nodes, src), node(gds, nodes, dst));
+	}
+
+	private void consume(boolean value) {
+		if (value)
+			this.sink++;
+	}
+
+	private void consume(int value) {
+		this.sink += value;
+	}
+
+	private void consume(Object value) {
+		if (value != null)
+			this.sink++;
+	}
+
+	private void consume(Iterable<?> elements) {
+		for (Object e : elements) {
+			this.consume(e);
+		}
+	}
+
+	public static void main(String[] args) throws IOException, ClassNotFoundException {
+		if (args.length < 2) {
+			System.err.println("Usage: TraceReplayer dir filename [comma separated list types]");
+			return;
+		}
+		Class<?>[] listTypes = defaultListTypes;
+		if (args.length > 2) {
+			String[] names = args[2].split(",");
+			listTypes = new Class<?>[names.length];
+			for (int i = 0; i < names.length; i++) {
+				String name = names[i].contains(".") ? names[i] : "dna.datastructures." + names[i];
+				listTypes[i] = Class.forName(name);
+			}
+		}
+
+		TraceReplayer replayer = new TraceReplayer(args[0], args[1]);
+		System.out.println("Replaying " + replayer.getOperations() + " operations on " + replayer.getNodeType().getSimpleName()
+				+ " / " + replayer.getEdgeType().getSimpleName());
+		int rank = 1;
+		for (Result r : replayer.rank(listTypes)) {
+			System.out.println((rank++) + ". " + r);
+		}
+	}
+}
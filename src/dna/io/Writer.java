@@ -1,52 +1,235 @@
 package dna.io;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import dna.io.etc.Keywords;
 
 /**
  * Simple file writer that writes data to a file one line at a time.
  * 
+ * Lines are formatted into a reusable byte buffer (ints and longs digit by
+ * digit, without creating a String), which is handed to the output stream,
+ * optionally compressed, once it is full. In asynchronous mode, two buffers
+ * are used: while a filled buffer is compressed and written by a background
+ * thread, the next one is filled by the caller.
+ * 
  * @author benni
  * 
  */
 public class Writer {
-	private BufferedWriter writer;
+	/**
+	 * size of the buffer in bytes, at least 20 are used so that every long
+	 * fits into it
+	 */
+	public static int bufferSize = 1 << 16;
+
+	private static final int minBufferSize = 20;
+
+	private OutputStream out;
+
+	private byte[] buffer;
+	private int position;
+
+	private ExecutorService executor;
+	private byte[][] buffers;
+	private Future<?>[] pending;
+	private int current;
 
 	public Writer(String dir, String filename) throws IOException {
+		this(dir, filename, Compression.None, false);
+	}
+
+	/**
+	 * @param compression
+	 *            compression of the written file
+	 * @param async
+	 *            if true, compress and write the data in a background thread
+	 */
+	public Writer(String dir, String filename, Compression compression, boolean async) throws IOException {
 		(new File(dir)).mkdirs();
-		this.writer = new BufferedWriter(new FileWriter(dir + filename));
+		OutputStream file = new FileOutputStream(dir + filename);
+		try {
+			this.out = compression.wrap(file);
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+		int size = Math.max(bufferSize, minBufferSize);
+		this.buffer = new byte[size];
+		if (async) {
+			this.executor = Executors.newSingleThreadExecutor();
+			this.buffers = new byte[][] { this.buffer, new byte[size] };
+			this.pending = new Future<?>[2];
+		}
 	}
 
 	public void writeln(String line) throws IOException {
-		this.writer.write(line + "\n");
+		this.write(line);
+		this.newLine();
 	}
 
 	public void writeln(int line) throws IOException {
-		this.writer.write(line + "\n");
+		this.write(line);
+		this.newLine();
 	}
 
 	public void writeln(long line) throws IOException {
-		this.writer.write(line + "\n");
+		this.write(line);
+		this.newLine();
 	}
 
 	public void writeln(double line) throws IOException {
-		this.writer.write(line + "\n");
+		this.write(line);
+		this.newLine();
 	}
 
 	@SuppressWarnings("rawtypes")
 	public void writeln(Class line) throws IOException {
-		this.writer.write(line.getCanonicalName() + "\n");
+		this.writeln(line.getCanonicalName());
 	}
 
 	public void writeKeyword(String keyword) throws IOException {
-		this.writer.write(Keywords.asLine(keyword) + "\n");
+		this.write(Keywords.pre);
+		this.writeln(keyword);
+	}
+
+	public void write(String value) throws IOException {
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c >= 0x80) {
+				this.write(value.substring(i).getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+			if (this.position == this.buffer.length)
+				this.flushBuffer();
+			this.buffer[this.position++] = (byte) c;
+		}
+	}
+
+	public void write(int value) throws IOException {
+		this.write((long) value);
+	}
+
+	public void write(long value) throws IOException {
+		if (this.buffer.length - this.position < minBufferSize)
+			this.flushBuffer();
+		if (value < 0) {
+			if (value == Long.MIN_VALUE) {
+				this.write(Long.toString(value));
+				return;
+			}
+			this.buffer[this.position++] = '-';
+			value = -value;
+		}
+		int digits = 1;
+		for (long rest = value / 10; rest != 0; rest /= 10)
+			digits++;
+		for (int i = this.position + digits - 1; i >= this.position; i--) {
+			this.buffer[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		this.position += digits;
+	}
+
+	public void write(double value) throws IOException {
+		this.write(Double.toString(value));
+	}
+
+	public void newLine() throws IOException {
+		if (this.position == this.buffer.length)
+			this.flushBuffer();
+		this.buffer[this.position++] = '\n';
+	}
+
+	private void write(byte[] bytes) throws IOException {
+		for (int i = 0; i < bytes.length;) {
+			if (this.position == this.buffer.length)
+				this.flushBuffer();
+			int chunk = Math.min(bytes.length - i, this.buffer.length - this.position);
+			System.arraycopy(bytes, i, this.buffer, this.position, chunk);
+			this.position += chunk;
+			i += chunk;
+		}
+	}
+
+	/**
+	 * Hand the filled part of the buffer to the output stream, or to the
+	 * background thread and continue with the other buffer once it has been
+	 * written
+	 */
+	private void flushBuffer() throws IOException {
+		if (this.position == 0)
+			return;
+		if (this.executor == null) {
+			this.out.write(this.buffer, 0, this.position);
+			this.position = 0;
+			return;
+		}
+
+		final byte[] filled = this.buffer;
+		final int length = this.position;
+		this.pending[this.current] = this.executor.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws IOException {
+				Writer.this.out.write(filled, 0, length);
+				return null;
+			}
+		});
+		this.current = 1 - this.current;
+		this.await(this.current);
+		this.buffer = this.buffers[this.current];
+		this.position = 0;
+	}
+
+	/**
+	 * Wait until the given buffer has been written
+	 */
+	private void await(int index) throws IOException {
+		Future<?> future = this.pending[index];
+		if (future == null)
+			return;
+		this.pending[index] = null;
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new RuntimeException("Could not write", e.getCause());
+		}
 	}
 
 	public void close() throws IOException {
-		this.writer.close();
+		try {
+			this.flushBuffer();
+			if (this.executor != null) {
+				this.await(0);
+				this.await(1);
+			}
+		} finally {
+			if (this.executor != null) {
+				// if one write failed, the other one may still be running
+				this.executor.shutdown();
+				try {
+					this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			this.out.close();
+		}
 	}
 }
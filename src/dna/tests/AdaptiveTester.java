@@ -0,0 +1,104 @@
+package dna.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import dna.datastructures.DAdaptive;
+import dna.datastructures.DArrayList;
+import dna.datastructures.GraphDataStructure;
+import dna.graph.IElement;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.UndirectedNode;
+
+public class AdaptiveTester {
+	private GraphDataStructure gds;
+	private DAdaptive list;
+
+	@Before
+	public void setUp() {
+		this.gds = new GraphDataStructure(DArrayList.class, DArrayList.class, DAdaptive.class, UndirectedNode.class);
+		this.list = new DAdaptive(gds.getEdgeType());
+		this.list.setThresholds(16, 4, 8, 4);
+	}
+
+	private Edge edge(int i) {
+		return gds.newEdgeInstance(gds.newNodeInstance(i), gds.newNodeInstance(i + 1));
+	}
+
+	private void checkContents(int from, int to) {
+		assertEquals(to - from, list.size());
+		HashSet<IElement> seen = new HashSet<>();
+		for (Object e : list) {
+			assertTrue(seen.add((IElement) e));
+		}
+		for (int i = from; i < to; i++) {
+			assertTrue(list.contains(edge(i)));
+			assertEquals(edge(i), list.get(edge(i)));
+		}
+		assertFalse(list.contains(edge(to)));
+	}
+
+	@Test
+	public void growAndShrink() {
+		for (int i = 0; i < 16; i++) {
+			assertTrue(list.add(edge(i)));
+			assertFalse(list.isHashed());
+		}
+		assertTrue(list.add(edge(16)));
+		assertTrue(list.isHashed());
+		assertFalse(list.add(edge(16)));
+		checkContents(0, 17);
+
+		// stays hashed until dropping below the shrink threshold
+		for (int i = 0; i < 13; i++) {
+			assertTrue(list.remove(edge(i)));
+			assertTrue(list.isHashed());
+		}
+		assertTrue(list.remove(edge(13)));
+		assertFalse(list.isHashed());
+		checkContents(14, 17);
+	}
+
+	@Test
+	public void migrateOnManyContainsChecks() {
+		for (int i = 0; i < 8; i++) {
+			list.add(edge(i));
+		}
+		for (int i = 0; i < 40; i++) {
+			assertTrue(list.contains(edge(i % 8)));
+		}
+		assertTrue(list.isHashed());
+		checkContents(0, 8);
+	}
+
+	@Test
+	public void noMigrationForSmallLists() {
+		for (int i = 0; i < 4; i++) {
+			list.add(edge(i));
+		}
+		for (int i = 0; i < 1000; i++) {
+			list.contains(edge(i % 8));
+		}
+		assertFalse(list.isHashed());
+		checkContents(0, 4);
+	}
+
+	@Test
+	public void usedAsNodeEdgeList() {
+		UndirectedNode hub = (UndirectedNode) gds.newNodeInstance(0);
+		for (int i = 1; i <= 100; i++) {
+			Edge e = gds.newEdgeInstance(hub, gds.newNodeInstance(i));
+			assertTrue(hub.addEdge(e));
+			assertFalse(hub.addEdge(e));
+		}
+		assertEquals(100, hub.getDegree());
+		for (int i = 1; i <= 100; i++) {
+			assertTrue(hub.removeEdge(gds.newEdgeInstance(hub, gds.newNodeInstance(i))));
+		}
+		assertEquals(0, hub.getDegree());
+	}
+}
@@ -0,0 +1,102 @@
+package dna.tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import dna.datastructures.BitmapIndexSet;
+
+public class BitmapIndexSetTester {
+	private static final int limit = 3 * (1 << 16) + 100;
+
+	private BitmapIndexSet even;
+	private BitmapIndexSet third;
+
+	@Before
+	public void setUp() {
+		// Multiples of 2 and 3 across several containers, dense enough to be
+		// stored as bitmaps
+		this.even = new BitmapIndexSet();
+		this.third = new BitmapIndexSet();
+		for (int i = 0; i < limit; i++) {
+			if (i % 2 == 0)
+				assertTrue(this.even.add(i));
+			if (i % 3 == 0)
+				assertTrue(this.third.add(i));
+		}
+	}
+
+	@Test
+	public void addAndContains() {
+		assertEquals((limit + 1) / 2, this.even.size());
+		assertFalse(this.even.add(70000));
+		assertTrue(this.even.contains(70000));
+		assertFalse(this.even.contains(70001));
+		assertFalse(this.even.contains(limit + 1000));
+		assertEquals(limit - 2, this.even.getMax());
+		assertEquals(-1, new BitmapIndexSet().getMax());
+	}
+
+	@Test
+	public void bulkOperations() {
+		int common = (limit + 5) / 6;
+		assertEquals(common, this.even.andCardinality(this.third));
+		BitmapIndexSet and = this.even.and(this.third);
+		assertEquals(common, and.size());
+		assertTrue(and.contains(131076));
+		assertFalse(and.contains(131074));
+
+		BitmapIndexSet or = this.even.or(this.third);
+		assertEquals(this.even.size() + this.third.size() - common, or.size());
+		assertTrue(or.contains(9));
+		assertFalse(or.contains(7));
+	}
+
+	@Test
+	public void sparseOperations() {
+		// Array containers only
+		BitmapIndexSet a = new BitmapIndexSet();
+		BitmapIndexSet b = new BitmapIndexSet();
+		for (int i = 0; i < 100; i++) {
+			a.add(i * 1000);
+			b.add(i * 1500);
+		}
+		assertEquals(34, a.andCardinality(b));
+		assertEquals(34, a.and(b).size());
+		assertEquals(166, a.or(b).size());
+		assertEquals(34, a.andCardinality(this.third.and(a)));
+	}
+
+	@Test
+	public void removeShrinksContainers() {
+		// Shrink one container back to an array
+		for (int i = 0; i < 62000; i += 2) {
+			assertTrue(this.even.remove(i));
+		}
+		assertFalse(this.even.remove(4));
+		assertFalse(this.even.contains(4));
+		assertTrue(this.even.contains(62000));
+		int common = (limit + 5) / 6;
+		assertEquals(common - (62000 + 5) / 6, this.even.andCardinality(this.third));
+
+		int[] indices = this.even.toArray();
+		assertEquals(this.even.size(), indices.length);
+		assertEquals(62000, indices[0]);
+		for (int i = 1; i < indices.length; i++) {
+			assertTrue(indices[i] > indices[i - 1]);
+		}
+	}
+
+	@Test
+	public void removeEmptiesContainers() {
+		BitmapIndexSet set = new BitmapIndexSet();
+		set.add(5);
+		set.add(1 << 20);
+		assertTrue(set.remove(1 << 20));
+		assertEquals(5, set.getMax());
+		assertTrue(set.remove(5));
+		assertEquals(0, set.size());
+		assertEquals(0, set.toArray().length);
+	}
+}
@@ -0,0 +1,166 @@
+package dna.tests;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import dna.datastructures.*;
+import dna.graph.IElement;
+import dna.graph.nodes.*;
+
+@RunWith(Parameterized.class)
+@SuppressWarnings("rawtypes")
+public class BloomFilterTester {
+	private DataStructure filter;
+	private GraphDataStructure gds;
+	private boolean storesNodes;
+
+	private static final int elements = 1000;
+	private static final double falsePositiveProbability = 0.01;
+
+	public BloomFilterTester(Class<? extends DataStructure> filterType, Class<? extends Node> nodeType,
+			Boolean storesNodes) throws InstantiationException, IllegalAccessException, IllegalArgumentException,
+			InvocationTargetException, NoSuchMethodException, SecurityException {
+		this.gds = new GraphDataStructure(DArrayList.class, DArrayList.class, DArrayList.class, nodeType);
+		this.storesNodes = storesNodes;
+		this.filter = filterType.getConstructor(Class.class, double.class).newInstance(
+				storesNodes ? nodeType : gds.getEdgeType(), falsePositiveProbability);
+		this.filter.reinitializeWithSize(elements);
+	}
+
+	@Parameterized.Parameters(name = "{0} {1} {2}")
+	public static Collection testPairs() {
+		Class[] filterTypes = { DBloomFilter.class, DCountingBloomFilter.class };
+		Class[] nodeTypes = { UndirectedNode.class, DirectedDoubleWeightedNode.class };
+
+		ArrayList<Object> result = new ArrayList<>();
+		for (Class filterType : filterTypes) {
+			for (Class nodeType : nodeTypes) {
+				result.add(new Object[] { filterType, nodeType, true });
+				result.add(new Object[] { filterType, nodeType, false });
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Create the i-th element, which is either the node with index i or the
+	 * edge from node i to node i + 1
+	 */
+	private IElement element(int i) {
+		if (this.storesNodes)
+			return gds.newNodeInstance(i);
+		return gds.newEdgeInstance(gds.newNodeInstance(i), gds.newNodeInstance(i + 1));
+	}
+
+	@Test
+	public void noFalseNegatives() {
+		for (int i = 0; i < elements; i++) {
+			filter.add(element(i));
+		}
+		for (int i = 0; i < elements; i++) {
+			assertTrue(filter.contains(element(i)));
+		}
+		assertTrue(filter.size() <= elements);
+		assertTrue(filter.size() >= elements * (1 - 2 * falsePositiveProbability));
+	}
+
+	@Test
+	public void falsePositiveRate() {
+		for (int i = 0; i < elements; i++) {
+			filter.add(element(2 * i));
+		}
+
+		int falsePositives = 0;
+		int checks = 10 * elements;
+		for (int i = 0; i < checks; i++) {
+			if (filter.contains(element(2 * i + 1)))
+				falsePositives++;
+		}
+		assertTrue("Got " + falsePositives + " false positives", falsePositives < 3 * falsePositiveProbability
+				* checks);
+	}
+
+	@Test
+	public void rejectDuplicates() {
+		assertTrue(filter.add(element(42)));
+		assertFalse(filter.add(element(42)));
+		assertEquals(1, filter.size());
+	}
+
+	@Test
+	public void growBeyondInitialSize() {
+		assumeTrue(filter instanceof DBloomFilter);
+		for (int i = 0; i < 10 * elements; i++) {
+			filter.add(element(i));
+		}
+		for (int i = 0; i < 10 * elements; i++) {
+			assertTrue(filter.contains(element(i)));
+		}
+
+		int falsePositives = 0;
+		for (int i = 10 * elements; i < 20 * elements; i++) {
+			if (filter.contains(element(i)))
+				falsePositives++;
+		}
+		assertTrue("Got " + falsePositives + " false positives", falsePositives < 3 * falsePositiveProbability * 10
+				* elements);
+	}
+
+	@Test
+	public void removeFromCountingFilter() {
+		assumeTrue(filter instanceof DCountingBloomFilter);
+
+		/*
+		 * Only elements that have really been added may be removed again, so
+		 * remember which additions were rejected as false positives
+		 */
+		boolean[] added = new boolean[elements];
+		for (int i = 0; i < elements; i++) {
+			added[i] = filter.add(element(i));
+		}
+
+		for (int i = 0; i < elements; i += 2) {
+			if (added[i])
+				assertTrue(filter.remove(element(i)));
+		}
+		for (int i = 1; i < elements; i += 2) {
+			if (added[i])
+				assertTrue(filter.contains(element(i)));
+		}
+		for (int i = 1; i < elements; i += 2) {
+			if (added[i])
+				assertTrue(filter.remove(element(i)));
+		}
+
+		assertEquals(0, filter.size());
+		for (int i = 0; i < elements; i++) {
+			assertFalse(filter.contains(element(i)));
+		}
+	}
+
+	@Test
+	public void removeFromPlainFilter() {
+		assumeTrue(filter instanceof DBloomFilter);
+		filter.add(element(1));
+		assertFalse(filter.remove(element(1)));
+		assertTrue(filter.contains(element(1)));
+	}
+
+	@Test
+	public void maxNodeIndex() {
+		assumeTrue(storesNodes);
+		INodeListDatastructure nodeFilter = (INodeListDatastructure) filter;
+		assertEquals(-1, nodeFilter.getMaxNodeIndex());
+		filter.add(element(23));
+		filter.add(element(5));
+		assertEquals(23, nodeFilter.getMaxNodeIndex());
+	}
+}
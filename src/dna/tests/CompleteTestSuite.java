@@ -7,7 +7,13 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
    DatastructureTester.class,
    GraphTester.class,
-   GeneratorsTest.class
+   GeneratorsTest.class,
+   BloomFilterTester.class,
+   DecoratorTester.class,
+   ConcurrencyTester.class,
+   AdaptiveTester.class,
+   BitmapIndexSetTester.class,
+   TraceTester.class
 })
 public class CompleteTestSuite {
 
@@ -0,0 +1,190 @@
+package dna.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dna.datastructures.DConcurrentArray;
+import dna.datastructures.DConcurrentHashSet;
+import dna.datastructures.DataStructure;
+import dna.datastructures.GraphDataStructure;
+import dna.datastructures.IReadable;
+import dna.graph.IElement;
+import dna.graph.nodes.DirectedNode;
+import dna.graph.nodes.Node;
+
+public class ConcurrencyTester {
+	private static final int threads = 8;
+	private static final int elements = 20000;
+
+	private ExecutorService executor;
+	private GraphDataStructure gds;
+	private Node[] nodes;
+
+	@Before
+	public void setUp() {
+		this.executor = Executors.newFixedThreadPool(threads);
+		this.gds = new GraphDataStructure(DConcurrentArray.class, DConcurrentHashSet.class,
+				DConcurrentHashSet.class, DirectedNode.class);
+		this.nodes = new Node[elements + 1];
+		for (int i = 0; i <= elements; i++) {
+			this.nodes[i] = gds.newNodeInstance(i);
+		}
+	}
+
+	@After
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Create the i-th element, which is either the node with index i or the
+	 * edge from node i to node i + 1
+	 */
+	private IElement element(int i, boolean node) {
+		if (node)
+			return this.nodes[i];
+		return gds.newEdgeInstance(this.nodes[i], this.nodes[i + 1]);
+	}
+
+	/**
+	 * Let all threads add all elements, each of them in a different order, so
+	 * every element is added concurrently by several threads
+	 */
+	private int addFromAllThreads(final DataStructure list, final boolean node) throws Exception {
+		final AtomicInteger added = new AtomicInteger();
+		ArrayList<Future<Void>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			final int thread = t;
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (int i = 0; i < elements; i++) {
+						int index = (i * (2 * thread + 1)) % elements;
+						if (list.add(element(index, node)))
+							added.incrementAndGet();
+					}
+					return null;
+				}
+			}));
+		}
+		for (Future<Void> f : futures) {
+			f.get();
+		}
+		return added.get();
+	}
+
+	/**
+	 * Let each thread remove a disjoint part of the elements while reading the
+	 * remaining ones
+	 */
+	private int removeFromAllThreads(final DataStructure list, final boolean node) throws Exception {
+		final AtomicInteger removed = new AtomicInteger();
+		ArrayList<Future<Void>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			final int thread = t;
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (int i = thread; i < elements; i += 2 * threads) {
+						if (list.remove(element(i, node)))
+							removed.incrementAndGet();
+						if (i + threads < elements)
+							assertTrue(list.contains(element(i + threads, node)));
+						assertNotNull(((IReadable) list).getRandom());
+					}
+					return null;
+				}
+			}));
+		}
+		for (Future<Void> f : futures) {
+			f.get();
+		}
+		return removed.get();
+	}
+
+	private void checkList(DataStructure list, boolean node) throws Exception {
+		assertEquals(elements, this.addFromAllThreads(list, node));
+		assertEquals(elements, list.size());
+		for (int i = 0; i < elements; i++) {
+			assertTrue(list.contains(element(i, node)));
+		}
+
+		int removed = this.removeFromAllThreads(list, node);
+		assertEquals(elements / 2, removed);
+		assertEquals(elements - removed, list.size());
+
+		int iterated = 0;
+		for (Object e : list) {
+			assertNotNull(e);
+			iterated++;
+		}
+		assertEquals(list.size(), iterated);
+		assertEquals(list.size(), ((IReadable) list).getElements().size());
+	}
+
+	@Test
+	public void concurrentNodeList() throws Exception {
+		DConcurrentArray list = new DConcurrentArray(gds.getNodeType());
+		this.checkList(list, true);
+		assertEquals(elements - 1, list.getMaxNodeIndex());
+	}
+
+	@Test
+	public void concurrentArrayHighestIndex() {
+		DConcurrentArray list = new DConcurrentArray(gds.getNodeType());
+		Node highest = gds.newNodeInstance(Integer.MAX_VALUE);
+		assertNull(list.get(Integer.MAX_VALUE));
+		assertFalse(list.contains(highest));
+		assertFalse(list.remove(highest));
+		try {
+			list.add(highest);
+			fail("Node with index " + Integer.MAX_VALUE + " was accepted");
+		} catch (RuntimeException e) {
+		}
+		assertEquals(0, list.size());
+	}
+
+	@Test
+	public void concurrentEdgeList() throws Exception {
+		this.checkList(new DConcurrentHashSet(gds.getEdgeType()), false);
+	}
+
+	@Test
+	public void concurrentMaxNodeIndex() throws Exception {
+		final DConcurrentArray list = new DConcurrentArray(gds.getNodeType());
+		ArrayList<Future<Void>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			final int thread = t;
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (int i = thread; i < elements; i += threads) {
+						list.add(nodes[i]);
+						if (i % 3 == 0)
+							list.remove(nodes[i]);
+					}
+					return null;
+				}
+			}));
+		}
+		for (Future<Void> f : futures) {
+			f.get();
+		}
+
+		int expected = elements - 1;
+		while (expected % 3 == 0)
+			expected--;
+		assertEquals(expected, list.getMaxNodeIndex());
+		assertEquals(elements - (elements + 2) / 3, list.size());
+	}
+}
@@ -26,11 +26,7 @@ public class DatastructureTester {
 
 	private DataStructure dataStructure;
 	private Class<? extends Element> elementClass;
-	private static final Class[] elementClasses = {DirectedNode.class, DirectedDoubleWeightedNode.class,
-		UndirectedNode.class, UndirectedDoubleWeightedNode.class,
-		UndirectedEdge.class, UndirectedDoubleWeightedEdge.class,
-		DirectedEdge.class, DirectedDoubleWeightedEdge.class
-	};
+	private static final Class[] elementClasses = DataStructureMatrix.elementTypes;
 
 	public DatastructureTester(Class<?> d, Class<? extends Element> e) throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
 		this.dataStructure = (DataStructure) d.getConstructor(Class.class).newInstance(e);
@@ -39,17 +35,9 @@ public class DatastructureTester {
 
     @Parameterized.Parameters(name="{0} {1}")
 	public static Collection testPairs() throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
-    	Class[] dataStructures = {DArrayList.class, DArray.class, DHashSet.class, DHashMap.class, DLinkedList.class};
-
     	ArrayList<Object> result = new ArrayList<>();
-    	for ( Class sD: dataStructures ) {
-    		for ( Class sE: elementClasses) {
-    			// Check whether we can store an object of sE in sD
-    			if (( Node.class.isAssignableFrom(sE) && !INodeListDatastructure.class.isAssignableFrom(sD) ) ||
-    				( Edge.class.isAssignableFrom(sE) && !IEdgeListDatastructure.class.isAssignableFrom(sD) ))
-    				continue;
-    			result.add(new Object[]{sD, sE});
-    		}
+    	for ( Class[] pair: DataStructureMatrix.listElementPairs() ) {
+    		result.add(pair);
     	}
     	
 		return result;
@@ -101,6 +89,9 @@ public class DatastructureTester {
 	@Test(timeout=1500)
 	public void checkAddAndRemove() {
 		IElement dummy = mock(elementClass);
+		if ( dummy instanceof Edge ) {
+			stubEdge((Edge) dummy, 0);
+		}
 		assertFalse(dataStructure.contains(dummy));
 		assertEquals(0, dataStructure.size());
 		dataStructure.add(dummy);
@@ -160,6 +151,8 @@ public class DatastructureTester {
 			dummies[i] = mock(this.elementClass);
 			if (Node.class.isAssignableFrom(this.elementClass))
 				when(((Node) dummies[i]).getIndex()).thenReturn(i);
+			if (Edge.class.isAssignableFrom(this.elementClass))
+				stubEdge((Edge) dummies[i], i);
 			dataStructure.add(dummies[i]);
 		}
 		assertEquals(dummies.length, dataStructure.size());		
@@ -232,6 +225,13 @@ public class DatastructureTester {
 				when(((Node) singleDummy).getIndex()).thenReturn(i);
 			}
 			
+			/*
+			 * ...and edges are identified by the nodes they connect
+			 */
+			if ( singleDummy instanceof Edge ) {
+				stubEdge((Edge) singleDummy, i);
+			}
+			
 			dataStructure.add(singleDummy);
 		}
 		assertEquals(goalSize, dataStructure.size());
@@ -239,6 +239,7 @@ public class DatastructureTester {
 	
 	@Test
 	public void checkIterator() {
+		assumeTrue(DataStructureMatrix.storesInstances(dataStructure.getClass()));
 		int size = 20;
 		IElement singleDummy;
 		
@@ -253,6 +254,13 @@ public class DatastructureTester {
 				when(((Node) singleDummy).getIndex()).thenReturn(i);
 			}
 			
+			/*
+			 * ...and edges are identified by the nodes they connect
+			 */
+			if ( singleDummy instanceof Edge ) {
+				stubEdge((Edge) singleDummy, i);
+			}
+			
 			dataStructure.add(singleDummy);
 			dummies.add(singleDummy);
 		}
@@ -297,6 +305,77 @@ public class DatastructureTester {
 		assertEquals(1, tempDS.size());
 		assertEquals(dummy2, tempDS.get(1));
 	}
+
+	@Test
+	public void checkPageBitsChangedLater() {
+		assumeTrue(dataStructure instanceof DPagedArray);
+		assumeTrue(Node.class.isAssignableFrom(this.elementClass));
+
+		DPagedArray tempDS = (DPagedArray) dataStructure;
+		Node[] dummies = new Node[3];
+		for (int i = 0; i < dummies.length; i++) {
+			dummies[i] = (Node) mock(this.elementClass);
+			when(dummies[i].getIndex()).thenReturn(i * 1500);
+			assertTrue(tempDS.add(dummies[i]));
+		}
+
+		// only lists initialized afterwards use the new page size
+		int pageBits = DPagedArray.pageBits;
+		DPagedArray.pageBits = pageBits + 2;
+		try {
+			for (int i = 0; i < dummies.length; i++) {
+				assertEquals(dummies[i], tempDS.get(i * 1500));
+			}
+			assertTrue(tempDS.remove(dummies[2]));
+			assertEquals(1500, tempDS.getMaxNodeIndex());
+			assertTrue(tempDS.add(dummies[2]));
+			assertEquals(dummies[2], tempDS.get(3000));
+		} finally {
+			DPagedArray.pageBits = pageBits;
+		}
+	}
+
+	@Test
+	public void checkSparseNodeIndices() {
+		assumeTrue(dataStructure instanceof INodeListDatastructureReadable);
+		assumeTrue(Node.class.isAssignableFrom(this.elementClass));
+
+		INodeListDatastructureReadable tempDS = (INodeListDatastructureReadable) dataStructure;
+		int[] indices = { 3, 70000, 2000000, 70001 };
+		Node[] dummies = new Node[indices.length];
+		for (int i = 0; i < indices.length; i++) {
+			dummies[i] = (Node) mock(this.elementClass);
+			when(dummies[i].getIndex()).thenReturn(indices[i]);
+			assertTrue(tempDS.add(dummies[i]));
+		}
+		assertEquals(2000000, tempDS.getMaxNodeIndex());
+		for (int i = 0; i < indices.length; i++) {
+			assertEquals(dummies[i], tempDS.get(indices[i]));
+		}
+
+		assertTrue(tempDS.remove(dummies[2]));
+		assertFalse(tempDS.contains(dummies[2]));
+		assertEquals(70001, tempDS.getMaxNodeIndex());
+
+		// Empty a whole range of indices and use it again
+		assertTrue(tempDS.remove(dummies[1]));
+		assertTrue(tempDS.remove(dummies[3]));
+		assertEquals(3, tempDS.getMaxNodeIndex());
+		assertEquals(1, tempDS.size());
+		assertTrue(tempDS.add(dummies[3]));
+		assertEquals(dummies[3], tempDS.get(70001));
+		assertFalse(tempDS.contains(dummies[1]));
+		assertEquals(70001, tempDS.getMaxNodeIndex());
+		assertEquals(2, tempDS.size());
+		for (int i = 0; i < 10; i++) {
+			assertTrue(tempDS.contains(tempDS.getRandom()));
+		}
+
+		// Replace the highest index by a lower one before asking for it
+		assertTrue(tempDS.remove(dummies[3]));
+		assertTrue(tempDS.add(dummies[1]));
+		assertEquals(70000, tempDS.getMaxNodeIndex());
+	}
 	
 	@Test
 	public void checkGetRandom() {
@@ -316,4 +395,165 @@ public class DatastructureTester {
 		}
 	}
 	
+	@Test
+	public void checkIntersection() {
+		assumeTrue(dataStructure instanceof DSortedEdgeArray);
+		DSortedEdgeArray list = (DSortedEdgeArray) dataStructure;
+		DSortedEdgeArray other = new DSortedEdgeArray(elementClass);
+
+		// node 5 is connected to 1, 3, 7 and 9, node 6 to 1, 2, 3 and 9
+		for (int n : new int[] { 9, 3, 7, 1 }) {
+			list.add(edgeBetween(5, n));
+		}
+		for (int n : new int[] { 2, 9, 1, 3 }) {
+			other.add(edgeBetween(n, 6));
+		}
+
+		assertArrayEquals(new int[] { 1, 3, 7, 9 }, list.getNeighbors(5));
+		assertArrayEquals(new int[] { 1, 2, 3, 9 }, other.getNeighbors(6));
+		assertArrayEquals(new int[] { 1, 3, 9 }, list.intersect(5, other, 6));
+		assertEquals(3, list.countCommonNeighbors(5, other, 6));
+		assertTrue(list.containsNeighbor(5, 7));
+		assertFalse(list.containsNeighbor(5, 2));
+
+		list.remove(list.get(edgeBetween(5, 3)));
+		assertArrayEquals(new int[] { 1, 9 }, list.intersect(5, other, 6));
+	}
+
+	@Test
+	public void checkGetRandomAfterRemovals() {
+		assumeTrue(dataStructure instanceof IReadable);
+		assumeTrue(DataStructureMatrix.storesInstances(dataStructure.getClass()));
+		IReadable tempDS = (IReadable) dataStructure;
+
+		IElement[] dummies = new IElement[100];
+		for (int i = 0; i < dummies.length; i++) {
+			dummies[i] = mock(elementClass);
+			if (dummies[i] instanceof Node) {
+				when(((Node) dummies[i]).getIndex()).thenReturn(i);
+			} else if (dummies[i] instanceof Edge) {
+				stubEdge((Edge) dummies[i], i);
+			}
+			tempDS.add(dummies[i]);
+		}
+
+		// Leave only two elements far apart, so sparse storages get many gaps
+		for (int i = 0; i < dummies.length; i++) {
+			if (i != 3 && i != 97)
+				assertTrue(tempDS.remove(dummies[i]));
+		}
+		assertEquals(2, tempDS.size());
+
+		boolean[] seen = new boolean[dummies.length];
+		for (int i = 0; i < 200; i++) {
+			IElement random = tempDS.getRandom();
+			assertTrue(random == dummies[3] || random == dummies[97]);
+			seen[random == dummies[3] ? 3 : 97] = true;
+		}
+		assertTrue(seen[3] && seen[97]);
+	}
+
+	@Test
+	public void checkFingerprint() throws ReflectiveOperationException {
+		DataStructure other = dataStructure.getClass().getConstructor(Class.class).newInstance(elementClass);
+		IElement[] dummies = new IElement[20];
+		for (int i = 0; i < dummies.length; i++) {
+			dummies[i] = mock(elementClass);
+			if (dummies[i] instanceof Node) {
+				when(((Node) dummies[i]).getIndex()).thenReturn(i);
+			} else if (dummies[i] instanceof Edge) {
+				stubEdge((Edge) dummies[i], i);
+			}
+		}
+		long empty = dataStructure.getFingerprint();
+		assertEquals(empty, other.getFingerprint());
+
+		// Same elements in a different order
+		for (int i = 0; i < dummies.length; i++) {
+			dataStructure.add(dummies[i]);
+			other.add(dummies[dummies.length - 1 - i]);
+		}
+		assertEquals(dataStructure.getFingerprint(), other.getFingerprint());
+
+		long full = dataStructure.getFingerprint();
+		assertTrue(dataStructure.remove(dummies[7]));
+		assertNotEquals(full, dataStructure.getFingerprint());
+		assertFalse(dataStructure.equals(other));
+		assertFalse(dataStructure.add(dummies[8]));
+		assertTrue(dataStructure.add(dummies[7]));
+		assertEquals(full, dataStructure.getFingerprint());
+
+		for (IElement dummy : dummies) {
+			assertTrue(dataStructure.remove(dummy));
+		}
+		assertEquals(empty, dataStructure.getFingerprint());
+	}
+
+	@Test
+	public void checkEdgeByIndices() {
+		assumeTrue(Edge.class.isAssignableFrom(elementClass));
+		assumeTrue(DataStructureMatrix.storesInstances(dataStructure.getClass()));
+		IEdgeListDatastructure edgeList = (IEdgeListDatastructure) dataStructure;
+		Edge[] dummies = new Edge[20];
+		for (int i = 0; i < dummies.length; i++) {
+			dummies[i] = edgeBetween(i, dummies.length + (i * 7) % dummies.length);
+			assertTrue(dataStructure.add(dummies[i]));
+		}
+		for (int i = 0; i < dummies.length; i++) {
+			int j = dummies.length + (i * 7) % dummies.length;
+			assertTrue(edgeList.contains(i, j));
+			if (dataStructure instanceof IEdgeListDatastructureReadable) {
+				assertSame(dummies[i], ((IEdgeListDatastructureReadable) dataStructure).get(i, j));
+			}
+			if (UndirectedEdge.class.isAssignableFrom(elementClass)) {
+				assertTrue(edgeList.contains(j, i));
+			} else {
+				assertFalse(edgeList.contains(j, i));
+			}
+		}
+		assertFalse(edgeList.contains(1, 2));
+		if (dataStructure instanceof IEdgeListDatastructureReadable) {
+			assertNull(((IEdgeListDatastructureReadable) dataStructure).get(1, 2));
+		}
+
+		assertTrue(dataStructure.remove(dummies[3]));
+		assertFalse(edgeList.contains(3, 21));
+	}
+
+	/**
+	 * Create a mocked edge between two mocked nodes, where undirected edges
+	 * store the node with the lower index first
+	 */
+	private Edge edgeBetween(int n1, int n2) {
+		Edge edge = (Edge) mock(elementClass);
+		if (edge instanceof UndirectedEdge) {
+			stubEdge(edge, Math.min(n1, n2), Math.max(n1, n2));
+		} else {
+			stubEdge(edge, n1, n2);
+		}
+		return edge;
+	}
+
+	/**
+	 * Let a mocked edge connect two mocked nodes with indices i and i + 1, so
+	 * data structures that key edges by their nodes can tell them apart
+	 */
+	private void stubEdge(Edge edge, int i) {
+		stubEdge(edge, i, i + 1);
+	}
+
+	private void stubEdge(Edge edge, int i, int j) {
+		Node n1 = mock(Node.class);
+		when(n1.getIndex()).thenReturn(i);
+		Node n2 = mock(Node.class);
+		when(n2.getIndex()).thenReturn(j);
+		if (edge instanceof DirectedEdge) {
+			when(((DirectedEdge) edge).getSrc()).thenReturn(n1);
+			when(((DirectedEdge) edge).getDst()).thenReturn(n2);
+		} else if (edge instanceof UndirectedEdge) {
+			when(((UndirectedEdge) edge).getNode1()).thenReturn(n1);
+			when(((UndirectedEdge) edge).getNode2()).thenReturn(n2);
+		}
+	}
+	
 }
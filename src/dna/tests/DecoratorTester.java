@@ -0,0 +1,285 @@
+package dna.tests;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import dna.datastructures.*;
+import dna.datastructures.DataStructureProfile.Operation;
+import dna.datastructures.GraphDataStructure.ListType;
+import dna.factories.GraphGenerator;
+import dna.factories.RandomDirectedGraphGenerator;
+import dna.factories.RandomUndirectedDoubleWeightedGraphGenerator;
+import dna.graph.Graph;
+import dna.graph.IElement;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.*;
+import dna.util.parameters.Parameter;
+
+@RunWith(Parameterized.class)
+@SuppressWarnings("rawtypes")
+public class DecoratorTester {
+	private Class<? extends DataStructure> wrappedType;
+	private Class<? extends IElement> elementType;
+	private GraphDataStructure gds;
+	private boolean storesNodes;
+
+	private static final int elements = 1000;
+
+	public DecoratorTester(Class<? extends DataStructure> wrappedType, Class<? extends Node> nodeType,
+			Boolean storesNodes) {
+		this.wrappedType = wrappedType;
+		this.gds = new GraphDataStructure(DArrayList.class, DArrayList.class, DArrayList.class, nodeType);
+		this.storesNodes = storesNodes;
+		this.elementType = storesNodes ? nodeType : gds.getEdgeType();
+	}
+
+	@Parameterized.Parameters(name = "{0} {1} {2}")
+	public static Collection testPairs() {
+		Class[] dataStructures = { DArrayList.class, DArray.class, DHashSet.class, DHashMap.class, DLinkedList.class,
+				DIntHashMap.class, DLongHashMap.class };
+		Class[] nodeTypes = { DirectedNode.class, UndirectedDoubleWeightedNode.class };
+
+		ArrayList<Object> result = new ArrayList<>();
+		for (Class dataStructure : dataStructures) {
+			for (Class nodeType : nodeTypes) {
+				if (INodeListDatastructureReadable.class.isAssignableFrom(dataStructure))
+					result.add(new Object[] { dataStructure, nodeType, true });
+				if (IEdgeListDatastructureReadable.class.isAssignableFrom(dataStructure))
+					result.add(new Object[] { dataStructure, nodeType, false });
+			}
+		}
+		return result;
+	}
+
+	private DataStructure newWrapped() throws InstantiationException, IllegalAccessException,
+			IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		return wrappedType.getConstructor(Class.class).newInstance(elementType);
+	}
+
+	/**
+	 * Create the i-th element, which is either the node with index i or the
+	 * edge from node i to node i + 1
+	 */
+	private IElement element(int i) {
+		if (this.storesNodes)
+			return gds.newNodeInstance(i);
+		return gds.newEdgeInstance(gds.newNodeInstance(i), gds.newNodeInstance(i + 1));
+	}
+
+	/**
+	 * Run the same random operations on a plain data structure and a
+	 * decorated one, which must return the same results for all of them
+	 */
+	private void checkSameResults(DataStructure plain, DataStructureReadable decorated) {
+		Random r = new Random(42);
+
+		for (int i = 0; i < 10 * elements; i++) {
+			IElement e = element(r.nextInt(elements / 5));
+			switch (r.nextInt(3)) {
+			case 0:
+				assertEquals(plain.add(e), decorated.add(e));
+				break;
+			case 1:
+				assertEquals(plain.remove(e), decorated.remove(e));
+				break;
+			default:
+				assertEquals(plain.contains(e), decorated.contains(e));
+			}
+			assertEquals(plain.size(), decorated.size());
+		}
+
+		assertEquals(new ArrayList<>(((IReadable) plain).getElements()), new ArrayList<>(decorated.getElements()));
+		assertEquals(plain, decorated);
+	}
+
+	@Test
+	public void sameResultsAsWrapped() throws InstantiationException, IllegalAccessException,
+			IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		this.checkSameResults(newWrapped(), new DFiltered(elementType, newWrapped()));
+	}
+
+	@Test
+	public void profiledSameResultsAsWrapped() throws InstantiationException, IllegalAccessException,
+			IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		this.checkSameResults(newWrapped(), new DProfiled(elementType, newWrapped(), new DataStructureProfile("test")));
+	}
+
+	@Test
+	public void profileCountsOperations() throws InstantiationException, IllegalAccessException,
+			IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		DataStructureProfile profile = new DataStructureProfile("test");
+		DProfiled profiled = new DProfiled(elementType, newWrapped(), profile);
+		for (int i = 0; i < 10; i++) {
+			profiled.add(element(i));
+		}
+		for (int i = 0; i < 5; i++) {
+			profiled.contains(element(i));
+			profiled.remove(element(i));
+		}
+		profiled.getRandom();
+		int iterated = 0;
+		for (Iterator it = profiled.iterator(); it.hasNext(); it.next()) {
+			iterated++;
+		}
+		if (storesNodes) {
+			profiled.get(7);
+		} else {
+			profiled.get((Edge) element(7));
+		}
+
+		assertEquals(10, profile.getCount(Operation.Add));
+		assertEquals(5, profile.getCount(Operation.Contains));
+		assertEquals(5, profile.getCount(Operation.Remove));
+		assertEquals(1, profile.getCount(Operation.GetRandom));
+		assertEquals(1, profile.getCount(Operation.Get));
+		assertEquals(iterated, profile.getCount(Operation.Iterate));
+
+		long histogramCount = 0;
+		for (long c : profile.getHistogram(Operation.Add)) {
+			histogramCount += c;
+		}
+		assertEquals(10, histogramCount);
+		assertTrue(profile.getPercentile(Operation.Add, 0.5) <= profile.getPercentile(Operation.Add, 0.99));
+		assertTrue(profile.report().contains("test Add: 10 calls"));
+
+		profile.reset();
+		assertEquals(0, profile.getCount(Operation.Add));
+	}
+
+	@Test
+	public void growBeyondInitialSize() throws InstantiationException, IllegalAccessException,
+			IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		DFiltered filtered = new DFiltered(elementType, newWrapped());
+		for (int i = 0; i < elements; i++) {
+			assertTrue(filtered.add(element(i)));
+		}
+		for (int i = 0; i < elements; i++) {
+			assertFalse(filtered.add(element(i)));
+			assertTrue(filtered.contains(element(i)));
+		}
+		for (int i = elements; i < 2 * elements; i++) {
+			assertFalse(filtered.contains(element(i)));
+		}
+		assertEquals(elements, filtered.size());
+	}
+
+	@Test
+	public void removeAndAddAgain() throws InstantiationException, IllegalAccessException,
+			IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		DFiltered filtered = new DFiltered(elementType, newWrapped());
+		for (int i = 0; i < elements; i++) {
+			filtered.add(element(i));
+		}
+		for (int i = 0; i < elements; i += 2) {
+			assertTrue(filtered.remove(element(i)));
+			assertFalse(filtered.remove(element(i)));
+		}
+		for (int i = 0; i < elements; i++) {
+			assertEquals(i % 2 == 1, filtered.contains(element(i)));
+		}
+		for (int i = 0; i < elements; i += 2) {
+			assertTrue(filtered.add(element(i)));
+		}
+		assertEquals(elements, filtered.size());
+	}
+
+	@Test
+	public void keepOrderOfLists() throws InstantiationException, IllegalAccessException, IllegalArgumentException,
+			InvocationTargetException, NoSuchMethodException, SecurityException {
+		assumeTrue(wrappedType == DArrayList.class || wrappedType == DLinkedList.class);
+		DFiltered filtered = new DFiltered(elementType, newWrapped());
+		ArrayList<IElement> added = new ArrayList<>();
+		for (int i = elements - 1; i >= 0; i -= 3) {
+			filtered.add(element(i));
+			added.add(element(i));
+		}
+		assertEquals(added, new ArrayList<>(filtered.getElements()));
+	}
+
+	@Test
+	public void wrapExistingElements() throws InstantiationException, IllegalAccessException,
+			IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		DataStructure plain = newWrapped();
+		for (int i = 0; i < elements; i++) {
+			plain.add(element(i));
+		}
+		DFiltered filtered = new DFiltered(elementType, plain);
+		for (int i = 0; i < elements; i++) {
+			assertTrue(filtered.contains(element(i)));
+		}
+		assertFalse(filtered.add(element(0)));
+		assertEquals(elements, filtered.size());
+	}
+
+	@Test
+	public void filteredSlotsOfGraphDataStructure() throws InstantiationException, IllegalAccessException,
+			IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		assumeTrue(wrappedType == DArrayList.class && storesNodes);
+
+		assertFalse(gds.newNodeList() instanceof DFiltered);
+		for (ListType type : ListType.values()) {
+			gds.setFiltered(type, true);
+			assertTrue(gds.isFiltered(type));
+		}
+		assertTrue(gds.newNodeList() instanceof DFiltered);
+		assertTrue(gds.newGraphEdgeList() instanceof DFiltered);
+		assertTrue(gds.newNodeEdgeList() instanceof DFiltered);
+		assertTrue(gds.isReadable(gds.newNodeList()));
+
+		Class<? extends GraphGenerator> generator = gds.createsDirected() ? RandomDirectedGraphGenerator.class
+				: RandomUndirectedDoubleWeightedGraphGenerator.class;
+		GraphGenerator gg = generator.getConstructor(String.class, Parameter[].class, GraphDataStructure.class,
+				long.class, int.class, int.class).newInstance("ABC", new Parameter[] {}, gds, 0, 200, 250);
+		Graph g = gg.generate();
+		assertEquals(200, g.getNodeCount());
+		assertEquals(250, g.getEdgeCount());
+		for (IElement n : g.getNodes()) {
+			assertTrue(g.containsNode((Node) n));
+		}
+
+		gds.setFiltered(ListType.NodeList, false);
+		assertFalse(gds.newNodeList() instanceof DFiltered);
+	}
+
+	@Test
+	public void profiledSlotsOfGraphDataStructure() throws InstantiationException, IllegalAccessException,
+			IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		assumeTrue(wrappedType == DArrayList.class && storesNodes);
+
+		assertNull(gds.getProfile(ListType.NodeList));
+		gds.setFiltered(ListType.NodeEdgeList, true);
+		for (ListType type : ListType.values()) {
+			gds.setProfiled(type, true);
+			assertTrue(gds.isProfiled(type));
+		}
+		assertTrue(gds.newNodeList() instanceof DProfiled);
+		assertTrue(((DProfiled) gds.newNodeEdgeList()).getWrapped() instanceof DFiltered);
+		assertTrue(gds.isReadable(gds.newGraphEdgeList()));
+
+		Class<? extends GraphGenerator> generator = gds.createsDirected() ? RandomDirectedGraphGenerator.class
+				: RandomUndirectedDoubleWeightedGraphGenerator.class;
+		GraphGenerator gg = generator.getConstructor(String.class, Parameter[].class, GraphDataStructure.class,
+				long.class, int.class, int.class).newInstance("ABC", new Parameter[] {}, gds, 0, 200, 250);
+		Graph g = gg.generate();
+		assertEquals(250, g.getEdgeCount());
+
+		// node lists of directed graphs also hold the neighbors of each node
+		assertTrue(gds.getProfile(ListType.NodeList).getCount(Operation.Add) >= 200);
+		assertTrue(gds.getProfile(ListType.GraphEdgeList).getCount(Operation.Add) >= 250);
+		assertTrue(gds.getProfile(ListType.NodeEdgeList).getCount(Operation.Add) >= 500);
+		assertTrue(gds.getProfilingReport().contains("NodeEdgeList Add"));
+
+		gds.setProfiled(ListType.NodeList, false);
+		assertFalse(gds.newNodeList() instanceof DProfiled);
+	}
+}
@@ -7,8 +7,13 @@ import static org.mockito.Mockito.*;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -23,15 +28,26 @@ import dna.factories.IGraphGenerator;
 import dna.factories.IRandomGenerator;
 import dna.factories.RandomDirectedGraphGenerator;
 import dna.factories.RandomUndirectedDoubleWeightedGraphGenerator;
+import dna.graph.CsrGraph;
 import dna.graph.Graph;
+import dna.graph.IDoubleWeighted;
+import dna.graph.IElement;
+import dna.graph.edges.DirectedEdge;
 import dna.graph.edges.Edge;
+import dna.graph.edges.UndirectedEdge;
 import dna.graph.nodes.DirectedDoubleWeightedNode;
 import dna.graph.nodes.DirectedNode;
 import dna.graph.nodes.Node;
 import dna.graph.nodes.UndirectedDoubleWeightedNode;
 import dna.graph.nodes.UndirectedNode;
+import dna.io.BinaryGraphReader;
+import dna.io.BinaryGraphWriter;
+import dna.io.Compression;
 import dna.io.GraphReader;
+import dna.io.GraphVisitor;
 import dna.io.GraphWriter;
+import dna.io.MappedGraphReader;
+import dna.io.Writer;
 import dna.util.parameters.Parameter;
 
 @RunWith(Parameterized.class)
@@ -138,6 +154,273 @@ public class GeneratorsTest {
 		assertEquals(g, g2);
 	}
 
+	/**
+	 * Generate a graph, skipping the test if the generator can't create the
+	 * node type
+	 */
+	private Graph generate() {
+		assumeTrue(gg.canGenerateNodeType(nodeType));
+		return gg.generate();
+	}
+
+	/**
+	 * Generate a graph and write it in the text format to
+	 * {@link #dir()}/{@link #graphName()}
+	 */
+	private Graph generateAndWrite() {
+		Graph g = this.generate();
+		assertTrue(new GraphWriter().write(g, this.dir(), this.graphName()));
+		return g;
+	}
+
+	private String dir() {
+		return folder.getRoot().getAbsolutePath();
+	}
+
+	private String graphName() {
+		return gds.getDataStructures();
+	}
+
+	@Test
+	public void testWriteReadBinary() throws ClassNotFoundException, IOException {
+		Graph g = this.generate();
+
+		BinaryGraphWriter gw = new BinaryGraphWriter();
+		assertTrue(gw.write(g, this.dir(), this.graphName()));
+
+		BinaryGraphReader gr = new BinaryGraphReader();
+		Graph g2 = gr.read(this.dir(), this.graphName(), null);
+
+		assertEquals(gds, g2.getGraphDatastructures());
+		assertEquals(g.getName(), g2.getName());
+		assertEquals(g.getTimestamp(), g2.getTimestamp());
+		assertEquals(g.getFingerprint(), g2.getFingerprint());
+		assertEquals(g, g2);
+		if (IDoubleWeighted.class.isAssignableFrom(nodeType)) {
+			assertArrayEquals(g.getNodeWeights(), g2.getNodeWeights(), 0);
+		}
+		if (IDoubleWeighted.class.isAssignableFrom(gds.getEdgeType())) {
+			assertArrayEquals(g.toCsr().getOutWeights(), g2.toCsr().getOutWeights(), 0);
+		}
+	}
+
+	@Test
+	public void testWriteReadMapped() throws ClassNotFoundException, IOException {
+		Graph g = this.generateAndWrite();
+
+		// Small windows, so numbers are split across them
+		long windowSize = MappedGraphReader.windowSize;
+		MappedGraphReader.windowSize = 61;
+		Graph g2;
+		try {
+			g2 = new MappedGraphReader().read(this.dir(), this.graphName(), null);
+		} finally {
+			MappedGraphReader.windowSize = windowSize;
+		}
+
+		assertEquals(gds, g2.getGraphDatastructures());
+		assertEquals(g.getName(), g2.getName());
+		assertEquals(g.getTimestamp(), g2.getTimestamp());
+		assertEquals(g.getFingerprint(), g2.getFingerprint());
+		assertEquals(g, g2);
+		if (IDoubleWeighted.class.isAssignableFrom(nodeType)) {
+			assertArrayEquals(g.getNodeWeights(), g2.getNodeWeights(), 0);
+			assertArrayEquals(g.toCsr().getOutWeights(), g2.toCsr().getOutWeights(), 0);
+		}
+	}
+
+	@Test
+	public void testWriteReadMappedLongWeights() throws ClassNotFoundException, IOException {
+		assumeTrue(IDoubleWeighted.class.isAssignableFrom(gds.getEdgeType()));
+		Graph g = this.generateAndWrite();
+
+		// pad all weights with zeros, which is longer than the token buffer of
+		// the reader but does not change their value
+		Path file = Paths.get(this.dir() + this.graphName());
+		String content = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+		String padded = content.replaceAll("(@-?\\d+\\.\\d+)", "$1000000000000000000000000000000000000000000000000000");
+		assertNotEquals(content, padded);
+		Files.write(file, padded.getBytes(StandardCharsets.US_ASCII));
+
+		Graph g2 = new MappedGraphReader().read(this.dir(), this.graphName(), null);
+
+		assertEquals(g, g2);
+		assertArrayEquals(g.toCsr().getOutWeights(), g2.toCsr().getOutWeights(), 0);
+	}
+
+	@Test
+	public void testWriteReadMappedParallel() throws ClassNotFoundException, IOException {
+		Graph g = this.generateAndWrite();
+
+		Graph[] read = { new MappedGraphReader(4).read(this.dir(), this.graphName(), null),
+				new GraphReader(4).read(this.dir(), this.graphName(), null) };
+
+		for (Graph g2 : read) {
+			assertEquals(g.getFingerprint(), g2.getFingerprint());
+			assertEquals(g, g2);
+			for (IElement nIn : g.getNodes()) {
+				Node n = (Node) nIn;
+				int degree = 0;
+				for (Edge e : n.getEdges()) {
+					assertTrue(g2.getNode(n.getIndex()).hasEdge(e));
+					degree++;
+				}
+				for (Edge e : g2.getNode(n.getIndex()).getEdges()) {
+					degree--;
+				}
+				assertEquals(0, degree);
+			}
+		}
+	}
+
+	@Test
+	public void testWriteReadCompressed() throws ClassNotFoundException, IOException {
+		Graph g = this.generateAndWrite();
+		String tempFolder = this.dir();
+		byte[] plain = Files.readAllBytes(Paths.get(tempFolder + this.graphName()));
+
+		int bufferSize = Writer.bufferSize;
+		Writer.bufferSize = 61;
+		try {
+			for (Compression compression : Compression.values()) {
+				for (boolean async : new boolean[] { false, true }) {
+					String name = this.graphName() + compression + async;
+					assertTrue(new GraphWriter(compression, async).write(g, tempFolder, name));
+					if (compression == Compression.None)
+						assertArrayEquals(plain, Files.readAllBytes(Paths.get(tempFolder + name)));
+
+					Graph g2 = new GraphReader().read(tempFolder, name, null);
+					assertEquals(g.getFingerprint(), g2.getFingerprint());
+					assertEquals(g, g2);
+
+					Graph g3 = new MappedGraphReader(4).read(tempFolder, name, null);
+					assertEquals(g.getFingerprint(), g3.getFingerprint());
+					assertEquals(g, g3);
+				}
+			}
+
+			// the buffer must still hold the longest number
+			Writer.bufferSize = 1;
+			String name = this.graphName() + Writer.bufferSize;
+			assertTrue(new GraphWriter().write(g, tempFolder, name));
+			assertArrayEquals(plain, Files.readAllBytes(Paths.get(tempFolder + name)));
+		} finally {
+			Writer.bufferSize = bufferSize;
+		}
+	}
+
+	@Test
+	public void testWriteSubclassedElement() throws IOException {
+		Graph g = this.generate();
+
+		// a subclass of a node type must be written through its
+		// getStringRepresentation, not the shortcut for the known node types
+		Node nodeReal = g.getNode(g.getNodeCount() - 1);
+		assertNotNull(nodeReal);
+		g.removeNode(nodeReal);
+		Node nodeMocked = mock(this.nodeType);
+		when(nodeMocked.getIndex()).thenReturn(nodeReal.getIndex());
+		when(nodeMocked.getStringRepresentation()).thenReturn("mocked");
+		assertTrue(g.addNode(nodeMocked));
+
+		assertTrue(new GraphWriter().write(g, this.dir(), this.graphName()));
+		List<String> lines = Files.readAllLines(Paths.get(this.dir() + this.graphName()), StandardCharsets.US_ASCII);
+		assertTrue(lines.contains("mocked"));
+	}
+
+	@Test
+	public void testStream() throws IOException {
+		final Graph g = this.generateAndWrite();
+
+		final int[] degrees = new int[g.getMaxNodeIndex() + 1];
+		final int[] counts = new int[3];
+		new GraphReader().stream(this.dir(), this.graphName(), new GraphVisitor() {
+			@Override
+			public void header(String name, String dataStructures, int nodes, int edges, long timestamp) {
+				assertEquals(g.getName(), name);
+				assertEquals(gds.getDataStructures(), dataStructures);
+				assertEquals(g.getNodeCount(), nodes);
+				assertEquals(g.getEdgeCount(), edges);
+				assertEquals(g.getTimestamp(), timestamp);
+				counts[0]++;
+			}
+
+			@Override
+			public void node(int index, double weight) {
+				Node n = g.getNode(index);
+				assertNotNull(n);
+				if (n instanceof IDoubleWeighted)
+					assertEquals(((IDoubleWeighted) n).getWeightAsDouble(), weight, 0);
+				assertEquals(0, counts[2]);
+				counts[1]++;
+			}
+
+			@Override
+			public void edge(int src, int dst, double weight) {
+				Edge e = g.getEdge(src, dst);
+				assertNotNull(e);
+				if (e instanceof IDoubleWeighted)
+					assertEquals(((IDoubleWeighted) e).getWeightAsDouble(), weight, 0);
+				degrees[src]++;
+				degrees[dst]++;
+				counts[2]++;
+			}
+		});
+
+		assertEquals(1, counts[0]);
+		assertEquals(g.getNodeCount(), counts[1]);
+		assertEquals(g.getEdgeCount(), counts[2]);
+		for (IElement nIn : g.getNodes()) {
+			Node n = (Node) nIn;
+			int degree = 0;
+			for (Edge e : n.getEdges()) {
+				degree++;
+			}
+			assertEquals(degree, degrees[n.getIndex()]);
+		}
+	}
+
+	@Test
+	public void testCsrSnapshot() {
+		Graph g = this.generate();
+		CsrGraph csr = g.toCsr();
+
+		assertEquals(g.getNodeCount(), csr.getNodeCount());
+		assertEquals(g.getEdgeCount(), csr.getEdgeCount());
+		assertEquals(g.isDirected(), csr.isDirected());
+
+		int degrees = 0;
+		for (int i = 0; i <= csr.getMaxNodeIndex(); i++) {
+			degrees += csr.getOutDegree(i);
+		}
+		assertEquals(g.isDirected() ? g.getEdgeCount() : 2 * g.getEdgeCount(), degrees);
+
+		for (IElement eIn : g.getEdges()) {
+			int src, dst;
+			if (eIn instanceof DirectedEdge) {
+				DirectedEdge e = (DirectedEdge) eIn;
+				src = e.getSrc().getIndex();
+				dst = e.getDst().getIndex();
+			} else {
+				UndirectedEdge e = (UndirectedEdge) eIn;
+				src = e.getNode1().getIndex();
+				dst = e.getNode2().getIndex();
+				assertTrue(csr.hasEdge(dst, src));
+			}
+			assertTrue(csr.hasEdge(src, dst));
+
+			if (eIn instanceof IDoubleWeighted) {
+				boolean weightFound = false;
+				for (int i = csr.getOutOffsets()[src]; i < csr.getOutOffsets()[src + 1]; i++) {
+					if (csr.getOutTargets()[i] == dst
+							&& csr.getOutWeights()[i] == ((IDoubleWeighted) eIn).getWeightAsDouble())
+						weightFound = true;
+				}
+				assertTrue(weightFound);
+			}
+		}
+	}
+
 	@Test
 	public void testRandomGraphsAreRandom() {
 		assumeTrue(IRandomGenerator.class.isAssignableFrom(generator));
@@ -166,6 +449,7 @@ public class GeneratorsTest {
 		Graph g2 = gr.read(tempFolder, graphName, null);
 
 		assertEquals(g, g2);
+		assertEquals(g.getFingerprint(), g2.getFingerprint());
 
 		// Change getStringRepresentation now to see that it is used for
 		// equality checks
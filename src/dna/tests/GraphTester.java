@@ -2,22 +2,25 @@ package dna.tests;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
-import dna.datastructures.DArray;
-import dna.datastructures.DArrayList;
-import dna.datastructures.DHashMap;
-import dna.datastructures.DHashSet;
-import dna.datastructures.DLinkedList;
+import dna.datastructures.DMappedEdgeList;
+import dna.datastructures.DataStructureMatrix;
 import dna.datastructures.GraphDataStructure;
 import dna.datastructures.IEdgeListDatastructure;
+import dna.datastructures.IEdgeListDatastructureReadable;
 import dna.datastructures.INodeListDatastructure;
 import dna.graph.Graph;
+import dna.graph.IDoubleWeighted;
+import dna.graph.IElement;
+import dna.graph.edges.DirectedEdge;
 import dna.graph.edges.Edge;
+import dna.graph.edges.UndirectedEdge;
 import dna.graph.nodes.*;
 import dna.io.etc.Keywords;
 import static org.junit.Assert.*;
@@ -28,8 +31,7 @@ public class GraphTester {
 	private Graph graph;
 	private GraphDataStructure gds;
 	
-	public static Class[] nodeTypes = { UndirectedNode.class, UndirectedDoubleWeightedNode.class,
-			DirectedNode.class, DirectedDoubleWeightedNode.class };	
+	public static Class[] nodeTypes = DataStructureMatrix.nodeTypes;
 
 	public GraphTester(Class<? extends INodeListDatastructure> nodeListType,
 			Class<? extends IEdgeListDatastructure> graphEdgeListType,
@@ -43,7 +45,7 @@ public class GraphTester {
 	@SuppressWarnings("rawtypes")
 	@Parameterized.Parameters(name = "{0} {1} {2} {3}")
 	public static Collection<Object> testPairs() {
-		Class[] dataStructures = { DArray.class, DArrayList.class, DHashMap.class, DHashSet.class, DLinkedList.class };
+		Class[] dataStructures = DataStructureMatrix.listTypes;
 
 		ArrayList<Object> result = new ArrayList<>();
 		for (Class nodeListType : dataStructures) {
@@ -54,7 +56,7 @@ public class GraphTester {
 								continue;
 							if (!(IEdgeListDatastructure.class.isAssignableFrom(edgeListType)))
 								continue;
-							if (!(IEdgeListDatastructure.class.isAssignableFrom(nodeEdgeListType)))
+							if (!DataStructureMatrix.isNodeEdgeListType(nodeEdgeListType))
 								continue;
 							result.add(new Object[] { nodeListType, edgeListType, nodeEdgeListType, nodeType });
 					}
@@ -110,6 +112,321 @@ public class GraphTester {
 		assertTrue(n2.hasEdge(e));
 	}
 	
+	@Test
+	public void lazyNodeLists() {
+		gds.setLazyNodeLists(true);
+		Node n1 = gds.newNodeInstance(1);
+		Node n2 = gds.newNodeInstance(2);
+		Node n3 = gds.newNodeInstance(3);
+		graph.addNode(n1);
+		graph.addNode(n2);
+		graph.addNode(n3);
+
+		assertFalse(n1.getEdges().iterator().hasNext());
+
+		Edge e = gds.newEdgeInstance(n1, n2);
+		graph.addEdge(e);
+		assertFalse(n1.hasEdge(e));
+		assertTrue(n1.addEdge(e));
+		assertTrue(n2.addEdge(e));
+		assertFalse(n1.addEdge(e));
+
+		assertTrue(n1.hasEdge(e));
+		assertTrue(n2.hasEdge(e));
+		assertFalse(n3.hasEdge(e));
+		assertTrue(n1.hasEdgeTo(2));
+		assertFalse(n3.hasEdgeTo(1));
+		assertEquals(e, n1.getEdges().iterator().next());
+		assertFalse(n3.getEdges().iterator().hasNext());
+
+		if (graph.isDirected()) {
+			Edge back = gds.newEdgeInstance(n2, n1);
+			assertTrue(n1.addEdge(back));
+			assertTrue(n2.addEdge(back));
+			assertTrue(((DirectedNode) n1).hasNeighbor((DirectedNode) n2));
+			assertEquals(0, ((DirectedNode) n3).getNeighborCount());
+		}
+
+		assertTrue(n1.removeEdge(e));
+		assertFalse(n1.hasEdge(e));
+		assertFalse(n3.removeEdge(e));
+	}
+
+	@Test
+	public void hubEdges() {
+		// enough edges to make a DAdaptive node edge list migrate to a hash and back
+		Node[] nodes = new Node[41];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = gds.newNodeInstance(i);
+			graph.addNode(nodes[i]);
+		}
+		Node hub = nodes[0];
+		Edge[] edges = new Edge[nodes.length];
+		for (int i = 1; i < nodes.length; i++) {
+			edges[i] = gds.newEdgeInstance(hub, nodes[i]);
+			graph.addEdge(edges[i]);
+			assertTrue(hub.addEdge(edges[i]));
+			assertTrue(nodes[i].addEdge(edges[i]));
+			if (graph.isDirected() && i % 2 == 0) {
+				Edge back = gds.newEdgeInstance(nodes[i], hub);
+				graph.addEdge(back);
+				assertTrue(hub.addEdge(back));
+				assertTrue(nodes[i].addEdge(back));
+			}
+		}
+		for (int i = 1; i < nodes.length; i++) {
+			assertTrue(hub.hasEdgeTo(i));
+			assertTrue(hub.hasEdge(edges[i]));
+		}
+		if (graph.isDirected())
+			assertEquals(20, ((DirectedNode) hub).getNeighborCount());
+
+		for (int i = 1; i < 37; i++) {
+			assertTrue(graph.removeEdge(edges[i]));
+			assertTrue(hub.removeEdge(edges[i]));
+			assertTrue(nodes[i].removeEdge(edges[i]));
+		}
+		int count = 0;
+		for (Edge e : hub.getEdges()) {
+			count++;
+		}
+		assertEquals(graph.isDirected() ? 4 + 20 : 4, count);
+		for (int i = 1; i < nodes.length; i++) {
+			assertEquals(i >= 37, hub.hasEdgeTo(i));
+		}
+		if (graph.isDirected()) {
+			assertEquals(2, ((DirectedNode) hub).getNeighborCount());
+			assertTrue(((DirectedNode) hub).hasNeighbor((DirectedNode) nodes[38]));
+			assertFalse(((DirectedNode) hub).hasNeighbor((DirectedNode) nodes[36]));
+		}
+	}
+
+	@Test
+	public void commonNeighbors() {
+		assumeTrue(graph.isDirected());
+		DirectedNode[] nodes = this.connectNeighbors();
+
+		assertEquals(3, nodes[0].getNeighborCount());
+		assertEquals(2, nodes[0].getCommonNeighborCount(nodes[1]));
+		assertEquals(2, nodes[1].getCommonNeighborCount(nodes[0]));
+		assertEquals(0, nodes[0].getCommonNeighborCount(nodes[2]));
+		assertEquals(2, nodes[2].getCommonNeighborCount(nodes[3]));
+	}
+
+	@Test
+	public void bitmapNeighbors() {
+		assumeTrue(graph.isDirected());
+		assumeTrue(IEdgeListDatastructureReadable.class.isAssignableFrom(gds.getNodeEdgeListType()));
+		gds.setBitmapNeighbors(true);
+		DirectedNode[] nodes = this.connectNeighbors();
+
+		assertEquals(3, nodes[0].getNeighborCount());
+		assertTrue(nodes[0].hasNeighbor(nodes[4]));
+		assertFalse(nodes[0].hasNeighbor(nodes[1]));
+		assertEquals(2, nodes[0].getCommonNeighborCount(nodes[1]));
+		assertEquals(2, nodes[2].getCommonNeighborCount(nodes[3]));
+		ArrayList<Integer> neighbors = new ArrayList<>();
+		for (DirectedNode n : nodes[0].getNeighbors()) {
+			neighbors.add(n.getIndex());
+		}
+		assertEquals(Arrays.asList(2, 3, 4), neighbors);
+
+		Edge e = gds.newEdgeInstance(nodes[1], nodes[3]);
+		assertTrue(nodes[1].removeEdge(e));
+		assertTrue(nodes[3].removeEdge(e));
+		assertEquals(1, nodes[1].getNeighborCount());
+		assertEquals(1, nodes[0].getCommonNeighborCount(nodes[1]));
+		assertEquals(2, nodes[2].getNeighborCount());
+		assertEquals(1, nodes[3].getCommonNeighborCount(nodes[2]));
+	}
+
+	/**
+	 * Add five nodes, where 0 and 1 are both reciprocally connected to 2 and
+	 * 3, 0 also to 4
+	 */
+	private DirectedNode[] connectNeighbors() {
+		DirectedNode[] nodes = new DirectedNode[5];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = (DirectedNode) gds.newNodeInstance(i);
+			graph.addNode(nodes[i]);
+		}
+		int[][] pairs = { { 0, 2 }, { 0, 3 }, { 0, 4 }, { 1, 2 }, { 1, 3 } };
+		for (int[] pair : pairs) {
+			for (Edge e : new Edge[] { gds.newEdgeInstance(nodes[pair[0]], nodes[pair[1]]),
+					gds.newEdgeInstance(nodes[pair[1]], nodes[pair[0]]) }) {
+				graph.addEdge(e);
+				assertTrue(((DirectedEdge) e).getSrc().addEdge(e));
+				assertTrue(((DirectedEdge) e).getDst().addEdge(e));
+			}
+		}
+		return nodes;
+	}
+
+	@Test
+	public void weightColumns() {
+		assumeTrue(gds.isReadable());
+		assumeTrue(IDoubleWeighted.class.isAssignableFrom(gds.getNodeType()));
+		Node[] nodes = new Node[4];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = gds.newNodeInstance(2 * i);
+			((IDoubleWeighted) nodes[i]).setWeight(0.5 * i);
+			graph.addNode(nodes[i]);
+		}
+		double[] nodeWeights = graph.getNodeWeights();
+		assertArrayEquals(new double[] { 0, 0, 0.5, 0, 1, 0, 1.5 }, nodeWeights, 0);
+		nodeWeights[4] = 7;
+		graph.setNodeWeights(nodeWeights);
+		assertEquals(7, ((IDoubleWeighted) nodes[2]).getWeightAsDouble(), 0);
+		assertEquals(Double.valueOf(7), ((IDoubleWeighted) nodes[2]).getWeight());
+
+		for (int i = 1; i < nodes.length; i++) {
+			Edge e = gds.newEdgeInstance(nodes[0], nodes[i]);
+			graph.addEdge(e);
+			nodes[0].addEdge(e);
+			nodes[i].addEdge(e);
+		}
+		double[] edgeWeights = graph.getEdgeWeights();
+		assertEquals(3, edgeWeights.length);
+		for (int i = 0; i < edgeWeights.length; i++) {
+			edgeWeights[i] = i + 1;
+		}
+		graph.setEdgeWeights(edgeWeights);
+		assertArrayEquals(edgeWeights, graph.getEdgeWeights(), 0);
+		double sum = 0;
+		for (IElement e : graph.getEdges()) {
+			sum += ((IDoubleWeighted) e).getWeightAsDouble();
+		}
+		assertEquals(6, sum, 0);
+		if (!DataStructureMatrix.storesInstances(gds.getGraphEdgeListType()))
+			return;
+		sum = 0;
+		for (Edge e : nodes[0].getEdges()) {
+			sum += ((IDoubleWeighted) e).getWeightAsDouble();
+		}
+		assertEquals(6, sum, 0);
+	}
+
+	@Test
+	public void sharedEdgeWeights() {
+		assumeTrue(gds.isReadable());
+		assumeTrue(DataStructureMatrix.storesInstances(gds.getGraphEdgeListType()));
+		assumeTrue(IDoubleWeighted.class.isAssignableFrom(gds.getEdgeType()));
+		Node n1 = gds.newNodeInstance(1);
+		Node n2 = gds.newNodeInstance(2);
+		graph.addNode(n1);
+		graph.addNode(n2);
+		Edge e = gds.newEdgeInstance(n1, n2);
+		graph.addEdge(e);
+		n1.addEdge(e);
+		n2.addEdge(e);
+
+		((IDoubleWeighted) graph.getEdge(e)).setWeight(4.5);
+		for (Node n : new Node[] { n1, n2 }) {
+			Edge fromNode = n.getEdges().iterator().next();
+			assertEquals(4.5, ((IDoubleWeighted) fromNode).getWeightAsDouble(), 0);
+		}
+
+		graph.setEdgeWeights(new double[] { 2.5 });
+		assertEquals(2.5, ((IDoubleWeighted) n1.getEdges().iterator().next()).getWeightAsDouble(), 0);
+		assertEquals(2.5, ((IDoubleWeighted) graph.getEdge(1, 2)).getWeightAsDouble(), 0);
+	}
+
+	@Test
+	public void mappedEdgeListRecords() {
+		assumeTrue(graph.edges instanceof DMappedEdgeList);
+		DMappedEdgeList edges = (DMappedEdgeList) graph.edges;
+		boolean weighted = IDoubleWeighted.class.isAssignableFrom(gds.getEdgeType());
+		Node[] nodes = new Node[5];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = gds.newNodeInstance(i);
+			graph.addNode(nodes[i]);
+		}
+		for (int i = 1; i < nodes.length; i++) {
+			Edge e = gds.newEdgeInstance(nodes[0], nodes[i]);
+			if (weighted)
+				((IDoubleWeighted) e).setWeight(i + 0.5);
+			assertTrue(graph.addEdge(e));
+		}
+
+		// edges are created from their records, with the stored weight
+		Edge e = gds.newEdgeInstance(nodes[0], nodes[2]);
+		Edge stored = graph.getEdge(e);
+		assertEquals(e, stored);
+		assertNotSame(stored, graph.getEdge(e));
+		assertSame(nodes[2], otherNode(stored, nodes[0]));
+		if (weighted) {
+			assertEquals(2.5, ((IDoubleWeighted) stored).getWeightAsDouble(), 0);
+			((IDoubleWeighted) stored).setWeight(7);
+			assertEquals(2.5, ((IDoubleWeighted) graph.getEdge(e)).getWeightAsDouble(), 0);
+			assertTrue(edges.update(stored));
+			assertEquals(7, ((IDoubleWeighted) graph.getEdge(0, 2)).getWeightAsDouble(), 0);
+		}
+
+		// removing an edge moves the last record, including its weight
+		assertTrue(graph.removeEdge(gds.newEdgeInstance(nodes[0], nodes[1])));
+		assertFalse(edges.update(gds.newEdgeInstance(nodes[0], nodes[1])));
+		int count = 0;
+		for (IElement eIn : graph.getEdges()) {
+			Edge edge = (Edge) eIn;
+			Node other = otherNode(edge, nodes[0]);
+			assertTrue(other.getIndex() >= 2);
+			if (weighted)
+				assertEquals(other.getIndex() == 2 ? 7 : other.getIndex() + 0.5,
+						((IDoubleWeighted) edge).getWeightAsDouble(), 0);
+			count++;
+		}
+		assertEquals(3, count);
+		assertTrue(graph.containsEdge((Edge) graph.getRandomEdge()));
+		edges.close();
+	}
+
+	/**
+	 * Retrieve the node connected to n by an edge
+	 */
+	private static Node otherNode(Edge e, Node n) {
+		if (e instanceof DirectedEdge)
+			return ((DirectedEdge) e).getSrc() == n ? ((DirectedEdge) e).getDst() : ((DirectedEdge) e).getSrc();
+		return ((UndirectedEdge) e).getDifferingNode((UndirectedNode) n);
+	}
+
+	@Test
+	public void mappedEdgeListSegments() {
+		assumeTrue(graph.edges instanceof DMappedEdgeList);
+		int segmentBits = DMappedEdgeList.segmentBits;
+		DMappedEdgeList.segmentBits = 2;
+		try {
+			DMappedEdgeList edges = new DMappedEdgeList(gds.getEdgeType());
+			Node[] nodes = new Node[10];
+			for (int i = 0; i < nodes.length; i++) {
+				nodes[i] = gds.newNodeInstance(i);
+			}
+			for (int i = 0; i < nodes.length; i++) {
+				for (int j = i + 1; j < nodes.length; j++) {
+					assertTrue(edges.add(gds.newEdgeInstance(nodes[i], nodes[j])));
+				}
+			}
+			assertEquals(45, edges.size());
+			for (int i = 0; i < nodes.length; i += 2) {
+				assertTrue(edges.remove(gds.newEdgeInstance(nodes[i], nodes[i + 1])));
+			}
+			assertEquals(40, edges.size());
+			for (int i = 0; i < nodes.length; i++) {
+				for (int j = i + 1; j < nodes.length; j++) {
+					assertEquals(i % 2 == 1 || j != i + 1, edges.contains(i, j));
+				}
+			}
+
+			edges.close();
+			assertEquals(0, edges.size());
+			assertFalse(edges.contains(0, 2));
+			assertTrue(edges.add(gds.newEdgeInstance(nodes[0], nodes[2])));
+			assertTrue(edges.contains(0, 2));
+			edges.close();
+		} finally {
+			DMappedEdgeList.segmentBits = segmentBits;
+		}
+	}
+
 	@Test
 	public void addEdgeByString() {
 		assumeTrue(gds.isReadable());
@@ -0,0 +1,132 @@
+package dna.tests;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dna.datastructures.DArray;
+import dna.datastructures.DArrayList;
+import dna.datastructures.DHashMap;
+import dna.datastructures.DHashSet;
+import dna.datastructures.DMappedEdgeList;
+import dna.datastructures.GraphDataStructure;
+import dna.factories.RandomDirectedGraphGenerator;
+import dna.factories.RandomUndirectedDoubleWeightedGraphGenerator;
+import dna.graph.Graph;
+import dna.graph.IElement;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.DirectedNode;
+import dna.graph.nodes.Node;
+import dna.graph.nodes.UndirectedDoubleWeightedNode;
+import dna.io.TraceRecorder;
+import dna.io.TraceReplayer;
+import dna.io.TraceReplayer.Result;
+import dna.util.parameters.Parameter;
+
+public class TraceTester {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String dir() {
+		return folder.getRoot().getAbsolutePath() + "/";
+	}
+
+	private Graph generate(GraphDataStructure gds) {
+		if (gds.createsDirected())
+			return new RandomDirectedGraphGenerator("trace", new Parameter[] {}, gds, 0, 100, 300).generate();
+		return new RandomUndirectedDoubleWeightedGraphGenerator("trace", new Parameter[] {}, gds, 0, 100, 300)
+				.generate();
+	}
+
+	/**
+	 * Generate a graph and access it in several ways while recording all
+	 * operations
+	 */
+	private long record(GraphDataStructure gds, String filename) throws IOException {
+		TraceRecorder recorder = new TraceRecorder(dir(), filename, gds);
+		gds.setTraceRecorder(recorder);
+
+		Graph g = generate(gds);
+		for (IElement n : g.getNodes()) {
+			for (Edge e : ((Node) n).getEdges()) {
+				assertTrue(g.containsEdge(e));
+			}
+		}
+		for (int i = 0; i < 100; i++) {
+			if (g.containsEdge(i, i + 1))
+				assertNotNull(g.getEdge(i, i + 1));
+		}
+		for (int i = 0; i < 50; i++) {
+			Edge e = g.getRandomEdge();
+			assertEquals(e, g.getEdge(e));
+			g.removeEdge(e);
+			assertTrue(g.getRandomNode().getIndex() >= 0);
+			assertNotNull(g.getNode(i));
+		}
+		assertFalse(g.containsNode(gds.newNodeInstance(1000)));
+
+		gds.setTraceRecorder(null);
+		recorder.close();
+		return recorder.getOperations();
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	public void replayRecordsSameTrace() throws IOException, ClassNotFoundException {
+		for (Class<? extends Node> nodeType : new Class[] { DirectedNode.class, UndirectedDoubleWeightedNode.class }) {
+			GraphDataStructure gds = new GraphDataStructure(DArrayList.class, DArrayList.class, DArrayList.class,
+					nodeType);
+			long operations = record(gds, "recorded");
+
+			TraceReplayer replayer = new TraceReplayer(dir(), "recorded");
+			assertEquals(operations, replayer.getOperations());
+			assertEquals(nodeType, replayer.getNodeType());
+			assertEquals(gds.getEdgeType(), replayer.getEdgeType());
+
+			GraphDataStructure other = new GraphDataStructure(DHashMap.class, DHashSet.class, DHashSet.class, nodeType);
+			TraceRecorder recorder = new TraceRecorder(dir(), "replayed", other);
+			other.setTraceRecorder(recorder);
+			Result result = replayer.replay(other);
+			recorder.close();
+
+			assertFalse(result.toString(), result.failed());
+			assertEquals(operations, recorder.getOperations());
+			assertArrayEquals(Files.readAllBytes(Paths.get(dir(), "recorded")),
+					Files.readAllBytes(Paths.get(dir(), "replayed")));
+		}
+	}
+
+	@Test
+	public void rankCombinations() throws IOException, ClassNotFoundException {
+		GraphDataStructure gds = new GraphDataStructure(DArrayList.class, DArrayList.class, DArrayList.class,
+				DirectedNode.class);
+		record(gds, "recorded");
+
+		TraceReplayer replayer = new TraceReplayer(dir(), "recorded");
+		List<Result> results = replayer.rank(new Class<?>[] { DArrayList.class, DArray.class, DHashSet.class }, 1, 3);
+		// DArray can only store nodes, DHashSet only edges
+		assertEquals(2 * 2 * 2, results.size());
+		long previous = 0;
+		for (Result r : results) {
+			assertFalse(r.toString(), r.failed());
+			assertTrue(r.getNanos() >= previous);
+			assertTrue(r.getPeakHeap() > 0);
+			previous = r.getNanos();
+		}
+
+		// a mapped edge list is only tried for the edges of the graph
+		results = replayer.rank(new Class<?>[] { DArrayList.class, DMappedEdgeList.class }, 0, 1);
+		assertEquals(2, results.size());
+		for (Result r : results) {
+			assertFalse(r.toString(), r.failed());
+			assertEquals(DArrayList.class, r.getGraphDataStructure().getNodeEdgeListType());
+		}
+	}
+}